@@ -1,20 +1,40 @@
 package com.intelliquiz.backend.config;
 
+import com.intelliquiz.backend.model.Badge;
+import com.intelliquiz.backend.model.EBadgeRule;
 import com.intelliquiz.backend.model.ERole;
 import com.intelliquiz.backend.model.Role;
+import com.intelliquiz.backend.repository.BadgeRepository;
 import com.intelliquiz.backend.repository.RoleRepository;
+import com.intelliquiz.backend.security.services.BadgeService;
+import com.intelliquiz.backend.security.services.StatsRollupService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
     private final RoleRepository roleRepository;
+    private final BadgeRepository badgeRepository;
+    private final BadgeService badgeService;
+    private final StatsRollupService statsRollupService;
+
+    // Default badge catalog — bits are permanent once assigned, only append new ones
+    private static final List<Badge> DEFAULT_BADGES = List.of(
+            Badge.builder().bit(0).name("Bronze").ruleType(EBadgeRule.POINTS_AT_LEAST).threshold(200).build(),
+            Badge.builder().bit(1).name("Silver").ruleType(EBadgeRule.POINTS_AT_LEAST).threshold(500).build(),
+            Badge.builder().bit(2).name("Gold").ruleType(EBadgeRule.POINTS_AT_LEAST).threshold(1000).build(),
+            Badge.builder().bit(3).name("Hot Streak").ruleType(EBadgeRule.STREAK_AT_LEAST).threshold(3).build(),
+            Badge.builder().bit(4).name("Unstoppable").ruleType(EBadgeRule.STREAK_AT_LEAST).threshold(10).build(),
+            Badge.builder().bit(5).name("Topic Master").ruleType(EBadgeRule.TOPIC_MASTERY).threshold(90).minAttempts(5).build()
+    );
 
     @Override
     public void run(String... args) {
@@ -27,5 +47,17 @@ public class DataInitializer implements CommandLineRunner {
                         return newRole;
                     });
         }
+
+        for (Badge badge : DEFAULT_BADGES) {
+            badgeRepository.findByName(badge.getName())
+                    .orElseGet(() -> {
+                        Badge saved = badgeRepository.save(badge);
+                        log.info("✅ Seeded badge: {} (bit {})", badge.getName(), badge.getBit());
+                        return saved;
+                    });
+        }
+        badgeService.migrateLegacyBadges();
+        badgeService.reload();
+        statsRollupService.dropRecentScoreColumns();
     }
 }
@@ -0,0 +1,12 @@
+package com.intelliquiz.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled maintenance jobs (key expiry, checkpoints, rollup flushes).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,75 @@
+package com.intelliquiz.backend.config;
+
+import com.intelliquiz.backend.controller.LiveSessionSocketHandler;
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.security.jwt.JwtUtils;
+import com.intelliquiz.backend.security.services.UserDetailsImpl;
+import com.intelliquiz.backend.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Registers the live classroom quiz socket at /ws/live?session=...&token=...
+ * Browsers cannot set an Authorization header on a WebSocket handshake, so the JWT travels as
+ * a query parameter and is checked here (same claims-only principal as AuthTokenFilter); the
+ * HTTP security chain lets /ws/** through.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final LiveSessionSocketHandler liveSessionSocketHandler;
+    private final JwtUtils jwtUtils;
+    private final UserDetailsServiceImpl userDetailsService;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(liveSessionSocketHandler, "/ws/live")
+                .addInterceptors(new JwtHandshakeInterceptor())
+                .setAllowedOriginPatterns("http://localhost:5173"); // 🔒 Replace with prod domain
+    }
+
+    /** Rejects the upgrade unless ?token= is a valid JWT; stores the caller in the socket attributes. */
+    private class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+            Claims claims = token != null ? jwtUtils.parseClaims(token) : null;
+            if (claims == null) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+            UserDetailsImpl user = userDetailsService.principalFor(
+                    jwtUtils.principalOf(claims), claims.getSubject(), claims.getIssuedAt());
+            if (user == null) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+            attributes.put(LiveSessionSocketHandler.USER_ID, user.getId());
+            attributes.put(LiveSessionSocketHandler.USERNAME, user.getUsername());
+            attributes.put(LiveSessionSocketHandler.ADMIN, user.getAuthorities().stream()
+                    .anyMatch(a -> ERole.ROLE_ADMIN.name().equals(a.getAuthority())));
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+}
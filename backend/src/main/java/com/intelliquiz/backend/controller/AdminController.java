@@ -1,25 +1,138 @@
 package com.intelliquiz.backend.controller;
 
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.security.services.AnalyticsService;
+import com.intelliquiz.backend.security.services.CounterService;
+import com.intelliquiz.backend.security.services.DifficultyCalibrationService;
+import com.intelliquiz.backend.security.services.ProgressRollupService;
+import com.intelliquiz.backend.security.services.RecomputeJobService;
+import com.intelliquiz.backend.security.services.ScoreSketchService;
+import com.intelliquiz.backend.security.services.SnapshotService;
+import com.intelliquiz.backend.security.services.StatsRollupService;
+import com.intelliquiz.backend.security.services.UserDetailsServiceImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/admin")
 @CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
 public class AdminController {
 
+    private final StatsRollupService statsRollupService;
+    private final ProgressRollupService progressRollupService;
+    private final AnalyticsService analyticsService;
+    private final CounterService counterService;
+    private final RecomputeJobService recomputeJobService;
+    private final ScoreSketchService scoreSketchService;
+    private final SnapshotService snapshotService;
+    private final DifficultyCalibrationService calibrationService;
+    private final UserDetailsServiceImpl userDetailsService;
+
+    // 📊 System overview from live counters (no COUNT queries)
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getAdminDashboard() {
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        for (ERole role : ERole.values()) byRole.put(role.name(), counterService.usersWithRole(role));
+
         Map<String, Object> data = new HashMap<>();
-        data.put("message", "Welcome Admin! System overview mock.");
-        data.put("usersCount", 15);
-        data.put("activeClasses", 3);
+        data.put("message", "Welcome Admin! System overview.");
+        data.put("usersCount", counterService.get(CounterService.USERS_TOTAL));
+        data.put("usersByRole", byRole);
+        data.put("resourcesCount", counterService.get(CounterService.RESOURCES_TOTAL));
+        data.put("activeClasses", counterService.get(CounterService.CLASSES_TOTAL));
+        data.put("attemptsToday", counterService.attemptsToday());
+        data.put("activeUsersToday", counterService.activeUsersToday());
         return ResponseEntity.ok(data);
     }
+
+    // 📈 Hit / miss / eviction counters of the in-memory caches
+    @GetMapping("/caches")
+    public ResponseEntity<List<Map<String, Object>>> getCacheStats() {
+        List<Map<String, Object>> caches = new ArrayList<>();
+        caches.add(analyticsService.cacheStats());
+        caches.addAll(userDetailsService.cacheStats());
+        return ResponseEntity.ok(caches);
+    }
+
+    // 🔄 Recompute user_stats / user_topic_stats and the day / week progress buckets from quiz_attempts
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRollups() {
+        Map<String, Integer> result = new LinkedHashMap<>(statsRollupService.rebuild());
+        result.putAll(progressRollupService.rebuild());
+        return ResponseEntity.ok(result);
+    }
+
+    // 📐 Recompute the per-topic / per-class score sketches from quiz_attempts
+    @PostMapping("/sketches/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildSketches() {
+        return ResponseEntity.ok(scoreSketchService.rebuild());
+    }
+
+    // 🔁 Rebuild points, badges and rollups from quiz_attempts (resumes an unfinished run)
+    @PostMapping("/recompute")
+    public ResponseEntity<Map<String, Object>> startRecompute() {
+        analyticsService.recalculateAllLeaderboard();
+        return ResponseEntity.accepted().body(recomputeJobService.progress());
+    }
+
+    // 📍 Progress of the latest recompute run
+    @GetMapping("/recompute")
+    public ResponseEntity<Map<String, Object>> getRecomputeProgress() {
+        return ResponseEntity.ok(recomputeJobService.progress());
+    }
+
+    // 🔢 Recompute dashboard counters from the source tables
+    @PostMapping("/counters/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileCounters() {
+        counterService.reconcile();
+        return getAdminDashboard();
+    }
+
+    // 📸 Write a fresh columnar snapshot of quiz_attempts and switch reports to it
+    @PostMapping("/snapshots")
+    public ResponseEntity<Map<String, Object>> takeSnapshot() {
+        return ResponseEntity.ok(snapshotService.takeSnapshot());
+    }
+
+    // 🗂️ Current snapshot and the files kept on disk
+    @GetMapping("/snapshots")
+    public ResponseEntity<Map<String, Object>> getSnapshots() {
+        return ResponseEntity.ok(snapshotService.status());
+    }
+
+    // 📊 Historical attempt report by topic or difficulty, scanned from the latest snapshot
+    @GetMapping("/reports/attempts")
+    public ResponseEntity<Map<String, Object>> getAttemptReport(
+            @RequestParam(defaultValue = "topic") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(snapshotService.report(groupBy, from, to));
+    }
+
+    // 🎚️ Recalibrate question / topic difficulty from every stored answer
+    @PostMapping("/calibration")
+    public ResponseEntity<Map<String, Object>> recalibrate() {
+        return ResponseEntity.ok(calibrationService.recalibrate());
+    }
+
+    // 🎚️ Calibrated difficulty per topic, or per question of one topic
+    @GetMapping("/calibration")
+    public ResponseEntity<Map<String, Object>> getCalibration(@RequestParam(required = false) String topic) {
+        return ResponseEntity.ok(calibrationService.summary(topic));
+    }
 }
@@ -1,12 +1,23 @@
 package com.intelliquiz.backend.controller;
 
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.User;
 import com.intelliquiz.backend.repository.UserRepository;
 import com.intelliquiz.backend.security.services.AnalyticsService;
+import com.intelliquiz.backend.security.services.LeaderboardService;
+import com.intelliquiz.backend.security.services.LeaderboardStreamService;
+import com.intelliquiz.backend.security.services.ProgressRollupService;
+import com.intelliquiz.backend.security.services.RecentScoresService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,10 +30,13 @@ public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
     private final UserRepository userRepository;
+    private final LeaderboardStreamService leaderboardStreamService;
 
-    public AnalyticsController(AnalyticsService analyticsService, UserRepository userRepository) {
+    public AnalyticsController(AnalyticsService analyticsService, UserRepository userRepository,
+                               LeaderboardStreamService leaderboardStreamService) {
         this.analyticsService = analyticsService;
         this.userRepository = userRepository;
+        this.leaderboardStreamService = leaderboardStreamService;
     }
 
     // ==============================
@@ -53,21 +67,84 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * Returns the student's last `window` scores, oldest first (5, 20 or 100; max 100).
+     */
+    @GetMapping("/student/{id}/trend")
+    public ResponseEntity<?> getTrend(@PathVariable Long id, @RequestParam(defaultValue = "5") int window) {
+        log.info("📈 GET /analytics/student/{}/trend?window={}", id, window);
+        if (window < 1 || window > RecentScoresService.CAPACITY) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "window must be between 1 and " + RecentScoresService.CAPACITY));
+        }
+        if (!userRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "User not found", "userId", id));
+        }
+        return ResponseEntity.ok(analyticsService.getTrend(id, window));
+    }
+
+    /**
+     * Progress chart over `from`..`to` (default: the last year) for one topic or all topics.
+     * `resolution` is auto (default), day, week or month; auto keeps the chart to a few hundred points.
+     */
+    @GetMapping("/student/{id}/progress")
+    public ResponseEntity<?> getProgress(@PathVariable Long id,
+                                         @RequestParam Optional<String> topic,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                         @RequestParam(defaultValue = "auto") String resolution) {
+        log.info("📈 GET /analytics/student/{}/progress?resolution={}", id, resolution);
+        if (!userRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "User not found", "userId", id));
+        }
+        LocalDate end = to.orElse(LocalDate.now());
+        LocalDate start = from.orElse(end.minusYears(1).plusDays(1));
+        return ResponseEntity.ok(analyticsService.getProgress(id, topic.orElse(null), start, end,
+                ProgressRollupService.Resolution.parse(resolution)));
+    }
+
+    /**
+     * Best study resources for each of the student's weakest topics (one in-memory lookup per topic).
+     */
+    @GetMapping("/student/{id}/recommendations")
+    public ResponseEntity<?> getRecommendations(@PathVariable Long id,
+                                                @RequestParam(defaultValue = "3") int topics,
+                                                @RequestParam(defaultValue = "3") int perTopic) {
+        log.info("📚 GET /analytics/student/{}/recommendations?topics={}&perTopic={}", id, topics, perTopic);
+        if (topics < 1 || topics > 20 || perTopic < 1 || perTopic > 20) {
+            return ResponseEntity.badRequest().body(Map.of("error", "topics and perTopic must be between 1 and 20"));
+        }
+        if (!userRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "User not found", "userId", id));
+        }
+        return ResponseEntity.ok(Map.of("userId", id, "recommendations",
+                analyticsService.getRecommendations(id, topics, perTopic)));
+    }
+
     // ==============================
     // 🏆 Global Leaderboard Endpoint
     // ==============================
 
     /**
      * Returns leaderboard data — top N users sorted by points.
-     * Query param `limit` defines number of entries (default 10).
+     * Query param `limit` defines number of entries (default 10);
+     * `window` selects all (default), day, week or month.
      */
     @GetMapping("/leaderboard")
-    public ResponseEntity<?> getLeaderboard(@RequestParam Optional<Integer> limit) {
+    public ResponseEntity<?> getLeaderboard(@RequestParam Optional<Integer> limit,
+                                            @RequestParam Optional<String> window) {
         int topLimit = limit.orElse(10);
-        log.info("🏆 GET /analytics/leaderboard?limit={}", topLimit);
+        log.info("🏆 GET /analytics/leaderboard?limit={}&window={}", topLimit, window.orElse("all"));
         try {
-            List<Map<String, Object>> leaderboard = analyticsService.getLeaderboard(topLimit);
+            List<Map<String, Object>> leaderboard = window.isPresent()
+                    ? analyticsService.getLeaderboard(topLimit, LeaderboardService.Window.parse(window.get()))
+                    : analyticsService.getLeaderboard(topLimit);
             return ResponseEntity.ok(leaderboard);
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             log.error("❌ Error generating leaderboard: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -75,17 +152,106 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * Live top-N leaderboard as Server-Sent Events: a "snapshot" on connect, then at most one
+     * "diff" per tick while standings change. Replaces polling /analytics/leaderboard.
+     */
+    @GetMapping(value = "/leaderboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLeaderboard() {
+        log.info("📡 GET /analytics/leaderboard/stream ({} subscribers)", leaderboardStreamService.subscriberCount());
+        return leaderboardStreamService.subscribe();
+    }
+
+    /**
+     * Deep leaderboard paging with keyset cursors on (points DESC, id).
+     * `role` (student, teacher, admin) or `classroomId` (members, teacher or admin only) scopes
+     * the board; `after` is the previous page's `nextCursor`.
+     */
+    @GetMapping("/leaderboard/page")
+    public ResponseEntity<?> getLeaderboardPage(@RequestParam Optional<String> role,
+                                                @RequestParam Optional<Long> classroomId,
+                                                @RequestParam(defaultValue = "all") String window,
+                                                @RequestParam Optional<String> after,
+                                                @RequestParam(defaultValue = "50") int limit,
+                                                Principal principal) {
+        log.info("🏆 GET /analytics/leaderboard/page?role={}&classroomId={}&window={}&limit={}",
+                role.orElse(""), classroomId.orElse(null), window, limit);
+        User user = null;
+        if (classroomId.isPresent()) {
+            if (principal == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+            }
+            user = userRepository.findByUsername(principal.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+        }
+        return ResponseEntity.ok(analyticsService.getLeaderboardPage(
+                role.orElse(null), classroomId.orElse(null), LeaderboardService.Window.parse(window),
+                after.orElse(null), limit, user));
+    }
+
+    /**
+     * Returns the caller's rank, points and `radius` neighbours on either side
+     * in the chosen window (all, day, week, month).
+     */
+    @GetMapping("/leaderboard/me")
+    public ResponseEntity<?> getMyRank(@RequestParam(defaultValue = "2") int radius,
+                                       @RequestParam(defaultValue = "all") String window,
+                                       Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+
+        int r = Math.max(0, Math.min(radius, 25));
+        log.info("🏆 GET /analytics/leaderboard/me?radius={}&window={} for user {}", r, window, user.getId());
+        return ResponseEntity.ok(analyticsService.getLeaderboardPosition(user, LeaderboardService.Window.parse(window), r));
+    }
+
     // ==============================
-    // 🏫 Classroom Leaderboard (Demo)
+    // 🏫 Classroom Analytics
     // ==============================
 
     /**
-     * Retained demo endpoint — placeholder until Classroom entity is active.
+     * Class dashboard (average, distribution, trend, weakest topics, most active students)
+     * for the classroom's teacher or an admin.
      */
     @GetMapping("/classroom/{id}")
-    public ResponseEntity<Map<String, Object>> getClassroomAnalytics(@PathVariable Long id) {
+    public ResponseEntity<?> getClassroomAnalytics(@PathVariable Long id, Principal principal) {
         log.info("🏫 GET /analytics/classroom/{}", id);
-        return ResponseEntity.ok(analyticsService.getClassroomAnalytics(id));
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+        return ResponseEntity.ok(analyticsService.getClassroomAnalytics(id, user));
+    }
+
+    // ==============================
+    // 📐 Score Percentiles
+    // ==============================
+
+    /**
+     * Median / percentiles of scores for a topic (all topics if omitted), across all students or
+     * one classroom (`classroomId`, teacher or admin only), optionally within `from`..`to`.
+     * The range is widened to whole Monday–Sunday weeks; the response echoes the effective range.
+     * `p` lists the percentiles, e.g. `p=50,90,99`.
+     */
+    @GetMapping("/percentiles")
+    public ResponseEntity<?> getPercentiles(@RequestParam Optional<String> topic,
+                                            @RequestParam Optional<Long> classroomId,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                            @RequestParam(defaultValue = "50,90") List<Double> p,
+                                            Principal principal) {
+        log.info("📐 GET /analytics/percentiles?topic={}&classroomId={}&p={}", topic.orElse(""), classroomId.orElse(null), p);
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+        return ResponseEntity.ok(analyticsService.getPercentiles(topic.orElse(null), classroomId.orElse(null),
+                from.orElse(null), to.orElse(null), p, user));
     }
 
     // ==============================
@@ -1,11 +1,13 @@
 package com.intelliquiz.backend.controller;
 
+import com.intelliquiz.backend.event.UserAccountChangedEvent;
 import com.intelliquiz.backend.exception.TokenRefreshException;
 import com.intelliquiz.backend.model.*;
 import com.intelliquiz.backend.payload.request.*;
 import com.intelliquiz.backend.payload.response.*;
 import com.intelliquiz.backend.repository.*;
 import com.intelliquiz.backend.security.jwt.JwtUtils;
+import com.intelliquiz.backend.security.services.CounterService;
 import com.intelliquiz.backend.security.services.RefreshTokenService;
 import com.intelliquiz.backend.security.services.UserDetailsImpl;
 
@@ -14,12 +16,14 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
@@ -39,6 +43,8 @@ public class AuthController {
     private final RoleRepository roleRepository;
     private final PasswordEncoder encoder;
     private final JwtUtils jwtUtils;
+    private final CounterService counterService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     private RefreshTokenService refreshTokenService;
@@ -143,6 +149,7 @@ public class AuthController {
 
             user.setRoles(roles);
             userRepository.save(user);
+            counterService.userRegistered(roles.stream().map(Role::getName).toList());
 
             log.info("✅ User '{}' registered successfully with roles {}", username, roles);
             return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
@@ -175,7 +182,7 @@ public class AuthController {
                     refreshTokenService.deleteByUserId(user.getId());
                     log.debug("🧹 Old refresh token invalidated for user: {}", user.getUsername());
 
-                    String newAccessToken = jwtUtils.generateTokenFromUsername(user.getUsername());
+                    String newAccessToken = jwtUtils.generateToken(UserDetailsImpl.build(user));
                     RefreshToken newRefresh = refreshTokenService.createRefreshToken(user.getId());
 
                     log.info("🔁 Issued new tokens for {}", user.getUsername());
@@ -193,10 +200,15 @@ public class AuthController {
 
     // 🚪 LOGOUT
     @PostMapping("/logout")
-    public ResponseEntity<?> logoutUser(@RequestBody Map<String, Long> request) {
+    public ResponseEntity<?> logoutUser(@RequestBody Map<String, Long> request,
+                                        @AuthenticationPrincipal UserDetailsImpl caller) {
         Long userId = request.get("userId");
         refreshTokenService.deleteByUserId(userId);
         log.info("🚪 User with ID {} logged out, refresh token(s) deleted", userId);
+        // access tokens are only revoked when the bearer logs itself out
+        if (caller != null && caller.getId().equals(userId)) {
+            eventPublisher.publishEvent(new UserAccountChangedEvent(userId, UserAccountChangedEvent.Change.LOGOUT));
+        }
         return ResponseEntity.ok(Map.of("message", "User logged out successfully."));
     }
 }
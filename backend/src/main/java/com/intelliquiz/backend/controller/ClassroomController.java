@@ -1,23 +1,118 @@
 package com.intelliquiz.backend.controller;
 
+import com.intelliquiz.backend.model.Classroom;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.security.services.ClassroomService;
+import com.intelliquiz.backend.security.services.LiveSessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/classroom")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
 public class ClassroomController {
 
+    private final ClassroomService classroomService;
+    private final UserRepository userRepository;
+    private final LiveSessionService liveSessionService;
+
+    // 📋 Classes the caller teaches or belongs to
     @GetMapping("/list")
-    public ResponseEntity<List<Map<String, Object>>> getClassrooms() {
+    public ResponseEntity<?> getClassrooms(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
         List<Map<String, Object>> classrooms = new ArrayList<>();
-        classrooms.add(Map.of("id", 1, "name", "Math 101"));
-        classrooms.add(Map.of("id", 2, "name", "History 201"));
+        for (Classroom c : classroomService.listFor(currentUser(principal))) {
+            classrooms.add(toMap(c));
+        }
         return ResponseEntity.ok(classrooms);
     }
+
+    // 🏫 Create a classroom owned by the calling teacher
+    @PostMapping
+    public ResponseEntity<?> createClassroom(@RequestBody Map<String, Object> request, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        Classroom created = classroomService.create((String) request.get("name"), currentUser(principal));
+        return ResponseEntity.status(HttpStatus.CREATED).body(toMap(created));
+    }
+
+    // 👥 Add students by username: { "usernames": ["alice", "bob"] }
+    @PostMapping("/{id}/members")
+    public ResponseEntity<?> addMembers(@PathVariable Long id,
+                                        @RequestBody Map<String, List<String>> request,
+                                        Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        List<String> usernames = request.getOrDefault("usernames", List.of());
+        return ResponseEntity.ok(classroomService.addMembers(id, usernames, currentUser(principal)));
+    }
+
+    @DeleteMapping("/{id}/members/{userId}")
+    public ResponseEntity<?> removeMember(@PathVariable Long id, @PathVariable Long userId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        classroomService.removeMember(id, userId, currentUser(principal));
+        return ResponseEntity.noContent().build();
+    }
+
+    // 🎬 Open a live quiz for the class: { "topic": "Java", "difficulty": "medium" }
+    // Students then connect to /ws/live?session={sessionId}&token={jwt}
+    @PostMapping("/{id}/live")
+    public ResponseEntity<?> startLiveSession(@PathVariable Long id,
+                                              @RequestBody Map<String, String> request,
+                                              Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(liveSessionService.create(
+                id, request.get("topic"), request.get("difficulty"), currentUser(principal)));
+    }
+
+    // ⏭️ Close the open question (students get its results) and send the next one
+    @PostMapping("/live/{sessionId}/next")
+    public ResponseEntity<?> nextLiveQuestion(@PathVariable String sessionId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        return ResponseEntity.ok(liveSessionService.next(sessionId, currentUser(principal)));
+    }
+
+    // 🏁 End the live quiz and save one attempt per participant
+    @PostMapping("/live/{sessionId}/end")
+    public ResponseEntity<?> endLiveSession(@PathVariable String sessionId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        return ResponseEntity.ok(liveSessionService.end(sessionId, currentUser(principal)));
+    }
+
+    private User currentUser(Principal principal) {
+        return userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+    }
+
+    private static Map<String, Object> toMap(Classroom c) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", c.getId());
+        m.put("name", c.getName());
+        m.put("teacherId", c.getTeacherId());
+        return m;
+    }
 }
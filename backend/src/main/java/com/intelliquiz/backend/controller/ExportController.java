@@ -0,0 +1,58 @@
+package com.intelliquiz.backend.controller;
+
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.security.services.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Slf4j
+@RestController
+@RequestMapping("/analytics/export")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+    private final UserRepository userRepository;
+
+    /**
+     * Streams quiz attempts as CSV (default) or NDJSON.
+     * `classroomId` limits the export to one class (its teacher or an admin); without it only
+     * admins may export. `from` / `to` are inclusive ISO dates.
+     */
+    @GetMapping("/attempts")
+    public void exportAttempts(@RequestParam Optional<Long> classroomId,
+                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                               @RequestParam(defaultValue = "csv") String format,
+                               Principal principal,
+                               HttpServletResponse response) throws IOException {
+        if (principal == null) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Login required");
+            return;
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+        ExportService.Format fmt = ExportService.Format.parse(format);
+        exportService.authorize(classroomId.orElse(null), user);
+
+        log.info("📤 GET /analytics/export/attempts?classroomId={}&format={} by {}",
+                classroomId.orElse(null), fmt, user.getUsername());
+        String name = "attempts" + classroomId.map(id -> "-class-" + id).orElse("") + "." + fmt.extension;
+        response.setContentType(fmt.contentType + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"");
+        exportService.writeAttempts(classroomId.orElse(null), from.orElse(null), to.orElse(null), fmt,
+                response.getOutputStream());
+    }
+}
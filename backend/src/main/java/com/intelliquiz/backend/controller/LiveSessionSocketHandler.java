@@ -0,0 +1,101 @@
+package com.intelliquiz.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intelliquiz.backend.security.services.LiveSessionService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LiveSessionSocketHandler
+ * - One socket per participant (or host) of a live classroom quiz; the caller was authenticated
+ *   during the handshake (see WebSocketConfig)
+ * - Inbound: {"type":"answer","index":0,"option":2}, acknowledged to the sender only
+ * - Outbound room frames (question, progress, results, ended) come from {@link LiveSessionService}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveSessionSocketHandler extends TextWebSocketHandler {
+
+    public static final String USER_ID = "live.userId";
+    public static final String USERNAME = "live.username";
+    public static final String ADMIN = "live.admin";
+    private static final String SESSION_ID = "live.sessionId";
+    private static final String SAFE_SOCKET = "live.socket";
+
+    private final LiveSessionService liveSessionService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession socket) throws Exception {
+        String sessionId = socket.getUri() == null ? null
+                : UriComponentsBuilder.fromUri(socket.getUri()).build().getQueryParams().getFirst("session");
+        if (sessionId == null || sessionId.isBlank()) {
+            socket.close(CloseStatus.BAD_DATA.withReason("session parameter is required"));
+            return;
+        }
+        Map<String, Object> attributes = socket.getAttributes();
+        try {
+            WebSocketSession safe = liveSessionService.join(sessionId, (Long) attributes.get(USER_ID),
+                    (String) attributes.get(USERNAME), Boolean.TRUE.equals(attributes.get(ADMIN)), socket);
+            attributes.put(SESSION_ID, sessionId);
+            attributes.put(SAFE_SOCKET, safe);
+        } catch (EntityNotFoundException | AccessDeniedException e) {
+            socket.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession socket, TextMessage message) throws Exception {
+        String sessionId = (String) socket.getAttributes().get(SESSION_ID);
+        WebSocketSession safe = (WebSocketSession) socket.getAttributes().get(SAFE_SOCKET);
+        if (sessionId == null || safe == null) return;
+
+        Map<?, ?> body;
+        try {
+            body = objectMapper.readValue(message.getPayload(), Map.class);
+        } catch (Exception e) {
+            safe.sendMessage(ack(-1, "INVALID"));
+            return;
+        }
+        if (!"answer".equals(body.get("type"))
+                || !(body.get("index") instanceof Number index) || !(body.get("option") instanceof Number option)) {
+            safe.sendMessage(ack(-1, "INVALID"));
+            return;
+        }
+        String outcome = liveSessionService.answer(sessionId, (Long) socket.getAttributes().get(USER_ID),
+                index.intValue(), option.intValue());
+        safe.sendMessage(ack(index.intValue(), outcome));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession socket, CloseStatus status) {
+        String sessionId = (String) socket.getAttributes().get(SESSION_ID);
+        WebSocketSession safe = (WebSocketSession) socket.getAttributes().get(SAFE_SOCKET);
+        if (sessionId != null && safe != null) liveSessionService.leave(sessionId, safe);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession socket, Throwable exception) {
+        log.debug("📴 Live socket error: {}", exception.getMessage());
+    }
+
+    private TextMessage ack(int index, String outcome) throws Exception {
+        Map<String, Object> ack = new LinkedHashMap<>();
+        ack.put("type", "ack");
+        ack.put("index", index);
+        ack.put("outcome", outcome);
+        return new TextMessage(objectMapper.writeValueAsString(ack));
+    }
+}
@@ -1,10 +1,15 @@
 package com.intelliquiz.backend.controller;
 
+import com.intelliquiz.backend.exception.BadRequestException;
 import com.intelliquiz.backend.model.QuizAttempt;
 import com.intelliquiz.backend.model.User;
 import com.intelliquiz.backend.repository.QuizAttemptRepository;
 import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.security.services.AbilityService;
 import com.intelliquiz.backend.security.services.AnalyticsService;
+import com.intelliquiz.backend.security.services.IdempotencyService;
+import com.intelliquiz.backend.security.services.QuizAttemptService;
+import com.intelliquiz.backend.security.services.ReviewSchedulerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,6 +42,18 @@ public class QuizController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AbilityService abilityService;
+
+    @Autowired
+    private QuizAttemptService quizAttemptService;
+
+    @Autowired
+    private ReviewSchedulerService reviewSchedulerService;
+
     // ------------------ 1️⃣ Dummy Test Endpoint ------------------
     @GetMapping("/test")
     public ResponseEntity<Map<String, Object>> getDummyQuiz() {
@@ -131,12 +148,48 @@ public class QuizController {
     }
 
 
+    // ------------------ 🧠 Recommended difficulty ------------------
+    @GetMapping("/recommendation")
+    public ResponseEntity<?> getRecommendation(
+            @RequestParam(name = "topic", defaultValue = "General") String topic,
+            Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+
+        AbilityService.Estimate estimate = abilityService.estimate(user.getId(), topic);
+        return ResponseEntity.ok(Map.of(
+                "topic", topic,
+                "ability", Math.round(estimate.ability() * 100.0) / 100.0,
+                "attempts", estimate.attempts(),
+                "recommendedDifficulty", estimate.recommendedDifficulty()
+        ));
+    }
+
+    // ------------------ 📅 Topics due for review ------------------
+    @GetMapping("/due")
+    public ResponseEntity<?> getDueReviews(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found: " + principal.getName()));
+
+        return ResponseEntity.ok(reviewSchedulerService.getDue(user.getId()));
+    }
+
     // ------------------ 3️⃣ Submit Quiz ------------------
     @PostMapping("/submit")
     public ResponseEntity<?> submitQuiz(
             @RequestBody Map<String, Object> request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Principal principal) {
 
+        Long claimedBy = null; // set once this request owns the Idempotency-Key
+        boolean recorded = false; // once the attempt is committed a retry must replay, never re-score
+
         try {
             // 1️⃣ Identify the user
             Integer incomingUserId = (Integer) request.get("userId");
@@ -171,6 +224,21 @@ public class QuizController {
                 return ResponseEntity.badRequest().body(Map.of("message", "Answers list cannot be empty"));
             }
 
+            // 2️⃣.5 🔑 Idempotent retries — replay the original response instead of re-scoring
+            if (idempotencyKey != null) {
+                IdempotencyService.Claim claim = idempotencyService.claim(userId, idempotencyKey);
+                if (claim.outcome() == IdempotencyService.Outcome.REPLAY) {
+                    log.info("🔁 Replaying submission for user {} (Idempotency-Key {})", userId, idempotencyKey);
+                    return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(claim.response());
+                }
+                if (claim.outcome() == IdempotencyService.Outcome.IN_FLIGHT) {
+                    log.warn("⏳ Duplicate in-flight submission for user {} (Idempotency-Key {})", userId, idempotencyKey);
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(Map.of("message", "A submission with this Idempotency-Key is still being processed"));
+                }
+                claimedBy = userId;
+            }
+
             // 3️⃣ Compute score (convert to percentage)
             int correctCount = 0;
             for (Map<String, Object> answer : answers) {
@@ -182,22 +250,31 @@ public class QuizController {
             int totalQuestions = answers.size();
             int percentageScore = (int) Math.round((correctCount * 100.0) / totalQuestions);
 
-            // 4️⃣ Adaptive next level (based on percentage)
-            String nextLevel = determineNextLevel(percentageScore, totalQuestions, difficulty);
-
-            log.info("🧠 User {} submitted quiz — Score: {}% ({} of {}) → Next Level: {}",
-                    userId, percentageScore, correctCount, totalQuestions, nextLevel);
-
-            // 5️⃣ Save quiz attempt in DB (percentage-based)
-            QuizAttempt attempt = new QuizAttempt(
-                    currentUser, topic, difficulty, percentageScore, timeTaken
+            // 4️⃣ Save quiz attempt and its per-question answers in DB (one transaction)
+            QuizAttempt attempt = quizAttemptService.recordAttempt(
+                    currentUser, topic, difficulty, percentageScore, timeTaken, correctCount, totalQuestions, answers
             );
-            quizAttemptRepository.save(attempt);
+            recorded = true;
             log.debug("📊 Saved quiz attempt for user {} → Attempt ID: {}", userId, attempt.getId());
 
+            // 5️⃣.1 🧠 Adaptive next level — O(1) online ability update for (user, topic)
+            AbilityService.Estimate estimate;
+            try {
+                estimate = abilityService.record(userId, topic, difficulty, correctCount, totalQuestions);
+            } catch (Exception e) {
+                log.error("⚠️ Error updating ability for user {}: {}", userId, e.getMessage());
+                // The attempt is saved; keep the current level rather than failing the submission
+                estimate = new AbilityService.Estimate(0.0, 0, difficulty);
+            }
+            String nextLevel = estimate.recommendedDifficulty();
+
+            log.info("🧠 User {} submitted quiz — Score: {}% ({} of {}) → Ability: {} → Next Level: {}",
+                    userId, percentageScore, correctCount, totalQuestions,
+                    String.format("%.2f", estimate.ability()), nextLevel);
+
             // 5️⃣.5 🎮 Update Gamification (points & badges)
             try {
-                analyticsService.updateGamification(currentUser, percentageScore);
+                analyticsService.updateGamification(currentUser, percentageScore, topic);
                 log.info("🏅 Gamification updated successfully for user {} | Score: {}%", userId, percentageScore);
             } catch (Exception e) {
                 log.error("⚠️ Error updating gamification for user {}: {}", userId, e.getMessage());
@@ -212,14 +289,29 @@ public class QuizController {
             response.put("correctAnswers", correctCount);
             response.put("totalQuestions", totalQuestions);
             response.put("nextLevel", nextLevel);
+            response.put("ability", Math.round(estimate.ability() * 100.0) / 100.0);
             response.put("difficultyUsed", difficulty);
             response.put("topic", topic);
 
 
+            if (claimedBy != null) {
+                idempotencyService.complete(claimedBy, idempotencyKey, response);
+            }
+
             log.debug("📊 Response prepared for user {}: {}", userId, response);
             return ResponseEntity.ok(response);
 
+        } catch (BadRequestException e) {
+            if (claimedBy != null && !recorded) {
+                idempotencyService.release(claimedBy, idempotencyKey);
+            }
+            log.warn("⚠️ Invalid quiz submission: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
+            // Only free the key while nothing was committed; afterwards a retry would score the quiz twice
+            if (claimedBy != null && !recorded) {
+                idempotencyService.release(claimedBy, idempotencyKey);
+            }
             log.error("❌ Quiz submission failed: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("message", "Error while processing quiz submission"));
@@ -228,13 +320,6 @@ public class QuizController {
 
     // ------------------ Helper Methods ------------------
 
-    private String determineNextLevel(int correct, int total, String current) {
-        double accuracy = (correct * 100.0) / total;
-        if (accuracy >= 80 && !"hard".equalsIgnoreCase(current)) return "hard";
-        if (accuracy <= 50 && !"easy".equalsIgnoreCase(current)) return "easy";
-        return "medium";
-    }
-
     private List<Map<String, Object>> generateMockQuestions(String topic, String difficulty) {
         List<Map<String, Object>> questions = new ArrayList<>();
 
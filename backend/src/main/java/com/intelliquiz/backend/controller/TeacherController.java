@@ -1,25 +1,43 @@
 package com.intelliquiz.backend.controller;
 
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.security.services.CounterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.Principal;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/teacher")
 @CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
 public class TeacherController {
 
+    private final CounterService counterService;
+    private final UserRepository userRepository;
+
+    // 📊 Live counters for the calling teacher (no COUNT queries)
     @GetMapping("/dashboard")
-    public ResponseEntity<Map<String, Object>> getTeacherDashboard() {
+    public ResponseEntity<?> getTeacherDashboard(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Login required"));
+        }
+        User teacher = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
         Map<String, Object> data = new HashMap<>();
-        data.put("message", "Welcome Teacher! Mock dashboard ready.");
-        data.put("resourcesCount", 4);
-        data.put("classesCount", 2);
+        data.put("message", "Welcome " + teacher.getUsername() + "!");
+        data.put("resourcesCount", counterService.forUser(teacher.getId(), "resources"));
+        data.put("classesCount", counterService.forUser(teacher.getId(), "classes"));
+        data.put("studentsCount", counterService.forUser(teacher.getId(), "students"));
         return ResponseEntity.ok(data);
     }
 }
@@ -0,0 +1,11 @@
+package com.intelliquiz.backend.event;
+
+/**
+ * Published by PointsLedgerService whenever a user's points total changes.
+ * {@code total} is the value returned by the database after the increment.
+ */
+public record PointsChangedEvent(
+        Long userId,
+        int delta,
+        int total
+) {}
@@ -0,0 +1,19 @@
+package com.intelliquiz.backend.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the transaction that saves a {@code QuizAttempt}.
+ * Listeners that maintain derived state subscribe to this instead of being called from the controller.
+ */
+public record QuizSubmittedEvent(
+        Long userId,
+        Long attemptId,
+        String topic,
+        String difficulty,
+        int score,
+        int correctAnswers,
+        int totalQuestions,
+        int timeTaken,
+        LocalDateTime createdAt
+) {}
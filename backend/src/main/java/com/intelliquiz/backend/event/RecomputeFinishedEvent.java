@@ -0,0 +1,10 @@
+package com.intelliquiz.backend.event;
+
+/**
+ * Published by RecomputeJobService once every chunk of a recompute has committed.
+ * Points, badges and rollups were rewritten in bulk, so in-memory views should reload.
+ */
+public record RecomputeFinishedEvent(
+        Long jobId,
+        long users
+) {}
@@ -0,0 +1,13 @@
+package com.intelliquiz.backend.event;
+
+/**
+ * Published whenever something an access token or a cached {@code UserDetails} depends on changes.
+ * ROLES makes tokens issued earlier resolve their principal from the user store again;
+ * the other kinds reject tokens issued earlier outright.
+ */
+public record UserAccountChangedEvent(
+        Long userId,
+        Change change
+) {
+    public enum Change { ROLES, PASSWORD, LOGOUT, DELETED }
+}
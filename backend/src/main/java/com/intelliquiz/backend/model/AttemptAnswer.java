@@ -0,0 +1,78 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One answered question inside a {@link QuizAttempt}.
+ * Rows are written in bulk by AttemptAnswerService, never one INSERT per question.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "attempt_answers")
+@IdClass(AttemptAnswer.Key.class)
+public class AttemptAnswer {
+
+    public static final int MAX_ANSWER_LENGTH = 500;
+
+    @Id
+    @Column(name = "attempt_id", nullable = false)
+    private Long attemptId;
+
+    @Id
+    @Column(name = "question_id", nullable = false)
+    private int questionId;
+
+    // Text of the chosen option (null when the question was skipped); option order is shuffled
+    // per request, so a position would not mean the same thing for two students
+    @Column(name = "chosen_answer", length = AttemptAnswer.MAX_ANSWER_LENGTH)
+    private String chosenAnswer;
+
+    @Column(nullable = false)
+    private boolean correct;
+
+    // Seconds spent on the question (null when the client does not track it)
+    @Column(name = "time_taken")
+    private Integer timeTaken;
+
+    public AttemptAnswer() {}
+
+    public AttemptAnswer(Long attemptId, int questionId, String chosenAnswer, boolean correct, Integer timeTaken) {
+        this.attemptId = attemptId;
+        this.questionId = questionId;
+        this.chosenAnswer = chosenAnswer;
+        this.correct = correct;
+        this.timeTaken = timeTaken;
+    }
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long attemptId;
+        private int questionId;
+
+        public Key() {}
+
+        public Key(Long attemptId, int questionId) {
+            this.attemptId = attemptId;
+            this.questionId = questionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return questionId == k.questionId && Objects.equals(attemptId, k.attemptId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(attemptId, questionId);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Badge catalog entry. Each badge owns one bit of {@code users.badge_mask},
+ * so holding a badge is a bit test rather than a string search.
+ */
+@Entity
+@Table(name = "badges")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Badge {
+
+    public static final int MAX_BADGES = 64;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Bit position in users.badge_mask (0..63)
+    @Column(nullable = false, unique = true)
+    private int bit;
+
+    @Column(length = 50, unique = true, nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30, nullable = false)
+    private EBadgeRule ruleType;
+
+    @Column(nullable = false)
+    private int threshold;
+
+    // TOPIC_MASTERY only: null matches any topic
+    @Column(length = 255)
+    private String topic;
+
+    // TOPIC_MASTERY only: attempts required before accuracy counts
+    @Builder.Default
+    @Column(nullable = false)
+    private int minAttempts = 0;
+}
@@ -0,0 +1,36 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Entity
+@Table(name = "classrooms", indexes = {
+        @Index(name = "idx_classrooms_teacher", columnList = "teacher_id")
+})
+public class Classroom {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 120)
+    private String name;
+
+    @Column(name = "teacher_id", nullable = false)
+    private Long teacherId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public Classroom() {}
+
+    public Classroom(String name, Long teacherId) {
+        this.name = name;
+        this.teacherId = teacherId;
+    }
+}
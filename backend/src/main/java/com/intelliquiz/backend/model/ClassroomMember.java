@@ -0,0 +1,62 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Student membership in a classroom. The (user_id) index serves the per-submission lookup
+ * of which classes an attempt counts towards.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "classroom_members", indexes = {
+        @Index(name = "idx_classroom_members_user", columnList = "user_id")
+})
+@IdClass(ClassroomMember.Key.class)
+public class ClassroomMember {
+
+    @Id
+    @Column(name = "classroom_id", nullable = false)
+    private Long classroomId;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "joined_at", nullable = false)
+    private LocalDateTime joinedAt = LocalDateTime.now();
+
+    public ClassroomMember() {}
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long classroomId;
+        private Long userId;
+
+        public Key() {}
+
+        public Key(Long classroomId, Long userId) {
+            this.classroomId = classroomId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(classroomId, k.classroomId) && Objects.equals(userId, k.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(classroomId, userId);
+        }
+    }
+}
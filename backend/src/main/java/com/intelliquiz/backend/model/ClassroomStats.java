@@ -0,0 +1,49 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running aggregate over every attempt by the classroom's current members.
+ * histogram[i] counts scores in [10i, 10i + 10), with 100 folded into the last bucket;
+ * recentScores packs the class's last N scores one byte each, oldest first.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "classroom_stats")
+public class ClassroomStats {
+
+    public static final int BUCKETS = 10;
+
+    @Id
+    @Column(name = "classroom_id")
+    private Long classroomId;
+
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "histogram", nullable = false)
+    private int[] histogram;
+
+    @Column(name = "recent_scores", nullable = false)
+    private byte[] recentScores;
+
+    @Column(name = "last_attempt_at")
+    private LocalDateTime lastAttemptAt;
+
+    public ClassroomStats() {}
+
+    public double average() {
+        return attemptCount == 0 ? 0.0 : (double) scoreSum / attemptCount;
+    }
+}
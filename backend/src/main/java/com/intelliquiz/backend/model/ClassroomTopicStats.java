@@ -0,0 +1,65 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Running per-(classroom, topic) score aggregate; drives the class's weakest topics.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "classroom_topic_stats")
+@IdClass(ClassroomTopicStats.Key.class)
+public class ClassroomTopicStats {
+
+    @Id
+    @Column(name = "classroom_id")
+    private Long classroomId;
+
+    @Id
+    @Column(name = "topic_id")
+    private Integer topicId;
+
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    public ClassroomTopicStats() {}
+
+    public double average() {
+        return attemptCount == 0 ? 0.0 : (double) scoreSum / attemptCount;
+    }
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long classroomId;
+        private Integer topicId;
+
+        public Key() {}
+
+        public Key(Long classroomId, Integer topicId) {
+            this.classroomId = classroomId;
+            this.topicId = topicId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(classroomId, k.classroomId) && Objects.equals(topicId, k.topicId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(classroomId, topicId);
+        }
+    }
+}
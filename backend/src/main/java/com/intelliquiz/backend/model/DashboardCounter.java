@@ -0,0 +1,30 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last checkpointed value of one dashboard counter (e.g. "users.total", "user.12.resources").
+ * The live value is held in memory by CounterService.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "dashboard_counters")
+public class DashboardCounter {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private long value;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public DashboardCounter() {}
+}
@@ -0,0 +1,7 @@
+package com.intelliquiz.backend.model;
+
+public enum EBadgeRule {
+    POINTS_AT_LEAST,   // threshold = total points
+    STREAK_AT_LEAST,   // threshold = consecutive passing quizzes
+    TOPIC_MASTERY      // threshold = topic accuracy %, with minAttempts
+}
@@ -9,7 +9,12 @@ import java.time.LocalDateTime;
 @Setter
 @Getter
 @Entity
-@Table(name = "quiz_attempts")
+@Table(name = "quiz_attempts", indexes = {
+        // "attempts today" / time-range scans
+        @Index(name = "idx_quiz_attempts_created_at", columnList = "created_at"),
+        // per-user history in time order (recent scores, chunked recompute)
+        @Index(name = "idx_quiz_attempts_user_created", columnList = "user_id, created_at")
+})
 public class QuizAttempt {
 
     // ==============================
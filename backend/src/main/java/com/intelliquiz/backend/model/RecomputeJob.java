@@ -0,0 +1,55 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One run of the points / badges / rollups recompute.
+ * {@code lastUserId} is the checkpoint: every user with a smaller or equal id is done,
+ * so an interrupted run resumes right after it.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "recompute_jobs")
+public class RecomputeJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Column(name = "users_total", nullable = false)
+    private long usersTotal;
+
+    @Column(name = "users_done", nullable = false)
+    private long usersDone;
+
+    @Column(name = "chunks_done", nullable = false)
+    private int chunksDone;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(length = 500)
+    private String error;
+
+    public RecomputeJob() {}
+}
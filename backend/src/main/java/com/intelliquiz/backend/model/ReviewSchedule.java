@@ -0,0 +1,69 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Spaced-repetition state (SM-2 style) for one user on one topic.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "review_schedule",
+        indexes = @Index(name = "idx_review_schedule_due_at", columnList = "due_at"))
+@IdClass(ReviewSchedule.Key.class)
+public class ReviewSchedule {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "topic_id", nullable = false)
+    private Integer topicId;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    @Column(name = "interval_days", nullable = false)
+    private short intervalDays;
+
+    @Column(nullable = false)
+    private float ease;
+
+    @Column(nullable = false)
+    private short repetitions;
+
+    public ReviewSchedule() {}
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer topicId;
+
+        public Key() {}
+
+        public Key(Long userId, Integer topicId) {
+            this.userId = userId;
+            this.topicId = topicId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(topicId, k.topicId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, topicId);
+        }
+    }
+}
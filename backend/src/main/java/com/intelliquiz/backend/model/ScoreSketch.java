@@ -0,0 +1,87 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Score distribution of one (scope, topic, week): how many attempts scored 0, 1, ... 100.
+ * Sketches for several topics or weeks merge by adding counts, so any window is answered
+ * by summing a handful of rows. {@code counts} is the compact varint encoding of ScoreHistogram.
+ *
+ * scope 0 = all students (scope_id 0), scope 1 = one classroom (scope_id = classroom id).
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "score_sketches")
+@IdClass(ScoreSketch.Key.class)
+public class ScoreSketch {
+
+    public static final short SCOPE_TOPIC = 0;
+    public static final short SCOPE_CLASSROOM = 1;
+
+    @Id
+    @Column(nullable = false)
+    private short scope;
+
+    @Id
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    @Id
+    @Column(name = "topic_id", nullable = false)
+    private Integer topicId;
+
+    // Monday of the week the attempts were made in
+    @Id
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+
+    @Column(name = "attempt_count", nullable = false)
+    private long attemptCount;
+
+    @Column(nullable = false)
+    private byte[] counts;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ScoreSketch() {}
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private short scope;
+        private Long scopeId;
+        private Integer topicId;
+        private LocalDate weekStart;
+
+        public Key() {}
+
+        public Key(short scope, Long scopeId, Integer topicId, LocalDate weekStart) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+            this.topicId = topicId;
+            this.weekStart = weekStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return scope == k.scope && Objects.equals(scopeId, k.scopeId)
+                    && Objects.equals(topicId, k.topicId) && Objects.equals(weekStart, k.weekStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, scopeId, topicId, weekStart);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Topic dictionary: maps a normalized topic name to a small integer id,
+ * so per-topic structures can be keyed by primitives instead of strings.
+ */
+@Entity
+@Table(name = "topics")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Topic {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // lower-cased, trimmed
+    @Column(length = 255, unique = true, nullable = false)
+    private String name;
+
+    // spelling as first submitted, for display
+    @Column(length = 255)
+    private String label;
+}
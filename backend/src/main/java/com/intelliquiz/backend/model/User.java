@@ -13,7 +13,10 @@ import java.util.Set;
 @Setter
 @Getter
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Leaderboard keyset paging: (points DESC, id)
+        @Index(name = "idx_users_points_id", columnList = "points DESC, id")
+})
 @JsonIgnoreProperties({"password", "quizAttempts", "roles"})
 public class User {
 
@@ -47,8 +50,8 @@ public class User {
     @Column(nullable = false)
     private int points = 0; // Total points earned
 
-    @Column(length = 1000)
-    private String badges = ""; // Comma-separated badge titles
+    @Column(name = "badge_mask", nullable = false, columnDefinition = "bigint default 0")
+    private long badgeMask = 0L; // One bit per Badge.bit in the badge catalog
 
     // ==============================
     // 📊 Relationship with QuizAttempts
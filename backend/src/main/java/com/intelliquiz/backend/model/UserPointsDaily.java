@@ -0,0 +1,60 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Points earned by one user on one calendar day.
+ * Backs the daily / weekly / monthly leaderboards; rows older than the longest window are purged.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "user_points_daily")
+@IdClass(UserPointsDaily.Key.class)
+public class UserPointsDaily {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private int points;
+
+    public UserPointsDaily() {}
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate day;
+
+        public Key() {}
+
+        public Key(Long userId, LocalDate day) {
+            this.userId = userId;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(day, k.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, day);
+        }
+    }
+}
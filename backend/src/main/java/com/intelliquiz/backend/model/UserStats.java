@@ -0,0 +1,42 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running per-user score aggregate, maintained on every submission by StatsRollupService.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    @Column(name = "score_min", nullable = false)
+    private short scoreMin;
+
+    @Column(name = "score_max", nullable = false)
+    private short scoreMax;
+
+    @Column(name = "last_attempt_at")
+    private LocalDateTime lastAttemptAt;
+
+    public UserStats() {}
+
+    public double average() {
+        return attemptCount == 0 ? 0.0 : (double) scoreSum / attemptCount;
+    }
+}
@@ -0,0 +1,62 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Persisted ability estimate (logit scale) for one user on one topic.
+ * The live copy is held in memory by AbilityService; this row is its backing store.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "user_topic_ability")
+@IdClass(UserTopicAbility.Key.class)
+public class UserTopicAbility {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "topic_id", nullable = false)
+    private Integer topicId;
+
+    @Column(nullable = false)
+    private float rating;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    public UserTopicAbility() {}
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer topicId;
+
+        public Key() {}
+
+        public Key(Long userId, Integer topicId) {
+            this.userId = userId;
+            this.topicId = topicId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(topicId, k.topicId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, topicId);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Running per-(user, topic) score aggregate, same layout as {@link UserStats}.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "user_topic_stats")
+@IdClass(UserTopicStats.Key.class)
+public class UserTopicStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "topic_id")
+    private Integer topicId;
+
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    @Column(name = "score_min", nullable = false)
+    private short scoreMin;
+
+    @Column(name = "score_max", nullable = false)
+    private short scoreMax;
+
+    @Column(name = "last_attempt_at")
+    private LocalDateTime lastAttemptAt;
+
+    public UserTopicStats() {}
+
+    public double average() {
+        return attemptCount == 0 ? 0.0 : (double) scoreSum / attemptCount;
+    }
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer topicId;
+
+        public Key() {}
+
+        public Key(Long userId, Integer topicId) {
+            this.userId = userId;
+            this.topicId = topicId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(topicId, k.topicId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, topicId);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.intelliquiz.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Per-(user, topic, week) score aggregate, weeks starting on Monday; topic_id 0 covers all topics.
+ * Backs the downsampled progress charts; maintained by ProgressRollupService.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "user_weekly_stats")
+@IdClass(UserWeeklyStats.Key.class)
+public class UserWeeklyStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "topic_id")
+    private Integer topicId;
+
+    @Id
+    @Column(name = "week_start")
+    private LocalDate weekStart;
+
+    @Column(name = "attempt_count", nullable = false)
+    private int attemptCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    @Column(name = "score_min", nullable = false)
+    private short scoreMin;
+
+    @Column(name = "score_max", nullable = false)
+    private short scoreMax;
+
+    public UserWeeklyStats() {}
+
+    @Getter
+    @Setter
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer topicId;
+        private LocalDate weekStart;
+
+        public Key() {}
+
+        public Key(Long userId, Integer topicId, LocalDate weekStart) {
+            this.userId = userId;
+            this.topicId = topicId;
+            this.weekStart = weekStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(topicId, k.topicId)
+                    && Objects.equals(weekStart, k.weekStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, topicId, weekStart);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.AttemptAnswer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttemptAnswerRepository extends JpaRepository<AttemptAnswer, AttemptAnswer.Key> {
+
+    List<AttemptAnswer> findByAttemptIdOrderByQuestionIdAsc(Long attemptId);
+
+}
@@ -0,0 +1,13 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.Badge;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BadgeRepository extends JpaRepository<Badge, Long> {
+    Optional<Badge> findByName(String name);
+
+    List<Badge> findAllByOrderByBitAsc();
+}
@@ -0,0 +1,39 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.ClassroomMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ClassroomMemberRepository extends JpaRepository<ClassroomMember, ClassroomMember.Key> {
+
+    long countByClassroomId(Long classroomId);
+
+    @Query("SELECT m.classroomId FROM ClassroomMember m WHERE m.userId = :userId")
+    List<Long> findClassroomIds(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO classroom_members (classroom_id, user_id, joined_at) VALUES (:classroomId, :userId, now()) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("classroomId") Long classroomId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ClassroomMember m WHERE m.classroomId = :classroomId AND m.userId = :userId")
+    int deleteMember(@Param("classroomId") Long classroomId, @Param("userId") Long userId);
+
+    // 🔥 Most active members from the per-user rollups: [userId, username, attemptCount, scoreSum]
+    @Query(value = "SELECT u.id, u.username, COALESCE(s.attempt_count, 0), COALESCE(s.score_sum, 0) " +
+            "FROM classroom_members m JOIN users u ON u.id = m.user_id " +
+            "LEFT JOIN user_stats s ON s.user_id = m.user_id " +
+            "WHERE m.classroom_id = :classroomId " +
+            "ORDER BY COALESCE(s.attempt_count, 0) DESC, u.id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findMostActive(@Param("classroomId") Long classroomId, @Param("limit") int limit);
+}
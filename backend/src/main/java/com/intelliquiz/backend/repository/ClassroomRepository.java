@@ -0,0 +1,19 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.Classroom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
+
+    List<Classroom> findByTeacherIdOrderByNameAsc(Long teacherId);
+
+    @Query("SELECT c FROM Classroom c WHERE c.id IN " +
+            "(SELECT m.classroomId FROM ClassroomMember m WHERE m.userId = :userId) ORDER BY c.name")
+    List<Classroom> findByMember(@Param("userId") Long userId);
+}
@@ -0,0 +1,9 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.ClassroomStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClassroomStatsRepository extends JpaRepository<ClassroomStats, Long> {
+}
@@ -0,0 +1,22 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.ClassroomTopicStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ClassroomTopicStatsRepository extends JpaRepository<ClassroomTopicStats, ClassroomTopicStats.Key> {
+
+    List<ClassroomTopicStats> findByClassroomId(Long classroomId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ClassroomTopicStats t WHERE t.classroomId = :classroomId")
+    int deleteByClassroom(@Param("classroomId") Long classroomId);
+}
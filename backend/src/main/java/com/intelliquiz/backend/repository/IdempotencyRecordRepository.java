@@ -0,0 +1,40 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // 🔑 Claim a key — returns 0 when another request already owns it. A claim still without a
+    // response at leaseCutoff (its request died) or any row past expiredBefore is taken over.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (id, user_id, created_at) VALUES (:id, :userId, :now) " +
+            "ON CONFLICT (id) DO UPDATE SET created_at = EXCLUDED.created_at, response = NULL " +
+            "WHERE (idempotency_keys.response IS NULL AND idempotency_keys.created_at < :leaseCutoff) " +
+            "OR idempotency_keys.created_at < :expiredBefore", nativeQuery = true)
+    int claim(@Param("id") String id, @Param("userId") Long userId, @Param("now") LocalDateTime now,
+              @Param("leaseCutoff") LocalDateTime leaseCutoff, @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("response") String response);
+
+    @Query("SELECT r.id FROM IdempotencyRecord r WHERE r.createdAt > :since")
+    List<String> findIdsCreatedAfter(@Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
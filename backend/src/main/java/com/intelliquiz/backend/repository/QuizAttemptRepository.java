@@ -2,6 +2,7 @@ package com.intelliquiz.backend.repository;
 
 import com.intelliquiz.backend.model.QuizAttempt;
 import com.intelliquiz.backend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,18 +23,23 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long>
     @Query("SELECT AVG(q.score) FROM QuizAttempt q WHERE q.user.id = :userId")
     Double findAverageScore(@Param("userId") Long userId);
 
-    // 📈 Fetch last five scores (for performance trend)
-    @Query("SELECT q.score FROM QuizAttempt q WHERE q.user.id = :userId ORDER BY q.createdAt DESC")
-    List<Integer> findLastFiveScores(@Param("userId") Long userId);
-
-    @Query("SELECT q.score FROM QuizAttempt q WHERE q.user.id = :userId ORDER BY q.createdAt DESC")
-    List<Integer> findLastScoresByUser(@Param("userId") Long userId);
-
     List<QuizAttempt> findByUserId(Long userId);
 
     @Query("SELECT qa.topic, AVG(qa.score), COUNT(qa) FROM QuizAttempt qa WHERE qa.user.id = :userId GROUP BY qa.topic")
     List<Object[]> findTopicAveragesByUser(@Param("userId") Long userId);
 
+    // 🔥 Bounded recent scores (newest first) — streaks longer than the trend rings
+    @Query("SELECT q.score FROM QuizAttempt q WHERE q.user.id = :userId ORDER BY q.createdAt DESC")
+    List<Integer> findRecentScores(@Param("userId") Long userId, Pageable pageable);
+
+    // 🔥 Bounded recent [id, score] pairs (newest first) — warms the trend ring buffers
+    @Query("SELECT q.id, q.score FROM QuizAttempt q WHERE q.user.id = :userId ORDER BY q.createdAt DESC, q.id DESC")
+    List<Object[]> findRecentIdsAndScores(@Param("userId") Long userId, Pageable pageable);
+
+    // 🎯 Accuracy and attempt count for a single topic (normalized name) — used for mastery badges
+    @Query("SELECT AVG(qa.score), COUNT(qa) FROM QuizAttempt qa WHERE qa.user.id = :userId " +
+            "AND COALESCE(NULLIF(LOWER(TRIM(qa.topic)), ''), 'general') = :topic")
+    List<Object[]> findTopicStats(@Param("userId") Long userId, @Param("topic") String topic);
 
 
 }
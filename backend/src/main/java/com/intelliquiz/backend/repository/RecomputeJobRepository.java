@@ -0,0 +1,38 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.RecomputeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RecomputeJobRepository extends JpaRepository<RecomputeJob, Long> {
+
+    Optional<RecomputeJob> findFirstByOrderByIdDesc();
+
+    // 💾 Advance the resume point after a contiguous run of chunks has committed
+    @Transactional
+    @Modifying
+    @Query("UPDATE RecomputeJob j SET j.lastUserId = :lastUserId, j.usersDone = :usersDone, " +
+            "j.chunksDone = :chunksDone, j.updatedAt = :at WHERE j.id = :id")
+    int checkpoint(@Param("id") Long id,
+                   @Param("lastUserId") long lastUserId,
+                   @Param("usersDone") long usersDone,
+                   @Param("chunksDone") int chunksDone,
+                   @Param("at") LocalDateTime at);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RecomputeJob j SET j.status = :status, j.error = :error, j.updatedAt = :at, " +
+            "j.finishedAt = :at WHERE j.id = :id")
+    int finish(@Param("id") Long id,
+               @Param("status") RecomputeJob.Status status,
+               @Param("error") String error,
+               @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,37 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.ReviewSchedule;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReviewScheduleRepository extends JpaRepository<ReviewSchedule, ReviewSchedule.Key> {
+
+    // 🌱 Starting state for a first review, so there is always a row to lock
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO review_schedule (user_id, topic_id, due_at, interval_days, ease, repetitions) " +
+            "VALUES (:userId, :topicId, :dueAt, 0, :ease, 0) ON CONFLICT (user_id, topic_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("topicId") int topicId,
+                       @Param("dueAt") LocalDateTime dueAt, @Param("ease") float ease);
+
+    // 🔒 SELECT ... FOR UPDATE: concurrent submissions for the same (user, topic) apply SM-2 in turn
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReviewSchedule r WHERE r.userId = :userId AND r.topicId = :topicId")
+    Optional<ReviewSchedule> findForUpdate(@Param("userId") Long userId, @Param("topicId") Integer topicId);
+
+    // ⏰ Compact projection for warming the in-memory queue: [userId, topicId, dueAt]
+    @Query("SELECT r.userId, r.topicId, r.dueAt FROM ReviewSchedule r")
+    List<Object[]> findAllDueTimes();
+}
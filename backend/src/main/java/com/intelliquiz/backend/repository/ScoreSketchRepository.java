@@ -0,0 +1,9 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.ScoreSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScoreSketchRepository extends JpaRepository<ScoreSketch, ScoreSketch.Key> {
+}
@@ -0,0 +1,21 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.Topic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface TopicRepository extends JpaRepository<Topic, Integer> {
+    Optional<Topic> findByName(String name);
+
+    // Commits on its own: TopicRegistry caches the id, which must survive a rollback of the caller
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO topics (name, label) VALUES (:name, :label) ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("label") String label);
+}
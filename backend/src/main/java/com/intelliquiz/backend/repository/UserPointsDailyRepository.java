@@ -0,0 +1,32 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.UserPointsDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserPointsDailyRepository extends JpaRepository<UserPointsDaily, UserPointsDaily.Key> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO user_points_daily (user_id, day, points) VALUES (:userId, :day, :delta) " +
+            "ON CONFLICT (user_id, day) DO UPDATE SET points = user_points_daily.points + EXCLUDED.points",
+            nativeQuery = true)
+    int addPoints(@Param("userId") Long userId, @Param("day") LocalDate day, @Param("delta") int delta);
+
+    // 📅 Compact projection for warming the windowed leaderboards: [userId, day, points]
+    @Query("SELECT d.userId, d.day, d.points FROM UserPointsDaily d WHERE d.day >= :since")
+    List<Object[]> findSince(@Param("since") LocalDate since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserPointsDaily d WHERE d.day < :before")
+    int deleteBefore(@Param("before") LocalDate before);
+}
@@ -3,10 +3,13 @@ package com.intelliquiz.backend.repository;
 import com.intelliquiz.backend.model.User;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,9 +26,29 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u ORDER BY u.points DESC")
     List<User> findTopUsers(Pageable pageable);
 
-    // 🧠 Role-based leaderboard (optional)
-    @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName ORDER BY u.points DESC")
-    List<User> findTopByRoleName(@Param("roleName") String roleName, Pageable pageable);
+    // 🏆 Lightweight projections for the in-memory leaderboard (no entity / role hydration)
+    @Query(value = "SELECT id, points FROM users", nativeQuery = true)
+    List<Object[]> findAllPoints();
+
+    @Query(value = "SELECT id, username, badge_mask FROM users WHERE id IN (:ids)", nativeQuery = true)
+    List<Object[]> findLeaderboardProfiles(@Param("ids") Collection<Long> ids);
+
+    // 🧠 Role-scoped leaderboard page — keyset on (points DESC, id) walking idx_users_points_id, no OFFSET
+    @Query(value = "SELECT u.id, u.username, u.points, u.badge_mask FROM users u " +
+            "WHERE (u.points < :points OR (u.points = :points AND u.id > :afterId)) " +
+            "AND EXISTS (SELECT 1 FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+            "            WHERE ur.user_id = u.id AND r.name = :roleName) " +
+            "ORDER BY u.points DESC, u.id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findRolePageAfter(@Param("roleName") String roleName, @Param("points") int points,
+                                     @Param("afterId") long afterId, @Param("limit") int limit);
+
+    // 🏫 Classroom-scoped leaderboard page — same keyset, restricted to the class's members
+    @Query(value = "SELECT u.id, u.username, u.points, u.badge_mask FROM users u " +
+            "JOIN classroom_members m ON m.user_id = u.id AND m.classroom_id = :classroomId " +
+            "WHERE (u.points < :points OR (u.points = :points AND u.id > :afterId)) " +
+            "ORDER BY u.points DESC, u.id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findClassroomPageAfter(@Param("classroomId") Long classroomId, @Param("points") int points,
+                                          @Param("afterId") long afterId, @Param("limit") int limit);
 
     // 👨‍🏫 Fetch all teachers (role-based view)
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = 'ROLE_TEACHER'")
@@ -38,4 +61,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // 🏅 Legacy method (still safe to keep if used elsewhere)
     @Query("SELECT u FROM User u ORDER BY u.points DESC")
     List<User> findTopPerformers(); // kept for backward compatibility
+
+    // 💰 Atomic points accrual — single row lock, returns the new total (null if user is missing)
+    @Transactional
+    @Query(value = "UPDATE users SET points = points + :delta WHERE id = :userId RETURNING points", nativeQuery = true)
+    Integer addPoints(@Param("userId") Long userId, @Param("delta") int delta);
+
+    // 🏅 Narrow badge write — atomically ORs newly earned bits into the mask
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET badge_mask = badge_mask | :bits WHERE id = :userId", nativeQuery = true)
+    int grantBadges(@Param("userId") Long userId, @Param("bits") long bits);
 }
@@ -0,0 +1,25 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.UserTopicAbility;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UserTopicAbilityRepository extends JpaRepository<UserTopicAbility, UserTopicAbility.Key> {
+
+    // 🧠 Writes are computed outside any row lock, so a slower writer carrying an older estimate
+    // (fewer attempts) must not overwrite a newer one
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO user_topic_ability (user_id, topic_id, rating, attempts) " +
+            "VALUES (:userId, :topicId, :rating, :attempts) " +
+            "ON CONFLICT (user_id, topic_id) DO UPDATE SET rating = EXCLUDED.rating, attempts = EXCLUDED.attempts " +
+            "WHERE user_topic_ability.attempts < EXCLUDED.attempts",
+            nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("topicId") int topicId,
+               @Param("rating") float rating, @Param("attempts") int attempts);
+}
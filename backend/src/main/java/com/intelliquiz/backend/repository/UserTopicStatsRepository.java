@@ -0,0 +1,13 @@
+package com.intelliquiz.backend.repository;
+
+import com.intelliquiz.backend.model.UserTopicStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserTopicStatsRepository extends JpaRepository<UserTopicStats, UserTopicStats.Key> {
+
+    List<UserTopicStats> findByUserId(Long userId);
+}
@@ -3,9 +3,11 @@ package com.intelliquiz.backend.security;
 import com.intelliquiz.backend.security.jwt.AuthTokenFilter;
 import com.intelliquiz.backend.security.jwt.JwtUtils;
 import com.intelliquiz.backend.security.services.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -56,6 +58,10 @@ public class WebSecurityConfig {
                         // Public endpoints
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/error", "/actuator/**").permitAll()
+                        // Re-dispatch of an already authorized async response (SSE streams)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Live quiz sockets authenticate the ?token= during the handshake
+                        .requestMatchers("/ws/**").permitAll()
 
                         // Quiz endpoints → any authenticated user
                         .requestMatchers("/quiz/**").hasAnyRole("STUDENT", "TEACHER", "ADMIN")
@@ -66,6 +72,13 @@ public class WebSecurityConfig {
                         // Classroom analytics → teachers & admins only
                         .requestMatchers("/analytics/classroom/**").hasAnyRole("TEACHER", "ADMIN")
 
+                        // Attempt exports → teachers & admins only
+                        .requestMatchers("/analytics/export/**").hasAnyRole("TEACHER", "ADMIN")
+
+                        // Classroom management → teachers & admins; listing → any authenticated user
+                        .requestMatchers(HttpMethod.POST, "/classroom/**").hasAnyRole("TEACHER", "ADMIN")
+                        .requestMatchers(HttpMethod.DELETE, "/classroom/**").hasAnyRole("TEACHER", "ADMIN")
+
                         // Role-specific endpoints
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/teacher/**").hasRole("TEACHER")
@@ -86,7 +99,8 @@ public class WebSecurityConfig {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOriginPatterns(List.of("http://localhost:5173")); // 🔒 Replace with prod domain
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With"));
+        config.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With", "Idempotency-Key"));
+        config.setExposedHeaders(List.of("Idempotent-Replayed"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -4,13 +4,17 @@ import com.intelliquiz.backend.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 @Component
 public class JwtUtils {
@@ -21,30 +25,43 @@ public class JwtUtils {
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    // Claims carried next to the subject so a request can be authenticated without a user lookup
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+
     private Key key;
+    // Immutable and thread-safe: built once instead of per call
+    private JwtParser parser;
+
     @PostConstruct
     protected void init(){
         this.key= Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generateJwtToken(Authentication authentication){
-        UserDetailsImpl userPrincipal = (UserDetailsImpl)authentication.getPrincipal();
+        return generateToken((UserDetailsImpl) authentication.getPrincipal());
+    }
 
-        return Jwts.builder().setSubject((userPrincipal.getUsername()))
+    /** Access token with the user id and role names as claims (see {@link #principalOf}). */
+    public String generateToken(UserDetailsImpl user) {
+        List<String> roles = user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        return Jwts.builder().setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(key,SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token){
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
-    public boolean validateJwtToken(String authToken){
-        try{
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+    /**
+     * Verifies the signature and expiry once and returns the claims, or null when the token is
+     * not valid.
+     */
+    public Claims parseClaims(String authToken) {
+        try {
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             System.err.println("🔒 JWT expired: " + e.getMessage());
         } catch (UnsupportedJwtException e) {
@@ -56,15 +73,31 @@ public class JwtUtils {
         } catch (IllegalArgumentException e) {
             System.err.println("🔒 JWT claims string is empty: " + e.getMessage());
         }
-        return false;
+        return null;
     }
-    public String generateTokenFromUsername(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key, SignatureAlgorithm.HS512)
-                .compact();
+
+    /**
+     * Principal rebuilt from the token alone (no email or password), or null for tokens issued
+     * without the id / roles claims, which callers resolve through the user store instead.
+     */
+    public UserDetailsImpl principalOf(Claims claims) {
+        Object id = claims.get(USER_ID_CLAIM);
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(id instanceof Number userId) || !(roles instanceof Collection<?> names) || claims.getSubject() == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = names.stream()
+                .map(name -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(name)))
+                .toList();
+        return new UserDetailsImpl(userId.longValue(), claims.getSubject(), null, null, authorities);
+    }
+
+    public String getUserNameFromJwtToken(String token){
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
+    public boolean validateJwtToken(String authToken){
+        return parseClaims(authToken) != null;
+    }
 }
+
@@ -0,0 +1,162 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.UserTopicAbility;
+import com.intelliquiz.backend.repository.UserTopicAbilityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * AbilityService
+ * - Online Elo / 1PL-IRT style ability estimate per (user, topic), on a logit scale
+ * - Each submission is one O(1) update: θ += K(n) · (accuracy − P(correct | θ, b))
+ * - Estimates of active learners live in a bounded W-TinyLFU cache; user_topic_ability is the
+ *   backing store, written outside the lock with an upsert that only moves forward in attempt count
+ * - Reads ({@link #estimate}) never register topics or cache keys, so arbitrary topic names in a
+ *   GET cannot grow the topic dictionary or the heap
+ *
+ * Difficulty labels map to item locations b: easy = −1, medium = 0, hard = +1.
+ * The recommended level is the one whose expected success rate is closest to {@link #TARGET_SUCCESS}.
+ */
+@Slf4j
+@Service
+public class AbilityService {
+
+    static final double TARGET_SUCCESS = 0.7;
+    static final double K_START = 1.2;
+    static final double K_MIN = 0.25;
+    static final double K_DECAY = 0.15;
+    static final float MAX_ABILITY = 4f;
+
+    private static final double TARGET_OFFSET = Math.log(TARGET_SUCCESS / (1 - TARGET_SUCCESS));
+    private static final int TOPIC_BITS = 24;
+
+    public record Estimate(double ability, int attempts, String recommendedDifficulty) {}
+
+    /** Mutable estimate for one (user, topic); guarded by its own monitor. */
+    private static final class State {
+        float rating;
+        int attempts;
+
+        State(float rating, int attempts) {
+            this.rating = rating;
+            this.attempts = attempts;
+        }
+    }
+
+    private final UserTopicAbilityRepository repository;
+    private final TopicRegistry topicRegistry;
+    private final TinyLfuCache<Long, State> states;
+
+    public AbilityService(UserTopicAbilityRepository repository, TopicRegistry topicRegistry,
+                          @Value("${app.ability.cache-size:100000}") int cacheSize) {
+        this.repository = repository;
+        this.topicRegistry = topicRegistry;
+        this.states = new TinyLfuCache<>("abilityEstimates", cacheSize);
+    }
+
+    /**
+     * Folds one quiz result into the estimate and returns the updated estimate
+     * (including the difficulty to serve next).
+     */
+    public Estimate record(Long userId, String topic, String difficulty, int correct, int total) {
+        int topicId = topicRegistry.idOf(topic);
+        State state = load(key(userId, topicId), userId, topicId);
+
+        float theta;
+        int n;
+        synchronized (state) {
+            theta = state.rating;
+            n = state.attempts;
+
+            double accuracy = total > 0 ? (double) correct / total : 0.0;
+            double expected = expectedSuccess(theta, location(difficulty));
+            double k = Math.max(K_MIN, K_START / (1 + K_DECAY * n));
+
+            theta = clamp((float) (theta + k * (accuracy - expected)));
+            n++;
+            state.rating = theta;
+            state.attempts = n;
+        }
+
+        repository.upsert(userId, topicId, theta, n);
+        log.debug("🧠 Ability for user {} on '{}' → θ={} after {} attempts", userId, topic, theta, n);
+        return new Estimate(theta, n, recommend(theta));
+    }
+
+    /**
+     * Current estimate without recording anything. Unknown topics get the starting estimate; a key
+     * that is not cached is read from its row (if any) without being cached.
+     */
+    public Estimate estimate(Long userId, String topic) {
+        int topicId = topicRegistry.peekId(topic);
+        if (topicId < 0) return new Estimate(0f, 0, recommend(0f));
+
+        State state = states.get(key(userId, topicId));
+        if (state != null) {
+            synchronized (state) {
+                return new Estimate(state.rating, state.attempts, recommend(state.rating));
+            }
+        }
+        UserTopicAbility row = repository.findById(new UserTopicAbility.Key(userId, topicId)).orElse(null);
+        float theta = row != null ? row.getRating() : 0f;
+        return new Estimate(theta, row != null ? row.getAttempts() : 0, recommend(theta));
+    }
+
+    // ==============================
+    // 📐 Model
+    // ==============================
+
+    static double location(String difficulty) {
+        if (difficulty == null) return 0.0;
+        return switch (difficulty.toLowerCase(Locale.ROOT)) {
+            case "easy" -> -1.0;
+            case "hard" -> 1.0;
+            default -> 0.0;
+        };
+    }
+
+    static double expectedSuccess(double ability, double location) {
+        return 1.0 / (1.0 + Math.exp(-(ability - location)));
+    }
+
+    /** Picks the level whose location is nearest to θ − logit(target). */
+    static String recommend(double ability) {
+        double ideal = ability - TARGET_OFFSET;
+        if (ideal <= -0.5) return "easy";
+        if (ideal >= 0.5) return "hard";
+        return "medium";
+    }
+
+    // ==============================
+    // 🔧 Storage
+    // ==============================
+
+    /**
+     * Cached state for the key, loading its row on a miss. A key evicted between a load and the
+     * following upsert is re-read from the table; the monotonic upsert keeps the table from
+     * going backwards in that case.
+     */
+    private State load(long key, Long userId, int topicId) {
+        State state = states.get(key);
+        if (state != null) return state;
+        UserTopicAbility row = repository.findById(new UserTopicAbility.Key(userId, topicId)).orElse(null);
+        synchronized (this) {
+            state = states.get(key);
+            if (state != null) return state; // loaded concurrently
+            state = row != null ? new State(row.getRating(), row.getAttempts()) : new State(0f, 0);
+            states.put(key, state);
+            return state;
+        }
+    }
+
+    private static long key(Long userId, int topicId) {
+        return (userId << TOPIC_BITS) | topicId;
+    }
+
+    private static float clamp(float theta) {
+        return Math.max(-MAX_ABILITY, Math.min(MAX_ABILITY, theta));
+    }
+}
@@ -1,29 +1,83 @@
 package com.intelliquiz.backend.security.services;
 
+import com.intelliquiz.backend.event.PointsChangedEvent;
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.event.RecomputeFinishedEvent;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.ERole;
 import com.intelliquiz.backend.model.QuizAttempt;
+import com.intelliquiz.backend.model.RecomputeJob;
 import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.model.UserStats;
 import com.intelliquiz.backend.model.dto.TopicAnalyticsDTO;
 import com.intelliquiz.backend.repository.QuizAttemptRepository;
 import com.intelliquiz.backend.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class AnalyticsService {
 
+    private static final int EPOCH_STRIPES = 1024;
+
     private final QuizAttemptRepository quizAttemptRepository;
     private final UserRepository userRepository;
+    private final PointsLedgerService pointsLedgerService;
+    private final BadgeService badgeService;
+    private final StatsRollupService statsRollupService;
+    private final RecentScoresService recentScoresService;
+    private final LeaderboardService leaderboardService;
+    private final ClassroomService classroomService;
+    private final RecomputeJobService recomputeJobService;
+    private final ScoreSketchService scoreSketchService;
+    private final ProgressRollupService progressRollupService;
+    private final ResourceIndexService resourceIndexService;
+
+    // Per-user analytics snapshots; a snapshot only changes when that user submits or earns points
+    private final TinyLfuCache<Long, Map<String, Object>> snapshots;
+    // Bumped on every invalidation so a snapshot computed concurrently with a change is not cached
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final Map<Long, CompletableFuture<Map<String, Object>>> loading = new ConcurrentHashMap<>();
 
     public AnalyticsService(QuizAttemptRepository quizAttemptRepository,
-                            UserRepository userRepository) {
+                            UserRepository userRepository,
+                            PointsLedgerService pointsLedgerService,
+                            BadgeService badgeService,
+                            StatsRollupService statsRollupService,
+                            RecentScoresService recentScoresService,
+                            LeaderboardService leaderboardService,
+                            ClassroomService classroomService,
+                            RecomputeJobService recomputeJobService,
+                            ScoreSketchService scoreSketchService,
+                            ProgressRollupService progressRollupService,
+                            ResourceIndexService resourceIndexService,
+                            @Value("${app.analytics.cache-size:5000}") int cacheSize) {
         this.quizAttemptRepository = quizAttemptRepository;
         this.userRepository = userRepository;
+        this.pointsLedgerService = pointsLedgerService;
+        this.badgeService = badgeService;
+        this.statsRollupService = statsRollupService;
+        this.recentScoresService = recentScoresService;
+        this.leaderboardService = leaderboardService;
+        this.classroomService = classroomService;
+        this.recomputeJobService = recomputeJobService;
+        this.scoreSketchService = scoreSketchService;
+        this.progressRollupService = progressRollupService;
+        this.resourceIndexService = resourceIndexService;
+        this.snapshots = new TinyLfuCache<>("studentAnalytics", cacheSize);
     }
 
     // ✅ Existing: fetch all attempts by user
@@ -31,23 +85,17 @@ public class AnalyticsService {
         return quizAttemptRepository.findByUser(user);
     }
 
-    // ✅ Enhanced: per-topic analytics
+    // ✅ Enhanced: per-topic analytics (read from user_topic_stats rollups)
     public List<TopicAnalyticsDTO> getTopicAnalytics(Long userId) {
         try {
-            List<Object[]> rows = quizAttemptRepository.findTopicAveragesByUser(userId);
-            if (rows == null || rows.isEmpty()) {
+            List<TopicAnalyticsDTO> rows = statsRollupService.topicAnalytics(userId);
+            if (rows.isEmpty()) {
                 log.info("ℹ️ No topic data found for user {}", userId);
                 return Collections.emptyList();
             }
 
-            return rows.stream()
-                    .map(r -> new TopicAnalyticsDTO(
-                            (String) r[0],
-                            r[1] != null ? Math.round(((Number) r[1]).doubleValue() * 100.0) / 100.0 : 0.0,
-                            r[2] != null ? ((Number) r[2]).longValue() : 0L
-                    ))
-                    .sorted(Comparator.comparingDouble(TopicAnalyticsDTO::getAccuracy).reversed())
-                    .collect(Collectors.toList());
+            rows.sort(Comparator.comparingDouble(TopicAnalyticsDTO::getAccuracy).reversed());
+            return rows;
 
         } catch (Exception e) {
             log.error("❌ Failed to compute topic analytics for user {}: {}", userId, e.getMessage());
@@ -57,7 +105,15 @@ public class AnalyticsService {
 
     // ✅ New: weakest N topics
     public List<String> getWeakTopics(Long userId, int limit) {
-        List<TopicAnalyticsDTO> list = getTopicAnalytics(userId);
+        return weakest(getTopicAnalytics(userId), limit);
+    }
+
+    // ✅ Study material for the weakest topics, from the in-memory topic → resources index
+    public List<Map<String, Object>> getRecommendations(Long userId, int topics, int perTopic) {
+        return resourceIndexService.forTopics(getWeakTopics(userId, topics), perTopic);
+    }
+
+    private static List<String> weakest(List<TopicAnalyticsDTO> list, int limit) {
         if (list.isEmpty()) return Collections.emptyList();
 
         return list.stream()
@@ -70,41 +126,95 @@ public class AnalyticsService {
 
     // ✅ Utility: average score per user
     public double calculateAverageScore(User user) {
-        List<QuizAttempt> attempts = quizAttemptRepository.findByUser(user);
-        return attempts.stream()
-                .mapToInt(QuizAttempt::getScore)
-                .average()
+        return statsRollupService.userStats(user.getId())
+                .map(UserStats::average)
                 .orElse(0.0);
     }
 
+    // ✅ Score trend over the last N attempts (served from the in-memory ring, N ≤ 100)
+    public List<Integer> getTrend(Long userId, int window) {
+        return recentScoresService.recent(userId, window);
+    }
+
     /**
      * ✅ Enhanced: Returns full analytics metrics for a specific student.
+     * Served from the snapshot cache; misses are computed once and cached until the next change.
      */
     public Map<String, Object> getStudentAnalytics(Long userId) {
+        Map<String, Object> cached = snapshots.get(userId);
+        if (cached != null) return cached;
+
+        // Single flight: concurrent misses for the same user share one computation
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = loading.putIfAbsent(userId, mine);
+        if (running != null) return running.join();
+
+        try {
+            long epoch = epochs.get(stripe(userId));
+            Map<String, Object> fresh = Collections.unmodifiableMap(buildStudentAnalytics(userId));
+            snapshots.put(userId, fresh);
+            if (epochs.get(stripe(userId)) != epoch) {
+                snapshots.invalidate(userId); // changed while we were reading
+            }
+            mine.complete(fresh);
+            return fresh;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, mine);
+        }
+    }
+
+    public Map<String, Object> cacheStats() {
+        return snapshots.stats();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPointsChanged(PointsChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @EventListener
+    public void onRecomputeFinished(RecomputeFinishedEvent event) {
+        for (int i = 0; i < EPOCH_STRIPES; i++) epochs.incrementAndGet(i);
+        snapshots.invalidateAll();
+    }
+
+    private void invalidate(Long userId) {
+        epochs.incrementAndGet(stripe(userId));
+        snapshots.invalidate(userId);
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (EPOCH_STRIPES - 1);
+    }
+
+    private Map<String, Object> buildStudentAnalytics(Long userId) {
         log.info("📊 Fetching analytics for user {}", userId);
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
 
-        // ✅ Core stats
-        Double avgScore = quizAttemptRepository.findAverageScore(userId);
-        avgScore = (avgScore == null) ? 0.0 : Math.round(avgScore * 100.0) / 100.0;
+        // ✅ Core stats (one primary-key read of the user_stats rollup)
+        Optional<UserStats> stats = statsRollupService.userStats(userId);
+        double avgScore = stats.map(s -> Math.round(s.average() * 100.0) / 100.0).orElse(0.0);
 
-        List<Integer> recentScores = quizAttemptRepository.findLastFiveScores(userId);
-        Collections.reverse(recentScores); // chronological (oldest → newest)
+        List<Integer> recentScores = getTrend(userId, 5); // chronological (oldest → newest)
 
         double accuracy = avgScore;
         int points = user.getPoints();
 
-        List<String> badges = Arrays.stream(
-                        Optional.ofNullable(user.getBadges()).orElse("")
-                                .split(","))
-                .filter(s -> !s.isBlank())
-                .collect(Collectors.toList());
+        List<String> badges = badgeService.badgeNames(user.getBadgeMask());
 
         // ✅ Topic Analytics + Weak Topics
         List<TopicAnalyticsDTO> topicAnalytics = getTopicAnalytics(userId);
-        List<String> weakTopics = getWeakTopics(userId,3);
+        List<String> weakTopics = weakest(topicAnalytics, 3);
 
         // ✅ Build unified response
         Map<String, Object> response = new LinkedHashMap<>();
@@ -123,69 +233,123 @@ public class AnalyticsService {
     }
 
     /**
-     * ✅ Leaderboard - unchanged but hardened
+     * ✅ Leaderboard - served from the in-memory ranking
      */
     public List<Map<String, Object>> getLeaderboard(int limit) {
-        log.info("🏆 Fetching top {} users for leaderboard", limit);
-        List<User> topUsers = userRepository.findTopUsers(PageRequest.of(0, limit));
-
-        return topUsers.stream().map(u -> {
-            Map<String, Object> entry = new HashMap<>();
-            entry.put("username", u.getUsername());
-            entry.put("points", u.getPoints());
-            entry.put("badges", Arrays.stream(
-                            Optional.ofNullable(u.getBadges()).orElse("")
-                                    .split(","))
-                    .filter(s -> !s.isBlank())
-                    .collect(Collectors.toList()));
-            return entry;
-        }).collect(Collectors.toList());
+        return getLeaderboard(limit, LeaderboardService.Window.ALL);
+    }
+
+    public List<Map<String, Object>> getLeaderboard(int limit, LeaderboardService.Window window) {
+        log.info("🏆 Fetching top {} users for the {} leaderboard", limit, window);
+        return leaderboardService.describe(leaderboardService.top(window, limit));
+    }
+
+    /**
+     * ✅ Keyset-paged leaderboard: global (optionally windowed), or restricted to one role or classroom
+     * (members, teacher of the class or admin)
+     */
+    public LeaderboardService.Page getLeaderboardPage(String role, Long classroomId, LeaderboardService.Window window,
+                                                      String after, int limit, User requester) {
+        boolean byRole = role != null && !role.isBlank();
+        if (!byRole && classroomId == null) {
+            return leaderboardService.page(window, after, limit);
+        }
+        if (byRole && classroomId != null) {
+            throw new BadRequestException("Choose either a role or a classroom");
+        }
+        if (window != LeaderboardService.Window.ALL) {
+            throw new BadRequestException("Role and classroom leaderboards are all-time only");
+        }
+        if (classroomId != null) classroomService.requireViewable(classroomId, requester);
+        return byRole
+                ? leaderboardService.rolePage(parseRole(role), after, limit)
+                : leaderboardService.classroomPage(classroomId, after, limit);
+    }
+
+    private static ERole parseRole(String role) {
+        String name = role.trim().toUpperCase(Locale.ROOT);
+        try {
+            return ERole.valueOf(name.startsWith("ROLE_") ? name : "ROLE_" + name);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown role: " + role);
+        }
+    }
+
+    /**
+     * ✅ Caller's rank plus the users directly above and below (rank is null if unranked in the window)
+     */
+    public Map<String, Object> getLeaderboardPosition(User user, LeaderboardService.Window window, int radius) {
+        LeaderboardService.Standing me = leaderboardService.standing(window, user.getId());
+        if (me == null && window == LeaderboardService.Window.ALL) {
+            me = leaderboardService.track(user.getId(), user.getPoints());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("window", window.name().toLowerCase(Locale.ROOT));
+        response.put("rank", me != null ? me.rank() : null);
+        response.put("points", me != null ? me.points() : 0);
+        response.put("totalUsers", leaderboardService.size(window));
+        response.put("neighbours", leaderboardService.describe(leaderboardService.around(window, user.getId(), radius)));
+        return response;
     }
 
     // ==============================
-    // 🎮 Gamification Logic (unchanged)
+    // 🎮 Gamification Logic
     // ==============================
 
+    /**
+     * Points are accrued atomically in the database (no read-modify-write on the entity),
+     * then the compiled badge rules grant any newly earned bits.
+     */
     @Transactional
     public void updateGamification(User user, int score) {
-        int pointsToAdd;
-        if (score >= 80) pointsToAdd = 50;
-        else if (score >= 50) pointsToAdd = 25;
-        else pointsToAdd = 10;
-
-        int newTotal = user.getPoints() + pointsToAdd;
-        user.setPoints(newTotal);
-
-        StringBuilder badges = new StringBuilder(
-                Optional.ofNullable(user.getBadges()).orElse(""));
-
-        if (newTotal >= 1000 && !badges.toString().contains("Gold")) {
-            badges.append(badges.length() > 0 ? "," : "").append("Gold");
-        } else if (newTotal >= 500 && !badges.toString().contains("Silver")) {
-            badges.append(badges.length() > 0 ? "," : "").append("Silver");
-        } else if (newTotal >= 200 && !badges.toString().contains("Bronze")) {
-            badges.append(badges.length() > 0 ? "," : "").append("Bronze");
-        }
+        updateGamification(user, score, null);
+    }
+
+    @Transactional
+    public void updateGamification(User user, int score, String topic) {
+        int pointsToAdd = PointsLedgerService.pointsForScore(score);
 
-        user.setBadges(badges.toString());
-        userRepository.save(user);
+        int newTotal = pointsLedgerService.accrue(user.getId(), pointsToAdd);
+        long badgeMask = badgeService.evaluate(user.getId(), user.getBadgeMask(), newTotal, topic);
 
         log.info("🎮 Updated gamification for user {}: +{} points → total {} | Badges: {}",
-                user.getId(), pointsToAdd, newTotal, user.getBadges());
+                user.getId(), pointsToAdd, newTotal, badgeService.badgeNames(badgeMask));
     }
 
     /**
-     * ✅ Classroom Analytics (stub)
+     * ✅ Classroom Analytics - precomputed class aggregates (teacher of the class or admin)
      */
-    public Map<String, Object> getClassroomAnalytics(Long classId) {
+    public Map<String, Object> getClassroomAnalytics(Long classId, User requester) {
         log.info("📘 Classroom analytics requested for class {}", classId);
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Classroom analytics not implemented yet");
-        return response;
+        return classroomService.analytics(classId, requester);
     }
 
-    @Transactional
-    public void recalculateAllLeaderboard() {
-        log.info("🔄 Recalculating leaderboard (future batch logic placeholder)");
+    /**
+     * ✅ Long-range progress chart from day / week buckets (resolution chosen from the range)
+     */
+    public Map<String, Object> getProgress(Long userId, String topic, LocalDate from, LocalDate to,
+                                           ProgressRollupService.Resolution resolution) {
+        return progressRollupService.series(userId, topic, from, to, resolution);
+    }
+
+    /**
+     * ✅ Score percentiles for a topic (or all topics), across all students or one class
+     * (teacher of the class or admin), over an optional date range widened to whole weeks
+     */
+    public Map<String, Object> getPercentiles(String topic, Long classroomId, LocalDate from, LocalDate to,
+                                              List<Double> percentiles, User requester) {
+        if (classroomId != null) classroomService.requireManageable(classroomId, requester);
+        if (from != null && to != null && from.isAfter(to)) throw new BadRequestException("'from' is after 'to'");
+        return scoreSketchService.percentiles(classroomId, topic, from, to, percentiles);
+    }
+
+    /**
+     * Rebuilds points, badges and rollups from quiz_attempts in the background (resumes an
+     * unfinished run); the leaderboards reload when it completes.
+     */
+    public RecomputeJob recalculateAllLeaderboard() {
+        log.info("🔄 Recalculating points, badges and rollups from quiz_attempts");
+        return recomputeJobService.start();
     }
 }
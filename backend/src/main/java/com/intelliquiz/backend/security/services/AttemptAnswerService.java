@@ -0,0 +1,120 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.AttemptAnswer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AttemptAnswerService
+ * - Converts the per-question payload of a submission into {@link AttemptAnswer} rows
+ * - Writes any number of rows (one attempt or many) as a single INSERT ... SELECT FROM unnest(...)
+ *
+ * Column arrays are bound once, so the statement count stays at one per submission
+ * no matter how long the quiz is.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttemptAnswerService {
+
+    private static final String BULK_INSERT_SQL =
+            "INSERT INTO attempt_answers (attempt_id, question_id, chosen_answer, correct, time_taken) " +
+            "SELECT * FROM unnest(?::bigint[], ?::int[], ?::varchar[], ?::boolean[], ?::int[]) " +
+            "ON CONFLICT (attempt_id, question_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Maps submitted answers ({questionId, selectedAnswer, isCorrect, timeTaken}) to rows.
+     * Missing question ids fall back to the 1-based position in the list. The chosen option is
+     * stored as its text ({@code selectedAnswer}, alias {@code chosenAnswer}); option positions are
+     * not stored because options are shuffled for every request.
+     */
+    public List<AttemptAnswer> fromSubmission(Long attemptId, List<Map<String, Object>> answers) {
+        if (answers == null || answers.isEmpty()) return Collections.emptyList();
+
+        List<AttemptAnswer> rows = new ArrayList<>(answers.size());
+        for (int i = 0; i < answers.size(); i++) {
+            Map<String, Object> a = answers.get(i);
+            if (a == null) continue;
+
+            Number questionId = asNumber(a.get("questionId"));
+            Object chosen = a.containsKey("selectedAnswer") ? a.get("selectedAnswer") : a.get("chosenAnswer");
+            Number time = asNumber(a.get("timeTaken"));
+
+            rows.add(new AttemptAnswer(
+                    attemptId,
+                    questionId != null ? questionId.intValue() : i + 1,
+                    answerText(chosen),
+                    Boolean.TRUE.equals(a.get("isCorrect")),
+                    time != null ? time.intValue() : null
+            ));
+        }
+        return rows;
+    }
+
+    /**
+     * Bulk-writes answer rows in one statement. Duplicate (attempt, question) pairs are ignored.
+     */
+    @Transactional
+    public int saveAll(List<AttemptAnswer> rows) {
+        if (rows == null || rows.isEmpty()) return 0;
+
+        int n = rows.size();
+        Long[] attemptIds = new Long[n];
+        Integer[] questionIds = new Integer[n];
+        String[] chosen = new String[n];
+        Boolean[] correct = new Boolean[n];
+        Integer[] times = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            AttemptAnswer r = rows.get(i);
+            attemptIds[i] = r.getAttemptId();
+            questionIds[i] = r.getQuestionId();
+            chosen[i] = r.getChosenAnswer();
+            correct[i] = r.isCorrect();
+            times[i] = r.getTimeTaken();
+        }
+
+        int inserted = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(BULK_INSERT_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", attemptIds));
+            ps.setArray(2, con.createArrayOf("integer", questionIds));
+            ps.setArray(3, con.createArrayOf("varchar", chosen));
+            ps.setArray(4, con.createArrayOf("boolean", correct));
+            ps.setArray(5, con.createArrayOf("integer", times));
+            return ps;
+        });
+
+        log.debug("🧾 Bulk-inserted {} of {} answer rows", inserted, n);
+        return inserted;
+    }
+
+    /** Option text, trimmed and cut to the column length; null for skipped questions. */
+    static String answerText(Object value) {
+        if (value == null) return null;
+        String text = value.toString().trim();
+        if (text.isEmpty()) return null;
+        return text.length() > AttemptAnswer.MAX_ANSWER_LENGTH ? text.substring(0, AttemptAnswer.MAX_ANSWER_LENGTH) : text;
+    }
+
+    private static Number asNumber(Object value) {
+        if (value instanceof Number num) return num;
+        if (value instanceof String str && !str.isBlank()) {
+            try {
+                return Integer.parseInt(str.trim());
+            } catch (NumberFormatException ignored) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Badge;
+
+import java.util.*;
+
+/**
+ * Immutable, compiled form of the badge catalog.
+ *
+ * Threshold rules are flattened into sorted arrays with cumulative masks, so
+ * "which points/streak badges does this value earn?" is one binary search.
+ * Rule families whose bits are all already held are skipped entirely,
+ * which lets callers avoid the queries that feed them.
+ */
+public final class BadgeRuleEngine {
+
+    private record MasteryRule(String topic, int accuracy, int minAttempts, long bit) {}
+
+    private final String[] names = new String[Badge.MAX_BADGES];
+    private final Map<String, Long> bitsByName = new HashMap<>();
+
+    private final int[] pointThresholds;
+    private final long[] pointMasks;     // pointMasks[i] = OR of every rule with threshold <= pointThresholds[i]
+    private final int[] streakThresholds;
+    private final long[] streakMasks;
+    private final MasteryRule[] masteryRules;
+
+    private final long streakBits;
+    private final long masteryBits;
+    private final int maxStreak;
+
+    private BadgeRuleEngine(List<Badge> catalog) {
+        List<Badge> points = new ArrayList<>();
+        List<Badge> streaks = new ArrayList<>();
+        List<MasteryRule> mastery = new ArrayList<>();
+
+        for (Badge b : catalog) {
+            if (b.getBit() < 0 || b.getBit() >= Badge.MAX_BADGES) {
+                throw new IllegalArgumentException("Badge bit out of range: " + b.getName() + " → " + b.getBit());
+            }
+            names[b.getBit()] = b.getName();
+            bitsByName.put(b.getName().toLowerCase(), 1L << b.getBit());
+
+            switch (b.getRuleType()) {
+                case POINTS_AT_LEAST -> points.add(b);
+                case STREAK_AT_LEAST -> streaks.add(b);
+                case TOPIC_MASTERY -> mastery.add(new MasteryRule(
+                        b.getTopic() == null ? null : TopicRegistry.normalize(b.getTopic()),
+                        b.getThreshold(), b.getMinAttempts(), 1L << b.getBit()));
+            }
+        }
+
+        points.sort(Comparator.comparingInt(Badge::getThreshold));
+        streaks.sort(Comparator.comparingInt(Badge::getThreshold));
+
+        pointThresholds = thresholds(points);
+        pointMasks = cumulativeMasks(points);
+        streakThresholds = thresholds(streaks);
+        streakMasks = cumulativeMasks(streaks);
+        masteryRules = mastery.toArray(new MasteryRule[0]);
+
+        streakBits = streakMasks.length == 0 ? 0L : streakMasks[streakMasks.length - 1];
+        masteryBits = mastery.stream().mapToLong(MasteryRule::bit).reduce(0L, (a, b) -> a | b);
+        maxStreak = streakThresholds.length == 0 ? 0 : streakThresholds[streakThresholds.length - 1];
+    }
+
+    public static BadgeRuleEngine compile(List<Badge> catalog) {
+        return new BadgeRuleEngine(catalog);
+    }
+
+    // ==============================
+    // ⚙️ Rule evaluation
+    // ==============================
+
+    public long pointsMask(int points) {
+        return maskFor(pointThresholds, pointMasks, points);
+    }
+
+    public long streakMask(int streak) {
+        return maskFor(streakThresholds, streakMasks, streak);
+    }
+
+    /** Topics are compared the way {@link TopicRegistry#normalize} stores them (trimmed, lower-case). */
+    public long masteryMask(String topic, double accuracy, long attempts) {
+        long mask = 0L;
+        for (MasteryRule r : masteryRules) {
+            if (!appliesTo(r, topic)) continue;
+            if (attempts >= r.minAttempts() && accuracy >= r.accuracy()) mask |= r.bit();
+        }
+        return mask;
+    }
+
+    /** Every mastery bit a submission on this topic could earn. */
+    public long masteryBitsFor(String topic) {
+        long mask = 0L;
+        for (MasteryRule r : masteryRules) {
+            if (appliesTo(r, topic)) mask |= r.bit();
+        }
+        return mask;
+    }
+
+    private static boolean appliesTo(MasteryRule rule, String topic) {
+        return rule.topic() == null || (topic != null && rule.topic().equals(TopicRegistry.normalize(topic)));
+    }
+
+    /** True if some streak badge is still unearned (i.e. the streak is worth computing). */
+    public boolean needsStreak(long held) {
+        return (streakBits & ~held) != 0;
+    }
+
+    /** True if some mastery badge is still unearned. */
+    public boolean needsMastery(long held) {
+        return (masteryBits & ~held) != 0;
+    }
+
+    /** Longest streak any rule asks for — the window callers need to look back. */
+    public int maxStreak() {
+        return maxStreak;
+    }
+
+    // ==============================
+    // 🏅 Mask decoding
+    // ==============================
+
+    public List<String> names(long mask) {
+        if (mask == 0L) return Collections.emptyList();
+        List<String> out = new ArrayList<>(Long.bitCount(mask));
+        long m = mask;
+        while (m != 0L) {
+            int bit = Long.numberOfTrailingZeros(m);
+            if (names[bit] != null) out.add(names[bit]);
+            m &= m - 1;
+        }
+        return out;
+    }
+
+    /** Bit for a badge name (case-insensitive), or 0 if the catalog has no such badge. */
+    public long bitOf(String name) {
+        return name == null ? 0L : bitsByName.getOrDefault(name.toLowerCase(), 0L);
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    private static long maskFor(int[] thresholds, long[] masks, int value) {
+        int idx = Arrays.binarySearch(thresholds, value);
+        if (idx < 0) idx = -idx - 2;              // last threshold <= value
+        else while (idx + 1 < thresholds.length && thresholds[idx + 1] == value) idx++;
+        return idx < 0 ? 0L : masks[idx];
+    }
+
+    private static int[] thresholds(List<Badge> sorted) {
+        return sorted.stream().mapToInt(Badge::getThreshold).toArray();
+    }
+
+    private static long[] cumulativeMasks(List<Badge> sorted) {
+        long[] masks = new long[sorted.size()];
+        long acc = 0L;
+        for (int i = 0; i < sorted.size(); i++) {
+            acc |= 1L << sorted.get(i).getBit();
+            masks[i] = acc;
+        }
+        return masks;
+    }
+}
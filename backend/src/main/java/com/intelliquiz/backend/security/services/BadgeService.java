@@ -0,0 +1,134 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Badge;
+import com.intelliquiz.backend.model.UserTopicStats;
+import com.intelliquiz.backend.repository.BadgeRepository;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.repository.UserTopicStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * BadgeService
+ * - Holds the compiled badge catalog (see {@link BadgeRuleEngine})
+ * - Evaluates award rules after each submission and grants new bits atomically
+ * - Decodes users.badge_mask into badge names for API responses
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BadgeService {
+
+    // A quiz counts towards a streak when it scores at least this percentage
+    static final int STREAK_PASS_SCORE = 80;
+
+    private final BadgeRepository badgeRepository;
+    private final UserRepository userRepository;
+    private final QuizAttemptRepository quizAttemptRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RecentScoresService recentScoresService;
+    private final UserTopicStatsRepository userTopicStatsRepository;
+    private final TopicRegistry topicRegistry;
+
+    private volatile BadgeRuleEngine engine;
+
+    public BadgeRuleEngine engine() {
+        BadgeRuleEngine e = engine;
+        if (e == null) {
+            synchronized (this) {
+                if (engine == null) engine = BadgeRuleEngine.compile(badgeRepository.findAllByOrderByBitAsc());
+                e = engine;
+            }
+        }
+        return e;
+    }
+
+    /** Recompiles the rule engine after the catalog changes. */
+    public void reload() {
+        List<Badge> catalog = badgeRepository.findAllByOrderByBitAsc();
+        engine = BadgeRuleEngine.compile(catalog);
+        log.info("🏅 Badge catalog compiled: {} badges", catalog.size());
+    }
+
+    public List<String> badgeNames(long mask) {
+        return engine().names(mask);
+    }
+
+    /**
+     * Evaluates every rule for the user and grants any newly earned badges.
+     * Streak and mastery lookups only run while there is still something to earn; mastery reads
+     * the user_topic_stats row (updated earlier in the submission's transaction) when there is one.
+     *
+     * @return the full mask after this evaluation
+     */
+    @Transactional
+    public long evaluate(Long userId, long held, int points, String topic) {
+        BadgeRuleEngine rules = engine();
+        long earned = rules.pointsMask(points);
+
+        if (rules.needsStreak(held | earned)) {
+            int streak = 0;
+            if (rules.maxStreak() <= RecentScoresService.CAPACITY) {
+                int[] recent = recentScoresService.last(userId, rules.maxStreak()); // oldest first
+                for (int i = recent.length - 1; i >= 0 && recent[i] >= STREAK_PASS_SCORE; i--) streak++;
+            } else {
+                List<Integer> recent = quizAttemptRepository.findRecentScores(userId, PageRequest.of(0, rules.maxStreak()));
+                for (Integer s : recent) {
+                    if (s == null || s < STREAK_PASS_SCORE) break;
+                    streak++;
+                }
+            }
+            earned |= rules.streakMask(streak);
+        }
+
+        if (topic != null && (rules.masteryBitsFor(topic) & ~(held | earned)) != 0L) {
+            int topicId = topicRegistry.peekId(topic);
+            Optional<UserTopicStats> stats = topicId < 0 ? Optional.empty()
+                    : userTopicStatsRepository.findById(new UserTopicStats.Key(userId, topicId));
+            if (stats.isPresent()) {
+                earned |= rules.masteryMask(topic, stats.get().average(), stats.get().getAttemptCount());
+            } else {
+                List<Object[]> rows = quizAttemptRepository.findTopicStats(userId, TopicRegistry.normalize(topic));
+                if (!rows.isEmpty() && rows.get(0)[0] != null) {
+                    Object[] r = rows.get(0);
+                    earned |= rules.masteryMask(topic, ((Number) r[0]).doubleValue(), ((Number) r[1]).longValue());
+                }
+            }
+        }
+
+        long newBits = earned & ~held;
+        if (newBits != 0L) {
+            userRepository.grantBadges(userId, newBits);
+            log.info("🏅 User {} earned badges {}", userId, rules.names(newBits));
+        }
+        return held | newBits;
+    }
+
+    /**
+     * One-off migration of the legacy comma-separated {@code users.badges} column into badge_mask.
+     * Safe to call on every start: it is a no-op once the legacy values are cleared.
+     */
+    @Transactional
+    public void migrateLegacyBadges() {
+        Integer legacy = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = 'users' AND column_name = 'badges'",
+                Integer.class);
+        if (legacy == null || legacy == 0) return;
+
+        int migrated = jdbcTemplate.update(
+                "UPDATE users u SET badge_mask = u.badge_mask | m.mask, badges = NULL " +
+                "FROM (SELECT u2.id, COALESCE(bit_or(1::bigint << b.bit), 0) AS mask " +
+                "      FROM users u2 LEFT JOIN badges b ON position(b.name IN u2.badges) > 0 " +
+                "      WHERE u2.badges IS NOT NULL AND u2.badges <> '' GROUP BY u2.id) m " +
+                "WHERE u.id = m.id");
+        if (migrated > 0) log.info("🏅 Migrated legacy badge strings for {} users", migrated);
+    }
+}
@@ -0,0 +1,286 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.*;
+import com.intelliquiz.backend.repository.*;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * ClassroomService
+ * - Classrooms owned by a teacher, with student memberships
+ * - classroom_stats / classroom_topic_stats are updated by one upsert each per submission,
+ *   fanned out to every class the student belongs to (nothing runs for students without a class)
+ * - A class dashboard is a handful of primary-key / indexed reads, independent of member history
+ *
+ * Aggregates cover all attempts by the current members: a membership change recomputes that one
+ * class from quiz_attempts, which is rare compared to submissions.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClassroomService {
+
+    public static final int RECENT_WINDOW = 20;
+
+    // (i = bucket)::int over 1..10 builds the one-hot histogram for a first row
+    private static final String UPSERT_CLASS_SQL =
+            "INSERT INTO classroom_stats (classroom_id, attempt_count, score_sum, histogram, recent_scores, last_attempt_at) " +
+            "SELECT m.classroom_id, 1, ?, " +
+            "       (SELECT array_agg((i = ?)::int ORDER BY i) FROM generate_series(1, " + ClassroomStats.BUCKETS + ") i), ?, ? " +
+            "FROM classroom_members m WHERE m.user_id = ? " +
+            "ON CONFLICT (classroom_id) DO UPDATE SET " +
+            "attempt_count = classroom_stats.attempt_count + 1, " +
+            "score_sum = classroom_stats.score_sum + EXCLUDED.score_sum, " +
+            "histogram[?] = classroom_stats.histogram[?] + 1, " +
+            "recent_scores = substring(classroom_stats.recent_scores || EXCLUDED.recent_scores " +
+            "    FROM GREATEST(1, length(classroom_stats.recent_scores) + 2 - " + RECENT_WINDOW + ")), " +
+            "last_attempt_at = GREATEST(classroom_stats.last_attempt_at, EXCLUDED.last_attempt_at)";
+
+    private static final String UPSERT_TOPIC_SQL =
+            "INSERT INTO classroom_topic_stats (classroom_id, topic_id, attempt_count, score_sum) " +
+            "SELECT m.classroom_id, ?, 1, ? FROM classroom_members m WHERE m.user_id = ? " +
+            "ON CONFLICT (classroom_id, topic_id) DO UPDATE SET " +
+            "attempt_count = classroom_topic_stats.attempt_count + 1, " +
+            "score_sum = classroom_topic_stats.score_sum + EXCLUDED.score_sum";
+
+    private final ClassroomRepository classroomRepository;
+    private final ClassroomMemberRepository memberRepository;
+    private final ClassroomStatsRepository statsRepository;
+    private final ClassroomTopicStatsRepository topicStatsRepository;
+    private final UserRepository userRepository;
+    private final TopicRegistry topicRegistry;
+    private final CounterService counterService;
+    private final JdbcTemplate jdbcTemplate;
+
+    // ==============================
+    // 🏫 Classrooms & memberships
+    // ==============================
+
+    public Classroom create(String name, User teacher) {
+        if (name == null || name.isBlank()) throw new BadRequestException("Classroom name is required");
+        Classroom saved = classroomRepository.save(new Classroom(name.trim(), teacher.getId()));
+        counterService.classroomCreated(teacher.getId());
+        log.info("🏫 Teacher {} created classroom {} '{}'", teacher.getId(), saved.getId(), saved.getName());
+        return saved;
+    }
+
+    /** Classes the user teaches, or is a member of. */
+    public List<Classroom> listFor(User user) {
+        List<Classroom> out = new ArrayList<>(classroomRepository.findByTeacherIdOrderByNameAsc(user.getId()));
+        out.addAll(classroomRepository.findByMember(user.getId()));
+        return out;
+    }
+
+    @Transactional
+    public Map<String, Object> addMembers(Long classroomId, List<String> usernames, User requester) {
+        Classroom classroom = requireManageable(classroomId, requester);
+        List<String> added = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        for (String username : usernames) {
+            Optional<User> user = userRepository.findByUsername(username);
+            if (user.isEmpty()) {
+                unknown.add(username);
+            } else if (memberRepository.insertIfAbsent(classroom.getId(), user.get().getId()) == 1) {
+                added.add(username);
+            }
+        }
+        if (!added.isEmpty()) {
+            rebuild(classroom.getId());
+            counterService.studentsChanged(classroom.getTeacherId(), added.size());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("classroomId", classroom.getId());
+        response.put("added", added);
+        response.put("unknown", unknown);
+        return response;
+    }
+
+    @Transactional
+    public void removeMember(Long classroomId, Long userId, User requester) {
+        Classroom classroom = requireManageable(classroomId, requester);
+        if (memberRepository.deleteMember(classroom.getId(), userId) > 0) {
+            rebuild(classroom.getId());
+            counterService.studentsChanged(classroom.getTeacherId(), -1);
+        }
+    }
+
+    /** The classroom, if the user teaches it or is an admin. */
+    public Classroom requireManageable(Long classroomId, User user) {
+        Classroom classroom = classroomRepository.findById(classroomId)
+                .orElseThrow(() -> new EntityNotFoundException("Classroom not found with id: " + classroomId));
+        boolean admin = user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_ADMIN);
+        if (!admin && !classroom.getTeacherId().equals(user.getId())) {
+            throw new AccessDeniedException("Not your classroom: " + classroomId);
+        }
+        return classroom;
+    }
+
+    /** The classroom, if the user teaches it, belongs to it or is an admin. */
+    public Classroom requireViewable(Long classroomId, User user) {
+        Classroom classroom = classroomRepository.findById(classroomId)
+                .orElseThrow(() -> new EntityNotFoundException("Classroom not found with id: " + classroomId));
+        boolean admin = user.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_ADMIN);
+        if (!admin && !classroom.getTeacherId().equals(user.getId())
+                && !memberRepository.existsById(new ClassroomMember.Key(classroomId, user.getId()))) {
+            throw new AccessDeniedException("Not a member of classroom: " + classroomId);
+        }
+        return classroom;
+    }
+
+    // ==============================
+    // 📝 Incremental maintenance
+    // ==============================
+
+    /** Runs synchronously inside QuizAttemptService's transaction. */
+    @EventListener
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        int score = Math.max(0, Math.min(100, event.score()));
+        int bucket = bucketOf(score) + 1; // Postgres arrays are 1-based
+        Timestamp at = Timestamp.valueOf(event.createdAt() != null ? event.createdAt() : LocalDateTime.now());
+
+        int classes = jdbcTemplate.update(UPSERT_CLASS_SQL,
+                score, bucket, new byte[] {(byte) score}, at, event.userId(), bucket, bucket);
+        if (classes == 0) return; // not in any classroom
+
+        jdbcTemplate.update(UPSERT_TOPIC_SQL, topicRegistry.idOf(event.topic()), score, event.userId());
+    }
+
+    /** Recomputes one classroom's aggregates from its members' attempts. */
+    @Transactional
+    public void rebuild(Long classroomId) {
+        statsRepository.deleteById(classroomId);
+        statsRepository.flush();
+        topicStatsRepository.deleteByClassroom(classroomId);
+
+        ClassroomStats stats = new ClassroomStats();
+        stats.setClassroomId(classroomId);
+        stats.setHistogram(new int[ClassroomStats.BUCKETS]);
+        jdbcTemplate.query(
+                "SELECT q.score, q.created_at FROM quiz_attempts q " +
+                "JOIN classroom_members m ON m.user_id = q.user_id WHERE m.classroom_id = ?",
+                rs -> {
+                    int score = Math.max(0, Math.min(100, rs.getInt(1)));
+                    stats.setAttemptCount(stats.getAttemptCount() + 1);
+                    stats.setScoreSum(stats.getScoreSum() + score);
+                    stats.getHistogram()[bucketOf(score)]++;
+                    LocalDateTime at = rs.getTimestamp(2) != null ? rs.getTimestamp(2).toLocalDateTime() : null;
+                    if (at != null && (stats.getLastAttemptAt() == null || at.isAfter(stats.getLastAttemptAt()))) {
+                        stats.setLastAttemptAt(at);
+                    }
+                }, classroomId);
+
+        if (stats.getAttemptCount() == 0) return;
+
+        List<Integer> newest = jdbcTemplate.queryForList(
+                "SELECT q.score FROM quiz_attempts q JOIN classroom_members m ON m.user_id = q.user_id " +
+                "WHERE m.classroom_id = ? ORDER BY q.created_at DESC, q.id DESC LIMIT " + RECENT_WINDOW,
+                Integer.class, classroomId);
+        byte[] recent = new byte[newest.size()];
+        for (int i = 0; i < recent.length; i++) recent[i] = (byte) (int) newest.get(newest.size() - 1 - i);
+        stats.setRecentScores(recent);
+        statsRepository.save(stats);
+
+        // raw topic strings differing only in case/spacing share one topic id
+        Map<Integer, ClassroomTopicStats> topics = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT q.topic, COUNT(*), SUM(q.score) FROM quiz_attempts q " +
+                "JOIN classroom_members m ON m.user_id = q.user_id WHERE m.classroom_id = ? GROUP BY q.topic",
+                rs -> {
+                    ClassroomTopicStats t = topics.computeIfAbsent(topicRegistry.idOf(rs.getString(1)), id -> {
+                        ClassroomTopicStats fresh = new ClassroomTopicStats();
+                        fresh.setClassroomId(classroomId);
+                        fresh.setTopicId(id);
+                        return fresh;
+                    });
+                    t.setAttemptCount(t.getAttemptCount() + rs.getInt(2));
+                    t.setScoreSum(t.getScoreSum() + rs.getLong(3));
+                }, classroomId);
+        topicStatsRepository.saveAll(topics.values());
+
+        log.info("🏫 Rebuilt aggregates for classroom {}: {} attempts, {} topics",
+                classroomId, stats.getAttemptCount(), topics.size());
+    }
+
+    // ==============================
+    // 📊 Dashboard
+    // ==============================
+
+    public Map<String, Object> analytics(Long classroomId, User requester) {
+        Classroom classroom = requireManageable(classroomId, requester);
+        Optional<ClassroomStats> stats = statsRepository.findById(classroomId);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("classroomId", classroom.getId());
+        response.put("classroomName", classroom.getName());
+        response.put("totalStudents", memberRepository.countByClassroomId(classroomId));
+        response.put("attempts", stats.map(ClassroomStats::getAttemptCount).orElse(0));
+        response.put("averageScore", stats.map(s -> round2(s.average())).orElse(0.0));
+        response.put("distribution", distribution(stats.map(ClassroomStats::getHistogram).orElse(null)));
+        response.put("trend", StatsRollupService.recentScores(stats.map(ClassroomStats::getRecentScores).orElse(null), RECENT_WINDOW));
+        response.put("weakestTopics", weakestTopics(classroomId, 3));
+        response.put("mostActive", mostActive(classroomId, 5));
+        return response;
+    }
+
+    private List<Map<String, Object>> weakestTopics(Long classroomId, int limit) {
+        return topicStatsRepository.findByClassroomId(classroomId).stream()
+                .sorted(Comparator.comparingDouble(ClassroomTopicStats::average))
+                .limit(limit)
+                .map(t -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("topic", topicRegistry.nameOf(t.getTopicId()));
+                    m.put("accuracy", round2(t.average()));
+                    m.put("attempts", t.getAttemptCount());
+                    return m;
+                })
+                .toList();
+    }
+
+    private List<Map<String, Object>> mostActive(Long classroomId, int limit) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Object[] r : memberRepository.findMostActive(classroomId, limit)) {
+            long attempts = ((Number) r[2]).longValue();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("userId", ((Number) r[0]).longValue());
+            m.put("username", r[1]);
+            m.put("attempts", attempts);
+            m.put("averageScore", attempts == 0 ? 0.0 : round2(((Number) r[3]).doubleValue() / attempts));
+            out.add(m);
+        }
+        return out;
+    }
+
+    static List<Map<String, Object>> distribution(int[] histogram) {
+        List<Map<String, Object>> out = new ArrayList<>(ClassroomStats.BUCKETS);
+        for (int i = 0; i < ClassroomStats.BUCKETS; i++) {
+            int lo = i * 10;
+            int hi = i == ClassroomStats.BUCKETS - 1 ? 100 : lo + 9;
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("range", lo + "-" + hi);
+            m.put("count", histogram != null && i < histogram.length ? histogram[i] : 0);
+            out.add(m);
+        }
+        return out;
+    }
+
+    static int bucketOf(int score) {
+        return Math.min(score / 10, ClassroomStats.BUCKETS - 1);
+    }
+
+    private static double round2(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,288 @@
+package com.intelliquiz.backend.security.services;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Immutable columnar copy of quiz_attempts, read from a snapshot file.
+ *
+ * File layout (all integers big-endian unless noted):
+ *   "IQCS" | version | taken-at millis | row count | topic dictionary | difficulty dictionary |
+ *   column count | per column: id, byte length, bytes
+ * Rows are sorted by (user, time). user ids and epoch-second timestamps are zigzag delta varints,
+ * topic and difficulty are varint dictionary codes, scores one byte, time taken a varint.
+ *
+ * Columns decode lazily into primitive arrays; scans run over fixed-size batches, first building
+ * a selection vector with a branch-free predicate loop and then aggregating only selected rows.
+ */
+final class ColumnarSnapshot {
+
+    static final int BATCH = 1024;
+
+    private static final int MAGIC = 0x49514353; // "IQCS"
+    private static final int VERSION = 1;
+
+    private static final byte COL_USER = 1;
+    private static final byte COL_TIME = 2;
+    private static final byte COL_TOPIC = 3;
+    private static final byte COL_DIFFICULTY = 4;
+    private static final byte COL_SCORE = 5;
+    private static final byte COL_TIME_TAKEN = 6;
+
+    enum GroupBy { TOPIC, DIFFICULTY }
+
+    /** One report row: attempts, distinct students and average score for a group. */
+    record Group(String key, long attempts, long students, double averageScore) {}
+
+    private final long takenAtMillis;
+    private final int rows;
+    private final String[] topics;
+    private final String[] difficulties;
+    private final Map<Byte, byte[]> encoded;
+    private final long sizeBytes;
+
+    // decoded on first use; guarded by "this"
+    private long[] users;
+    private long[] times;
+    private int[] topicCodes;
+    private int[] difficultyCodes;
+    private byte[] scores;
+
+    private ColumnarSnapshot(long takenAtMillis, int rows, String[] topics, String[] difficulties,
+                             Map<Byte, byte[]> encoded, long sizeBytes) {
+        this.takenAtMillis = takenAtMillis;
+        this.rows = rows;
+        this.topics = topics;
+        this.difficulties = difficulties;
+        this.encoded = encoded;
+        this.sizeBytes = sizeBytes;
+    }
+
+    long takenAtMillis() {
+        return takenAtMillis;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    long sizeBytes() {
+        return sizeBytes;
+    }
+
+    int topicCount() {
+        return topics.length;
+    }
+
+    // ==============================
+    // 🔎 Scan
+    // ==============================
+
+    /**
+     * Groups attempts with {@code fromEpochSecond <= time < toEpochSecond} by topic or difficulty,
+     * largest groups first.
+     */
+    List<Group> aggregate(GroupBy groupBy, long fromEpochSecond, long toEpochSecond) {
+        long[] u;
+        long[] t;
+        int[] codes;
+        byte[] s;
+        synchronized (this) {
+            u = users();
+            t = times();
+            codes = groupBy == GroupBy.TOPIC ? topicCodes() : difficultyCodes();
+            s = scores();
+        }
+        String[] labels = groupBy == GroupBy.TOPIC ? topics : difficulties;
+
+        long[] counts = new long[labels.length];
+        long[] sums = new long[labels.length];
+        long[] students = new long[labels.length];
+        long[] lastUser = new long[labels.length];
+        Arrays.fill(lastUser, Long.MIN_VALUE);
+
+        int[] sel = new int[BATCH];
+        for (int base = 0; base < rows; base += BATCH) {
+            int end = Math.min(rows, base + BATCH);
+            int m = 0;
+            for (int i = base; i < end; i++) {
+                sel[m] = i;
+                long time = t[i];
+                m += (time >= fromEpochSecond & time < toEpochSecond) ? 1 : 0;
+            }
+            for (int k = 0; k < m; k++) {
+                int i = sel[k];
+                int c = codes[i];
+                counts[c]++;
+                sums[c] += s[i] & 0xFF;
+                if (lastUser[c] != u[i]) { // rows are grouped by user, so this counts each student once
+                    lastUser[c] = u[i];
+                    students[c]++;
+                }
+            }
+        }
+
+        List<Group> out = new ArrayList<>();
+        for (int c = 0; c < labels.length; c++) {
+            if (counts[c] == 0) continue;
+            out.add(new Group(labels[c], counts[c], students[c], Math.round(sums[c] * 100.0 / counts[c]) / 100.0));
+        }
+        out.sort(Comparator.comparingLong(Group::attempts).reversed().thenComparing(Group::key));
+        return out;
+    }
+
+    // ==============================
+    // 📖 Decoding
+    // ==============================
+
+    static ColumnarSnapshot read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) throw new IOException("Not a snapshot file: " + file);
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+
+        long takenAt = in.readLong();
+        int rows = in.readInt();
+        String[] topics = readDictionary(in);
+        String[] difficulties = readDictionary(in);
+
+        Map<Byte, byte[]> columns = new HashMap<>();
+        int columnCount = in.readInt();
+        for (int c = 0; c < columnCount; c++) {
+            byte id = in.readByte();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            columns.put(id, data);
+        }
+        return new ColumnarSnapshot(takenAt, rows, topics, difficulties, columns, bytes.length);
+    }
+
+    private long[] users() {
+        if (users == null) users = deltaColumn(COL_USER);
+        return users;
+    }
+
+    private long[] times() {
+        if (times == null) times = deltaColumn(COL_TIME);
+        return times;
+    }
+
+    private int[] topicCodes() {
+        if (topicCodes == null) topicCodes = codeColumn(COL_TOPIC);
+        return topicCodes;
+    }
+
+    private int[] difficultyCodes() {
+        if (difficultyCodes == null) difficultyCodes = codeColumn(COL_DIFFICULTY);
+        return difficultyCodes;
+    }
+
+    private byte[] scores() {
+        if (scores == null) scores = column(COL_SCORE);
+        return scores;
+    }
+
+    private long[] deltaColumn(byte id) {
+        byte[] data = column(id);
+        long[] out = new long[rows];
+        int[] pos = {0};
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += Varints.unzigzag(Varints.read(data, pos));
+            out[i] = previous;
+        }
+        return out;
+    }
+
+    private int[] codeColumn(byte id) {
+        byte[] data = column(id);
+        int[] out = new int[rows];
+        int[] pos = {0};
+        for (int i = 0; i < rows; i++) out[i] = (int) Varints.read(data, pos);
+        return out;
+    }
+
+    private byte[] column(byte id) {
+        byte[] data = encoded.get(id);
+        if (data == null) throw new IllegalStateException("Snapshot is missing column " + id);
+        return data;
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) values[i] = in.readUTF();
+        return values;
+    }
+
+    // ==============================
+    // ✍️ Encoding
+    // ==============================
+
+    /** Accumulates rows (already sorted by user, then time) into compressed column buffers. */
+    static final class Writer {
+        private final Map<String, Integer> topicDict = new LinkedHashMap<>();
+        private final Map<String, Integer> difficultyDict = new LinkedHashMap<>();
+        private final ByteArrayOutputStream user = new ByteArrayOutputStream(1 << 16);
+        private final ByteArrayOutputStream time = new ByteArrayOutputStream(1 << 16);
+        private final ByteArrayOutputStream topic = new ByteArrayOutputStream(1 << 16);
+        private final ByteArrayOutputStream difficulty = new ByteArrayOutputStream(1 << 14);
+        private final ByteArrayOutputStream score = new ByteArrayOutputStream(1 << 16);
+        private final ByteArrayOutputStream timeTaken = new ByteArrayOutputStream(1 << 16);
+        private long lastUser;
+        private long lastTime;
+        private int rows;
+
+        void add(long userId, long epochSecond, String topicName, String difficultyName, int scoreValue, int seconds) {
+            Varints.write(user, Varints.zigzag(userId - lastUser));
+            Varints.write(time, Varints.zigzag(epochSecond - lastTime));
+            Varints.write(topic, code(topicDict, topicName));
+            Varints.write(difficulty, code(difficultyDict, difficultyName));
+            score.write(Math.max(0, Math.min(100, scoreValue)));
+            Varints.write(timeTaken, Math.max(0, seconds));
+            lastUser = userId;
+            lastTime = epochSecond;
+            rows++;
+        }
+
+        int rows() {
+            return rows;
+        }
+
+        void writeTo(OutputStream target, long takenAtMillis) throws IOException {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(takenAtMillis);
+            out.writeInt(rows);
+            writeDictionary(out, topicDict);
+            writeDictionary(out, difficultyDict);
+
+            out.writeInt(6);
+            writeColumn(out, COL_USER, user);
+            writeColumn(out, COL_TIME, time);
+            writeColumn(out, COL_TOPIC, topic);
+            writeColumn(out, COL_DIFFICULTY, difficulty);
+            writeColumn(out, COL_SCORE, score);
+            writeColumn(out, COL_TIME_TAKEN, timeTaken);
+            out.flush();
+        }
+
+        private static int code(Map<String, Integer> dict, String value) {
+            return dict.computeIfAbsent(value, v -> dict.size());
+        }
+
+        private static void writeDictionary(DataOutputStream out, Map<String, Integer> dict) throws IOException {
+            out.writeInt(dict.size());
+            for (String value : dict.keySet()) out.writeUTF(value); // insertion order == code order
+        }
+
+        private static void writeColumn(DataOutputStream out, byte id, ByteArrayOutputStream data) throws IOException {
+            out.writeByte(id);
+            out.writeInt(data.size());
+            data.writeTo(out);
+        }
+    }
+}
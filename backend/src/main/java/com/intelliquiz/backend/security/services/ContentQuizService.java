@@ -18,6 +18,8 @@ import java.util.stream.Collectors;
  * ContentQuizService
  * - Extracts text from uploaded PDF resources (local file system)
  * - Generates simple deterministic MCQs from extracted sentences
+ * - Labels each question with its calibrated difficulty (DifficultyCalibrationService) and
+ *   serves those closest to the requested difficulty first
  *
  * Note: this is an "NLP-ready" deterministic generator suitable for demo.
  * Later you can replace generateQuestionFromText() to call an LLM.
@@ -28,13 +30,16 @@ public class ContentQuizService {
     private static final Logger log = LoggerFactory.getLogger(ContentQuizService.class);
 
     private final ResourceRepository resourceRepository;
+    private final DifficultyCalibrationService calibrationService;
 
     // folder where files are stored; should match application.properties file.upload-dir
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
-    public ContentQuizService(ResourceRepository resourceRepository) {
+    public ContentQuizService(ResourceRepository resourceRepository,
+                              DifficultyCalibrationService calibrationService) {
         this.resourceRepository = resourceRepository;
+        this.calibrationService = calibrationService;
     }
 
     /**
@@ -110,10 +115,17 @@ public class ContentQuizService {
                 q.put("question", questionText);
                 q.put("options", options);
                 q.put("answer", correctAnswer);
+                // question ids are positions in the sampled document, so they stay stable across requests
+                q.put("difficulty", calibrationService.labelFor(topic, qid, difficulty));
 
                 questions.add(q);
             }
 
+            // stable: questions whose measured difficulty matches the request come first
+            double requested = AbilityService.location(difficulty);
+            questions.sort(Comparator.comparingDouble(
+                    q -> Math.abs(AbilityService.location((String) q.get("difficulty")) - requested)));
+
             log.info("Generated {} questions for topic '{}' using resource '{}'", questions.size(), topic, resource.getFileName());
             return questions;
 
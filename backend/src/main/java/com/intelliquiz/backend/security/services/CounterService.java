@@ -0,0 +1,266 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.DashboardCounter;
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.repository.DashboardCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CounterService
+ * - Live dashboard numbers (users by role, resources, classes, attempts and active users today)
+ * - Every counter is a striped LongAdder bumped by the write path after its transaction commits,
+ *   so dashboards read them in O(1) instead of running COUNT(*) queries
+ * - Values are checkpointed to dashboard_counters periodically and reloaded at startup;
+ *   a nightly reconcile recomputes them from the source tables to remove any drift
+ *
+ * "Today" counters are rebuilt from the current day's quiz_attempts at startup (an indexed range).
+ * They live in one immutable per-day holder that is swapped atomically at midnight, so a
+ * submission bumps them without taking a lock.
+ */
+@Slf4j
+@Service
+public class CounterService {
+
+    public static final String USERS_TOTAL = "users.total";
+    public static final String RESOURCES_TOTAL = "resources.total";
+    public static final String CLASSES_TOTAL = "classes.total";
+
+    private static final String CHECKPOINT_SQL =
+            "INSERT INTO dashboard_counters (name, value, updated_at) " +
+            "SELECT n, v, ? FROM unnest(?::varchar[], ?::bigint[]) AS c(n, v) " +
+            "ON CONFLICT (name) DO UPDATE SET value = EXCLUDED.value, updated_at = EXCLUDED.updated_at";
+
+    private final DashboardCounterRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /** One day's attempt count and distinct users; replaced as a whole when the date changes. */
+    private record Day(LocalDate date, LongAdder attempts, Set<Long> active) {
+        Day(LocalDate date) {
+            this(date, new LongAdder(), ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    private final AtomicReference<Day> today = new AtomicReference<>(new Day(LocalDate.now()));
+
+    public CounterService(DashboardCounterRepository repository, JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ==============================
+    // ✍️ Write hooks
+    // ==============================
+
+    public void userRegistered(Collection<ERole> roles) {
+        afterCommit(() -> {
+            add(USERS_TOTAL, 1);
+            for (ERole role : roles) add(roleKey(role), 1);
+        });
+    }
+
+    public void resourceAdded(Long uploaderId) {
+        afterCommit(() -> {
+            add(RESOURCES_TOTAL, 1);
+            add(userKey(uploaderId, "resources"), 1);
+        });
+    }
+
+    public void resourceRemoved(Long uploaderId) {
+        afterCommit(() -> {
+            add(RESOURCES_TOTAL, -1);
+            add(userKey(uploaderId, "resources"), -1);
+        });
+    }
+
+    public void classroomCreated(Long teacherId) {
+        afterCommit(() -> {
+            add(CLASSES_TOTAL, 1);
+            add(userKey(teacherId, "classes"), 1);
+        });
+    }
+
+    public void studentsChanged(Long teacherId, int delta) {
+        if (delta != 0) afterCommit(() -> add(userKey(teacherId, "students"), delta));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        Day day = currentDay();
+        day.attempts().increment();
+        day.active().add(event.userId());
+    }
+
+    // ==============================
+    // 📊 Reads
+    // ==============================
+
+    public long get(String name) {
+        LongAdder adder = counters.get(name);
+        return adder == null ? 0L : adder.sum();
+    }
+
+    public long usersWithRole(ERole role) {
+        return get(roleKey(role));
+    }
+
+    /** Per-user counter, e.g. {@code forUser(teacherId, "resources")}. */
+    public long forUser(Long userId, String what) {
+        return get(userKey(userId, what));
+    }
+
+    public long attemptsToday() {
+        return currentDay().attempts().sum();
+    }
+
+    public long activeUsersToday() {
+        return currentDay().active().size();
+    }
+
+    // ==============================
+    // 💾 Checkpoint / reload
+    // ==============================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<DashboardCounter> saved = repository.findAll();
+        if (saved.isEmpty()) {
+            reconcile();
+        } else {
+            saved.forEach(c -> set(c.getName(), c.getValue()));
+            log.info("🔢 Loaded {} dashboard counters from checkpoint", saved.size());
+        }
+        loadToday();
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.checkpoint-ms:60000}",
+            initialDelayString = "${app.counters.checkpoint-ms:60000}")
+    public void checkpoint() {
+        if (counters.isEmpty()) return;
+        String[] names = new String[counters.size()];
+        Long[] values = new Long[counters.size()];
+        int i = 0;
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+            if (i == names.length) break; // a counter appeared mid-iteration; next checkpoint takes it
+            names[i] = e.getKey();
+            values[i] = e.getValue().sum();
+            i++;
+        }
+        int n = i;
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(CHECKPOINT_SQL);
+            ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setArray(2, con.createArrayOf("varchar", Arrays.copyOf(names, n)));
+            ps.setArray(3, con.createArrayOf("bigint", Arrays.copyOf(values, n)));
+            return ps;
+        });
+        log.debug("💾 Checkpointed {} dashboard counters", n);
+    }
+
+    /**
+     * Recomputes every counter from the source tables (one grouped query each), then checkpoints.
+     * Increments racing with the reset may be lost; the next reconcile corrects them.
+     */
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        Map<String, Long> fresh = new HashMap<>();
+        fresh.put(USERS_TOTAL, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class));
+        fresh.put(RESOURCES_TOTAL, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resources", Long.class));
+        fresh.put(CLASSES_TOTAL, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM classrooms", Long.class));
+        for (ERole role : ERole.values()) fresh.put(roleKey(role), 0L);
+
+        jdbcTemplate.query("SELECT r.name, COUNT(*) FROM user_roles ur JOIN roles r ON r.id = ur.role_id GROUP BY r.name",
+                rs -> { fresh.put("users.role." + rs.getString(1), rs.getLong(2)); });
+        jdbcTemplate.query("SELECT uploader_id, COUNT(*) FROM resources GROUP BY uploader_id",
+                rs -> { fresh.put(userKey(rs.getLong(1), "resources"), rs.getLong(2)); });
+        jdbcTemplate.query("SELECT teacher_id, COUNT(*) FROM classrooms GROUP BY teacher_id",
+                rs -> { fresh.put(userKey(rs.getLong(1), "classes"), rs.getLong(2)); });
+        jdbcTemplate.query("SELECT c.teacher_id, COUNT(*) FROM classroom_members m " +
+                        "JOIN classrooms c ON c.id = m.classroom_id GROUP BY c.teacher_id",
+                rs -> { fresh.put(userKey(rs.getLong(1), "students"), rs.getLong(2)); });
+
+        counters.keySet().forEach(name -> fresh.putIfAbsent(name, 0L));
+        fresh.forEach(this::set);
+        checkpoint();
+        log.info("🔢 Reconciled {} dashboard counters from source tables", fresh.size());
+    }
+
+    private void loadToday() {
+        LocalDate day = LocalDate.now();
+        Set<Long> active = ConcurrentHashMap.newKeySet();
+        long[] attempts = {0};
+        jdbcTemplate.query("SELECT user_id FROM quiz_attempts WHERE created_at >= ?",
+                rs -> {
+                    active.add(rs.getLong(1));
+                    attempts[0]++;
+                }, Timestamp.valueOf(day.atStartOfDay()));
+        LongAdder count = new LongAdder();
+        count.add(attempts[0]);
+        today.set(new Day(day, count, active));
+        log.info("🔢 Today so far: {} attempts by {} users", attempts[0], active.size());
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    private void add(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    private void set(String name, long value) {
+        LongAdder adder = counters.computeIfAbsent(name, k -> new LongAdder());
+        adder.reset();
+        adder.add(value);
+    }
+
+    /** Today's holder, starting a fresh one when the date has moved on (the first caller to see it wins). */
+    private Day currentDay() {
+        Day day = today.get();
+        LocalDate now = LocalDate.now();
+        if (!now.isAfter(day.date())) return day;
+        Day fresh = new Day(now);
+        return today.compareAndSet(day, fresh) ? fresh : today.get();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String roleKey(ERole role) {
+        return "users.role." + role.name();
+    }
+
+    private static String userKey(Long userId, String what) {
+        return "user." + userId + "." + what;
+    }
+}
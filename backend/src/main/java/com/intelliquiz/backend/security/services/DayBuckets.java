@@ -0,0 +1,70 @@
+package com.intelliquiz.backend.security.services;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Rolling per-user day counters: the last {@code days} daily totals per user in one flat int array.
+ * A user's ring is indexed by epoch day modulo {@code days}; slots for days older than the
+ * user's latest write are treated as empty, so expiry needs no sweep.
+ * Not thread-safe; callers synchronize.
+ */
+final class DayBuckets {
+
+    private final int days;
+    private final LongSlotIndex index = new LongSlotIndex(1024);
+    private long[] users = new long[1024];
+    private int[] lastDay = new int[1024];
+    private int[] counts;
+
+    DayBuckets(int days) {
+        this.days = days;
+        this.counts = new int[1024 * days];
+    }
+
+    int days() {
+        return days;
+    }
+
+    void add(long user, int day, int delta) {
+        int slot = index.getOrAdd(user);
+        if (slot >= users.length) {
+            users = LongSlotIndex.fit(users, index.size());
+            lastDay = LongSlotIndex.fit(lastDay, index.size());
+        }
+        if (counts.length < users.length * days) counts = Arrays.copyOf(counts, users.length * days);
+        users[slot] = user;
+
+        int base = slot * days;
+        int last = lastDay[slot];
+        if (last == 0) {
+            Arrays.fill(counts, base, base + days, 0);
+            last = day - days;
+        }
+        if (day <= last - days) return; // older than anything we keep
+        for (int d = last + 1; d <= day && d <= last + days; d++) {
+            counts[base + Math.floorMod(d, days)] = 0;
+        }
+        if (day > last) lastDay[slot] = day;
+        counts[base + Math.floorMod(day, days)] += delta;
+    }
+
+    /** Sum of the {@code window} days ending at {@code today}, inclusive. */
+    int sum(long user, int today, int window) {
+        int slot = index.get(user);
+        return slot < 0 ? 0 : sumSlot(slot, today, window);
+    }
+
+    void forEachUser(LongConsumer consumer) {
+        for (int slot = 0; slot < index.size(); slot++) consumer.accept(users[slot]);
+    }
+
+    private int sumSlot(int slot, int today, int window) {
+        int last = lastDay[slot];
+        int from = Math.max(today - Math.min(window, days) + 1, last - days + 1);
+        int to = Math.min(today, last);
+        int total = 0;
+        for (int d = from; d <= to; d++) total += counts[slot * days + Math.floorMod(d, days)];
+        return total;
+    }
+}
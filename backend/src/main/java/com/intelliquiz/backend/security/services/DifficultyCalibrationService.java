@@ -0,0 +1,407 @@
+package com.intelliquiz.backend.security.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * DifficultyCalibrationService
+ * - Measures how hard each generated question (topic, questionId) and each topic really is,
+ *   from every stored answer: difficulty is the share answered correctly (classical p-value),
+ *   discrimination the correlation between getting the item right and the rest of the attempt
+ *   (corrected item-total point-biserial)
+ * - Answers are loaded once into primitive columns, then accumulated in parallel: each
+ *   fork-join task sums a slice of rows into its own per-item arrays and the slices are merged
+ * - The result is an immutable lookup table (open-addressing index + float arrays) swapped in
+ *   atomically, so ContentQuizService reads it in O(1) without locks or queries
+ *
+ * Items with fewer than {@code app.calibration.min-responses} answers get no label; callers
+ * fall back to the topic, then to the requested difficulty.
+ */
+@Slf4j
+@Service
+public class DifficultyCalibrationService {
+
+    // p-value thresholds for the easy / medium / hard labels
+    static final double EASY_ABOVE = 0.75;
+    static final double HARD_BELOW = 0.45;
+
+    private static final int TOPIC_BITS = 24;
+    private static final int MIN_ROWS_PER_TASK = 8192;
+
+    private static final String ANSWERS_SQL =
+            "SELECT q.topic, a.question_id, a.correct, " +
+            "SUM(CASE WHEN a.correct THEN 1 ELSE 0 END) OVER w, COUNT(*) OVER w " +
+            "FROM attempt_answers a JOIN quiz_attempts q ON q.id = a.attempt_id " +
+            "WINDOW w AS (PARTITION BY a.attempt_id)";
+
+    /** Calibrated values for one item or topic; {@code label} is null below the sample threshold. */
+    public record Calibration(double pCorrect, double discrimination, int responses, String label) {}
+
+    private final TopicRegistry topicRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final int minResponses;
+    private final int fetchSize;
+
+    private final Object runLock = new Object();
+    private volatile Table table = Table.EMPTY;
+
+    public DifficultyCalibrationService(TopicRegistry topicRegistry,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${app.calibration.min-responses:30}") int minResponses,
+                                        @Value("${app.calibration.fetch-size:5000}") int fetchSize) {
+        this.topicRegistry = topicRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.minResponses = Math.max(1, minResponses);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // ==============================
+    // 🔎 Lookups (O(1), lock-free)
+    // ==============================
+
+    /** Calibration of a generated question, or null when it has never been answered. */
+    public Calibration item(String topic, int questionId) {
+        Table t = table;
+        int topicId = topicRegistry.peekId(topic);
+        if (topicId < 0) return null;
+        int slot = t.items.get(itemKey(topicId, questionId));
+        return slot < 0 ? null : t.item(slot, minResponses);
+    }
+
+    /** Calibration of a whole topic, or null when none of its questions has been answered. */
+    public Calibration topic(String topic) {
+        Table t = table;
+        int topicId = topicRegistry.peekId(topic);
+        if (topicId < 0 || topicId >= t.topicResponses.length || t.topicResponses[topicId] == 0) return null;
+        return t.topic(topicId, minResponses);
+    }
+
+    /** Label for a question: its own calibration, else its topic's, else {@code fallback}. */
+    public String labelFor(String topic, int questionId, String fallback) {
+        Calibration c = item(topic, questionId);
+        if (c != null && c.label() != null) return c.label();
+        c = topic(topic);
+        return c != null && c.label() != null ? c.label() : fallback;
+    }
+
+    // ==============================
+    // 🔄 Calibration job
+    // ==============================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            recalibrate();
+        } catch (RuntimeException e) {
+            log.error("❌ Initial difficulty calibration failed: {}", e.getMessage());
+        }
+    }
+
+    /** Reloads every answer and swaps in a freshly computed table. */
+    @Scheduled(cron = "${app.calibration.cron:0 15 2 * * *}")
+    public Map<String, Object> recalibrate() {
+        synchronized (runLock) {
+            long started = System.currentTimeMillis();
+            Responses responses = new Responses();
+            Map<String, Integer> topicIds = new HashMap<>();
+            int[] unknown = {0};
+
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(ANSWERS_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, rs -> {
+                // peek only: the cursor runs in a read-only transaction, and every submitted topic was
+                // registered when its attempt was saved
+                int topicId = topicIds.computeIfAbsent(TopicRegistry.normalize(rs.getString(1)), topicRegistry::peekId);
+                if (topicId < 0) {
+                    unknown[0]++;
+                    return;
+                }
+                boolean correct = rs.getBoolean(3);
+                int attemptCorrect = rs.getInt(4);
+                int attemptTotal = rs.getInt(5);
+                float rest = attemptTotal > 1
+                        ? (float) (attemptCorrect - (correct ? 1 : 0)) / (attemptTotal - 1)
+                        : Float.NaN; // single-question attempts say nothing about discrimination
+                responses.add(topicId, rs.getInt(2), correct, rest);
+            }));
+
+            Table built = build(responses, ForkJoinPool.commonPool().getParallelism(), started);
+            table = built;
+            log.info("🎚️ Difficulty calibrated: {} items over {} answers in {} ms",
+                    built.items.size(), responses.size, System.currentTimeMillis() - started);
+            if (unknown[0] > 0) log.warn("⚠️ Skipped {} answers on topics missing from the topic dictionary", unknown[0]);
+            return summary(null);
+        }
+    }
+
+    /** Topic calibrations (or one topic with its items) from the current table. */
+    public Map<String, Object> summary(String topic) {
+        Table t = table;
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("calibratedAt", t.builtAtMillis == 0 ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(t.builtAtMillis), ZoneId.systemDefault()).toString());
+        response.put("answers", t.answers);
+        response.put("items", t.items.size());
+        response.put("minResponses", minResponses);
+
+        List<Map<String, Object>> topics = new ArrayList<>();
+        int only = topic == null ? -1 : topicRegistry.peekId(topic);
+        for (int id = 0; id < t.topicResponses.length; id++) {
+            if (t.topicResponses[id] == 0 || (topic != null && id != only)) continue;
+            Map<String, Object> row = describe(t.topic(id, minResponses));
+            row.put("topic", topicRegistry.nameOf(id));
+            topics.add(row);
+        }
+        response.put("topics", topics);
+
+        if (topic != null && only >= 0) {
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (int slot = 0; slot < t.items.size(); slot++) {
+                if ((int) (t.itemKeys[slot] >>> TOPIC_BITS) != only) continue;
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("questionId", (int) (t.itemKeys[slot] & ((1L << TOPIC_BITS) - 1)) - 1);
+                row.putAll(describe(t.item(slot, minResponses)));
+                items.add(row);
+            }
+            items.sort(Comparator.comparingInt(r -> (Integer) r.get("questionId")));
+            response.put("questions", items);
+        }
+        return response;
+    }
+
+    // ==============================
+    // 🧮 Parallel computation
+    // ==============================
+
+    /** Answers as parallel primitive columns. */
+    static final class Responses {
+        int[] topicIds = new int[1024];
+        int[] questionIds = new int[1024];
+        boolean[] correct = new boolean[1024];
+        float[] rest = new float[1024]; // share correct among the attempt's other answers, NaN if none
+        int size;
+
+        void add(int topicId, int questionId, boolean isCorrect, float restScore) {
+            if (size == topicIds.length) {
+                int capacity = size * 2;
+                topicIds = Arrays.copyOf(topicIds, capacity);
+                questionIds = Arrays.copyOf(questionIds, capacity);
+                correct = Arrays.copyOf(correct, capacity);
+                rest = Arrays.copyOf(rest, capacity);
+            }
+            topicIds[size] = topicId;
+            questionIds[size] = questionId;
+            correct[size] = isCorrect;
+            rest[size] = restScore;
+            size++;
+        }
+    }
+
+    /** Per-item running sums for one slice of rows; slices merge by addition. */
+    private static final class Sums {
+        final long[] n;
+        final long[] right;
+        final long[] pairs;   // rows with a rest score
+        final double[] x;     // Σ correct over pairs
+        final double[] y;     // Σ rest
+        final double[] xy;
+        final double[] yy;
+
+        Sums(int groups) {
+            n = new long[groups];
+            right = new long[groups];
+            pairs = new long[groups];
+            x = new double[groups];
+            y = new double[groups];
+            xy = new double[groups];
+            yy = new double[groups];
+        }
+
+        Sums merge(Sums o) {
+            for (int g = 0; g < n.length; g++) {
+                n[g] += o.n[g];
+                right[g] += o.right[g];
+                pairs[g] += o.pairs[g];
+                x[g] += o.x[g];
+                y[g] += o.y[g];
+                xy[g] += o.xy[g];
+                yy[g] += o.yy[g];
+            }
+            return this;
+        }
+    }
+
+    static Table build(Responses r, int parallelism, long builtAtMillis) {
+        // dense item numbers (sequential: the index is not thread-safe)
+        LongSlotIndex items = new LongSlotIndex(Math.max(16, r.size / 64));
+        int[] group = new int[r.size];
+        int maxTopic = -1;
+        for (int i = 0; i < r.size; i++) {
+            group[i] = items.getOrAdd(itemKey(r.topicIds[i], r.questionIds[i]));
+            maxTopic = Math.max(maxTopic, r.topicIds[i]);
+        }
+        int groups = items.size();
+
+        int tasks = Math.max(1, Math.min(parallelism, r.size / MIN_ROWS_PER_TASK));
+        int slice = (r.size + tasks - 1) / tasks;
+        Sums total = IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> {
+                    Sums s = new Sums(groups);
+                    int end = Math.min(r.size, (task + 1) * slice);
+                    for (int i = task * slice; i < end; i++) {
+                        int g = group[i];
+                        double xi = r.correct[i] ? 1.0 : 0.0;
+                        s.n[g]++;
+                        s.right[g] += (long) xi;
+                        float yi = r.rest[i];
+                        if (Float.isNaN(yi)) continue;
+                        s.pairs[g]++;
+                        s.x[g] += xi;
+                        s.y[g] += yi;
+                        s.xy[g] += xi * yi;
+                        s.yy[g] += (double) yi * yi;
+                    }
+                    return s;
+                })
+                .reduce(Sums::merge)
+                .orElseGet(() -> new Sums(groups));
+
+        long[] keys = new long[groups];
+        float[] p = new float[groups];
+        float[] d = new float[groups];
+        int[] responses = new int[groups];
+        for (int i = 0; i < r.size; i++) keys[group[i]] = itemKey(r.topicIds[i], r.questionIds[i]);
+
+        int topics = maxTopic + 1;
+        long[] topicN = new long[topics];
+        long[] topicRight = new long[topics];
+        double[] topicWeightedD = new double[topics];
+        long[] topicPairs = new long[topics];
+        for (int g = 0; g < groups; g++) {
+            responses[g] = (int) Math.min(Integer.MAX_VALUE, total.n[g]);
+            p[g] = total.n[g] == 0 ? 0f : (float) total.right[g] / total.n[g];
+            d[g] = (float) correlation(total.pairs[g], total.x[g], total.y[g], total.xy[g], total.yy[g]);
+
+            int topic = (int) (keys[g] >>> TOPIC_BITS);
+            topicN[topic] += total.n[g];
+            topicRight[topic] += total.right[g];
+            topicWeightedD[topic] += (double) d[g] * total.pairs[g];
+            topicPairs[topic] += total.pairs[g];
+        }
+
+        float[] topicP = new float[topics];
+        float[] topicD = new float[topics];
+        int[] topicResponses = new int[topics];
+        for (int t = 0; t < topics; t++) {
+            if (topicN[t] == 0) continue;
+            topicP[t] = (float) topicRight[t] / topicN[t];
+            topicD[t] = topicPairs[t] == 0 ? 0f : (float) (topicWeightedD[t] / topicPairs[t]);
+            topicResponses[t] = (int) Math.min(Integer.MAX_VALUE, topicN[t]);
+        }
+        return new Table(items, keys, p, d, responses, topicP, topicD, topicResponses, r.size, builtAtMillis);
+    }
+
+    /** Pearson correlation from sums (0 when either side has no variance). */
+    static double correlation(long n, double x, double y, double xy, double yy) {
+        if (n < 2) return 0.0;
+        double mx = x / n;
+        double my = y / n;
+        double cov = xy / n - mx * my;
+        double vx = mx * (1 - mx); // x is 0/1, so Σx² = Σx
+        double vy = yy / n - my * my;
+        if (vx <= 1e-12 || vy <= 1e-12) return 0.0;
+        return Math.max(-1.0, Math.min(1.0, cov / Math.sqrt(vx * vy)));
+    }
+
+    static String label(double pCorrect) {
+        if (pCorrect >= EASY_ABOVE) return "easy";
+        if (pCorrect < HARD_BELOW) return "hard";
+        return "medium";
+    }
+
+    // ==============================
+    // 📋 Lookup table
+    // ==============================
+
+    /** Immutable once published; readers never lock. */
+    static final class Table {
+        static final Table EMPTY = new Table(new LongSlotIndex(16), new long[0], new float[0], new float[0],
+                new int[0], new float[0], new float[0], new int[0], 0, 0L);
+
+        final LongSlotIndex items;
+        final long[] itemKeys;
+        final float[] itemP;
+        final float[] itemD;
+        final int[] itemResponses;
+        final float[] topicP;        // indexed by topic id
+        final float[] topicD;
+        final int[] topicResponses;
+        final long answers;
+        final long builtAtMillis;
+
+        Table(LongSlotIndex items, long[] itemKeys, float[] itemP, float[] itemD, int[] itemResponses,
+              float[] topicP, float[] topicD, int[] topicResponses, long answers, long builtAtMillis) {
+            this.items = items;
+            this.itemKeys = itemKeys;
+            this.itemP = itemP;
+            this.itemD = itemD;
+            this.itemResponses = itemResponses;
+            this.topicP = topicP;
+            this.topicD = topicD;
+            this.topicResponses = topicResponses;
+            this.answers = answers;
+            this.builtAtMillis = builtAtMillis;
+        }
+
+        Calibration item(int slot, int minResponses) {
+            int n = itemResponses[slot];
+            return new Calibration(itemP[slot], itemD[slot], n, n >= minResponses ? label(itemP[slot]) : null);
+        }
+
+        Calibration topic(int topicId, int minResponses) {
+            int n = topicResponses[topicId];
+            return new Calibration(topicP[topicId], topicD[topicId], n, n >= minResponses ? label(topicP[topicId]) : null);
+        }
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    static long itemKey(int topicId, int questionId) {
+        // +1 keeps topic 0 / question 0 away from the index's reserved 0 key
+        return ((long) topicId << TOPIC_BITS) | ((questionId + 1L) & ((1L << TOPIC_BITS) - 1));
+    }
+
+    private static Map<String, Object> describe(Calibration c) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("pCorrect", Math.round(c.pCorrect() * 1000.0) / 1000.0);
+        row.put("discrimination", Math.round(c.discrimination() * 1000.0) / 1000.0);
+        row.put("responses", c.responses());
+        row.put("label", c.label());
+        return row;
+    }
+}
@@ -0,0 +1,241 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ExportService
+ * - Streams quiz attempts for a classroom (or, for admins, everyone) as CSV or NDJSON
+ * - Rows come from a forward-only cursor with a fixed fetch size inside a read-only transaction
+ *   and are written to the output stream as they arrive, so memory does not grow with the export
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Unknown export format: " + value + " (use csv or ndjson)");
+            }
+        }
+    }
+
+    private static final String[] COLUMNS =
+            {"attemptId", "userId", "username", "topic", "difficulty", "score", "timeTakenSeconds", "createdAt"};
+
+    private final ClassroomService classroomService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ExportService(ClassroomService classroomService,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${app.export.fetch-size:2000}") int fetchSize) {
+        this.classroomService = classroomService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /** Teachers may export their own classrooms; exporting every attempt is admin-only. */
+    public void authorize(Long classroomId, User requester) {
+        if (classroomId != null) {
+            classroomService.requireManageable(classroomId, requester);
+            return;
+        }
+        boolean admin = requester.getRoles().stream().anyMatch(r -> r.getName() == ERole.ROLE_ADMIN);
+        if (!admin) throw new AccessDeniedException("A classroomId is required to export attempts");
+    }
+
+    /**
+     * Writes every matching attempt (ordered by student, then time) to {@code out}.
+     * {@code from} and {@code to} are inclusive calendar days; either may be null.
+     *
+     * @return number of rows written
+     */
+    public long writeAttempts(Long classroomId, LocalDate from, LocalDate to, Format format, OutputStream out) {
+        if (from != null && to != null && from.isAfter(to)) throw new BadRequestException("'from' is after 'to'");
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT q.id, q.user_id, u.username, q.topic, q.difficulty_level, q.score, q.time_taken, q.created_at " +
+                "FROM quiz_attempts q JOIN users u ON u.id = q.user_id ");
+        List<Object> args = new ArrayList<>();
+        if (classroomId != null) {
+            sql.append("JOIN classroom_members m ON m.user_id = q.user_id AND m.classroom_id = ? ");
+            args.add(classroomId);
+        }
+        sql.append("WHERE 1 = 1 ");
+        if (from != null) {
+            sql.append("AND q.created_at >= ? ");
+            args.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append("AND q.created_at < ? ");
+            args.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        sql.append("ORDER BY q.user_id, q.created_at, q.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long[] count = {0};
+        long started = System.currentTimeMillis();
+
+        try {
+            RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer, objectMapper);
+            rows.begin();
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+                return ps;
+            }, rs -> {
+                Timestamp at = rs.getTimestamp(8);
+                try {
+                    rows.write(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                            rs.getInt(6), rs.getInt(7), at != null ? at.toLocalDateTime().toString() : null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // client went away: abort the query
+                }
+                count[0]++;
+            }));
+            rows.end();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("📤 Exported {} attempts as {} (classroom {}) in {} ms",
+                count[0], format, classroomId, System.currentTimeMillis() - started);
+        return count[0];
+    }
+
+    // ==============================
+    // ✍️ Row writers
+    // ==============================
+
+    private interface RowWriter {
+        void begin() throws IOException;
+
+        void write(long attemptId, long userId, String username, String topic, String difficulty,
+                   int score, int timeTaken, String createdAt) throws IOException;
+
+        void end() throws IOException;
+    }
+
+    private record CsvRowWriter(Writer out) implements RowWriter {
+
+        public void begin() throws IOException {
+            out.write(String.join(",", COLUMNS));
+            out.write("\r\n");
+        }
+
+        public void write(long attemptId, long userId, String username, String topic, String difficulty,
+                          int score, int timeTaken, String createdAt) throws IOException {
+            out.write(Long.toString(attemptId));
+            out.write(',');
+            out.write(Long.toString(userId));
+            out.write(',');
+            out.write(csv(username));
+            out.write(',');
+            out.write(csv(topic));
+            out.write(',');
+            out.write(csv(difficulty));
+            out.write(',');
+            out.write(Integer.toString(score));
+            out.write(',');
+            out.write(Integer.toString(timeTaken));
+            out.write(',');
+            out.write(createdAt != null ? createdAt : "");
+            out.write("\r\n");
+        }
+
+        public void end() {
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final Writer out;
+        private final JsonGenerator json;
+        private boolean any;
+
+        NdjsonRowWriter(Writer out, ObjectMapper mapper) throws IOException {
+            this.out = out;
+            this.json = mapper.getFactory().createGenerator(out);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        public void begin() {
+        }
+
+        public void write(long attemptId, long userId, String username, String topic, String difficulty,
+                          int score, int timeTaken, String createdAt) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField(COLUMNS[0], attemptId);
+            json.writeNumberField(COLUMNS[1], userId);
+            json.writeStringField(COLUMNS[2], username);
+            json.writeStringField(COLUMNS[3], topic);
+            json.writeStringField(COLUMNS[4], difficulty);
+            json.writeNumberField(COLUMNS[5], score);
+            json.writeNumberField(COLUMNS[6], timeTaken);
+            json.writeStringField(COLUMNS[7], createdAt);
+            json.writeEndObject();
+            any = true;
+        }
+
+        public void end() throws IOException {
+            json.flush();
+            if (any) out.write('\n');
+        }
+    }
+
+    /** RFC 4180 quoting, plus a leading apostrophe so spreadsheets never evaluate a cell as a formula. */
+    static String csv(String value) {
+        if (value == null || value.isEmpty()) return "";
+        String v = value;
+        char first = v.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') v = "'" + v;
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) return v;
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,72 @@
+package com.intelliquiz.backend.security.services;
+
+/**
+ * Count-min sketch of 4-bit counters used as the TinyLFU popularity estimate.
+ * Counters are halved every {@code sampleSize} increments so old popularity fades.
+ * Not thread-safe; {@link TinyLfuCache} guards it.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;   // 16 four-bit counters per long
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int longs = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1); // next power of two
+        this.table = new long[longs];
+        this.mask = longs * 16 - 1;
+        this.sampleSize = Math.max(10, capacity * 10);
+    }
+
+    int frequency(Object key) {
+        int h = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            min = Math.min(min, get(index(h, i)));
+        }
+        return min;
+    }
+
+    void increment(Object key) {
+        int h = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int idx = index(h, i);
+            if (get(idx) < MAX_COUNT) {
+                table[idx >>> 4] += 1L << ((idx & 15) << 2);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int get(int idx) {
+        return (int) ((table[idx >>> 4] >>> ((idx & 15) << 2)) & 0xF);
+    }
+
+    private int index(int h, int i) {
+        long x = (h + SEEDS[i]) * SEEDS[i];
+        x ^= x >>> 32;
+        return (int) x & mask;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        h ^= h >>> 11;
+        return h;
+    }
+}
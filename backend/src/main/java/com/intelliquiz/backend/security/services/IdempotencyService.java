@@ -0,0 +1,203 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.IdempotencyRecord;
+import com.intelliquiz.backend.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * IdempotencyService
+ * - Deduplicates retried quiz submissions carrying the same Idempotency-Key
+ * - A Bloom filter answers "never seen" in memory, so first-time keys go straight to the claim INSERT
+ * - Completed responses are replayed from a bounded in-memory cache (UTF-8 JSON bytes), then the table,
+ *   until they are ttl-hours old
+ * - A claim is a lease: if its request has not completed after lease-minutes (the instance died
+ *   mid-request), the next retry takes the key over instead of getting IN_FLIGHT forever
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    public enum Outcome { NEW, REPLAY, IN_FLIGHT }
+
+    public record Claim(Outcome outcome, Map<String, Object> response) {
+        static Claim fresh() { return new Claim(Outcome.NEW, null); }
+        static Claim inFlight() { return new Claim(Outcome.IN_FLIGHT, null); }
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+
+    private final long expectedKeys;
+    private final int ttlHours;
+    private final int leaseMinutes;
+    private final Map<String, Stored> responseCache;
+
+    private volatile BloomFilter seen;
+
+    private record Stored(byte[] json, LocalDateTime createdAt) {}
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.expected-keys:100000}") long expectedKeys,
+                              @Value("${app.idempotency.ttl-hours:24}") int ttlHours,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${app.idempotency.lease-minutes:5}") int leaseMinutes) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.expectedKeys = expectedKeys;
+        this.ttlHours = ttlHours;
+        this.leaseMinutes = leaseMinutes;
+        this.responseCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.seen = new BloomFilter(expectedKeys, 0.01);
+    }
+
+    /**
+     * Claims a key for this user. NEW means the caller must process the request and then
+     * call {@link #complete} (or {@link #release} on failure).
+     */
+    public Claim claim(Long userId, String key) {
+        validate(key);
+        String id = userId + ":" + key;
+
+        if (seen.mightContain(id)) {
+            Claim existing = lookup(id);
+            if (existing != null) return existing;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = repository.claim(id, userId, now, now.minusMinutes(leaseMinutes), now.minusHours(ttlHours));
+        seen.put(id);
+        if (claimed == 1) {
+            responseCache.remove(id); // a taken-over expired key must not replay its old response
+            return Claim.fresh();
+        }
+
+        // Lost a race with a concurrent retry (or a Bloom false negative after a rebuild)
+        Claim existing = lookup(id);
+        return existing != null ? existing : Claim.inFlight();
+    }
+
+    /**
+     * Stores the response for replay. The submission itself is already committed, so a failure here
+     * is logged rather than thrown (releasing the key would let a retry score the quiz twice); this
+     * instance still replays from memory, and other instances see the claim as in flight until its
+     * lease runs out.
+     */
+    public void complete(Long userId, String key, Map<String, Object> response) {
+        String id = userId + ":" + key;
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(response);
+        } catch (Exception e) {
+            log.error("⚠️ Could not serialize idempotent response for key {}: {}", id, e.getMessage());
+            return;
+        }
+        responseCache.put(id, new Stored(json, LocalDateTime.now()));
+        try {
+            if (repository.complete(id, new String(json, StandardCharsets.UTF_8)) == 0) {
+                log.warn("⚠️ Idempotency key {} vanished before its response was stored", id);
+            }
+        } catch (Exception e) {
+            log.error("⚠️ Could not store idempotent response for key {}: {}", id, e.getMessage());
+        }
+    }
+
+    /** Drops a claim whose request failed, so the client's retry is processed normally. */
+    public void release(Long userId, String key) {
+        String id = userId + ":" + key;
+        try {
+            repository.deleteById(id);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release idempotency key {}: {}", id, e.getMessage());
+        }
+    }
+
+    // ==============================
+    // 🧹 Maintenance
+    // ==============================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildFilter();
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = repository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        if (purged > 0) {
+            log.info("🧹 Purged {} expired idempotency keys", purged);
+            rebuildFilter();
+        }
+    }
+
+    private void rebuildFilter() {
+        List<String> live = repository.findIdsCreatedAfter(LocalDateTime.now().minusHours(ttlHours));
+        BloomFilter fresh = new BloomFilter(Math.max(expectedKeys, live.size() * 2L), 0.01);
+        live.forEach(fresh::put);
+        seen = fresh;
+        log.info("🔑 Idempotency filter rebuilt with {} live keys", live.size());
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    /** The live outcome for a key, or null when the key is unknown, expired or its lease ran out. */
+    private Claim lookup(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiredBefore = now.minusHours(ttlHours);
+
+        Stored cached = responseCache.get(id);
+        if (cached != null) {
+            if (!cached.createdAt().isBefore(expiredBefore)) return new Claim(Outcome.REPLAY, decode(cached.json()));
+            responseCache.remove(id);
+        }
+
+        Optional<IdempotencyRecord> record = repository.findById(id);
+        if (record.isEmpty()) return null;
+        LocalDateTime createdAt = record.get().getCreatedAt();
+        if (createdAt != null && createdAt.isBefore(expiredBefore)) return null;
+        if (record.get().getResponse() == null) {
+            boolean abandoned = createdAt != null && createdAt.isBefore(now.minusMinutes(leaseMinutes));
+            return abandoned ? null : Claim.inFlight();
+        }
+
+        byte[] json = record.get().getResponse().getBytes(StandardCharsets.UTF_8);
+        responseCache.put(id, new Stored(json, createdAt != null ? createdAt : now));
+        return new Claim(Outcome.REPLAY, decode(json));
+    }
+
+    private Map<String, Object> decode(byte[] json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new RuntimeException("Corrupt idempotent response: " + e.getMessage());
+        }
+    }
+
+    private static void validate(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.PointsChangedEvent;
+import com.intelliquiz.backend.event.RecomputeFinishedEvent;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.repository.UserPointsDailyRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * LeaderboardService
+ * - All-time ranking held in memory as an order-statistic tree keyed by (points DESC, userId ASC)
+ * - Daily / weekly / monthly rankings each get their own tree, fed by rolling per-user day buckets
+ *   (user_points_daily is the backing store, written by PointsLedgerService in the same
+ *   transaction as the points)
+ * - Loaded from compact projections at startup, then updated from every committed PointsChangedEvent
+ * - Top-K, "my rank" and neighbours are O(log n + k) for every window; only the K displayed
+ *   profiles are read from users
+ * - Deep pages use keyset cursors on (points DESC, id): in memory for the global windows,
+ *   and over idx_users_points_id for role- and classroom-scoped boards
+ */
+@Slf4j
+@Service
+public class LeaderboardService {
+
+    public enum Window {
+        ALL(0), DAY(1), WEEK(7), MONTH(30);
+
+        final int days;
+
+        Window(int days) {
+            this.days = days;
+        }
+
+        public static Window parse(String value) {
+            if (value == null || value.isBlank()) return ALL;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown leaderboard window: " + value + " (use all, day, week or month)");
+            }
+        }
+    }
+
+    public record Standing(long userId, int rank, int points) {}
+
+    /** One page of a leaderboard; pass {@code nextCursor} back as {@code after} to continue (null at the end). */
+    public record Page(List<Map<String, Object>> entries, String nextCursor) {}
+
+    /**
+     * Keyset position "points.userId.rank" of the last row served.
+     * Ranks continue from the cursor, so deep pages never count the rows before them.
+     */
+    record Cursor(int points, long userId, int rank) {
+        static final Cursor START = new Cursor(Integer.MAX_VALUE, 0L, 0);
+
+        static Cursor parse(String value) {
+            if (value == null || value.isBlank()) return START;
+            String[] parts = value.split("\\.");
+            try {
+                if (parts.length != 3) throw new NumberFormatException();
+                return new Cursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Malformed leaderboard cursor: " + value);
+            }
+        }
+
+        String format() {
+            return points + "." + userId + "." + rank;
+        }
+    }
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final int DAYS_KEPT = Window.MONTH.days;
+
+    private final UserRepository userRepository;
+    private final UserPointsDailyRepository dailyRepository;
+    private final BadgeService badgeService;
+
+    // guarded by "this"
+    private final Map<Window, RankTree> trees = new EnumMap<>(Window.class);
+    private DayBuckets buckets = new DayBuckets(DAYS_KEPT);
+    private int today = today();
+
+    public LeaderboardService(UserRepository userRepository,
+                              UserPointsDailyRepository dailyRepository,
+                              BadgeService badgeService) {
+        this.userRepository = userRepository;
+        this.dailyRepository = dailyRepository;
+        this.badgeService = badgeService;
+        for (Window w : Window.values()) trees.put(w, new RankTree());
+    }
+
+    // ==============================
+    // 🔄 Maintenance
+    // ==============================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+        List<Object[]> daily = dailyRepository.findSince(LocalDate.ofEpochDay(today() - DAYS_KEPT + 1));
+        synchronized (this) {
+            buckets = new DayBuckets(DAYS_KEPT);
+            for (Object[] r : daily) {
+                buckets.add(((Number) r[0]).longValue(), (int) ((LocalDate) r[1]).toEpochDay(), ((Number) r[2]).intValue());
+            }
+            refreshWindows();
+        }
+        log.info("🏆 Windowed leaderboards loaded from {} daily rows", daily.size());
+    }
+
+    /** Reloads every user's all-time points from the database. */
+    public void rebuild() {
+        List<Object[]> rows = userRepository.findAllPoints();
+        synchronized (this) {
+            RankTree allTime = trees.get(Window.ALL);
+            allTime.clear();
+            for (Object[] r : rows) {
+                allTime.put(((Number) r[0]).longValue(), r[1] != null ? ((Number) r[1]).intValue() : 0);
+            }
+        }
+        log.info("🏆 Leaderboard loaded: {} users", rows.size());
+    }
+
+    /** Points and daily rows were rewritten in bulk: reload every window. */
+    @EventListener
+    public void onRecomputeFinished(RecomputeFinishedEvent event) {
+        warmUp();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPointsChanged(PointsChangedEvent event) {
+        synchronized (this) {
+            rollOver();
+            // accruals can commit in either order; totals only grow outside a recompute, which reloads everything
+            RankTree allTime = trees.get(Window.ALL);
+            Integer current = allTime.pointsOf(event.userId());
+            allTime.put(event.userId(), current != null ? Math.max(current, event.total()) : event.total());
+            buckets.add(event.userId(), today, event.delta());
+            refreshWindows(event.userId());
+        }
+    }
+
+    /** Expires the oldest day from every window just after midnight, and purges old bucket rows. */
+    @Scheduled(cron = "${app.leaderboard.rollover-cron:5 0 0 * * *}")
+    public void dailyRollover() {
+        synchronized (this) {
+            rollOver();
+        }
+        int purged = dailyRepository.deleteBefore(LocalDate.ofEpochDay(today() - DAYS_KEPT + 1));
+        if (purged > 0) log.info("🧹 Purged {} expired daily point rows", purged);
+    }
+
+    // ==============================
+    // 📋 Queries
+    // ==============================
+
+    public List<Standing> top(int limit) {
+        return top(Window.ALL, limit);
+    }
+
+    public List<Standing> top(Window window, int limit) {
+        synchronized (this) {
+            rollOver();
+            return slice(trees.get(window), 0, limit);
+        }
+    }
+
+    /** The user's standing, or null if the user is not ranked in that window. */
+    public Standing standing(long userId) {
+        return standing(Window.ALL, userId);
+    }
+
+    public Standing standing(Window window, long userId) {
+        synchronized (this) {
+            rollOver();
+            RankTree tree = trees.get(window);
+            int rank = tree.rank(userId);
+            return rank < 0 ? null : new Standing(userId, rank, tree.pointsOf(userId));
+        }
+    }
+
+    /** Ranks a user that is not tracked yet (e.g. registered after startup with no points). */
+    public Standing track(long userId, int points) {
+        synchronized (this) {
+            RankTree allTime = trees.get(Window.ALL);
+            if (allTime.pointsOf(userId) == null) allTime.put(userId, points);
+        }
+        return standing(userId);
+    }
+
+    /** Up to {@code radius} users either side of the user, including the user. */
+    public List<Standing> around(long userId, int radius) {
+        return around(Window.ALL, userId, radius);
+    }
+
+    public List<Standing> around(Window window, long userId, int radius) {
+        synchronized (this) {
+            rollOver();
+            RankTree tree = trees.get(window);
+            int rank = tree.rank(userId);
+            if (rank < 0) return Collections.emptyList();
+            int from = Math.max(0, rank - 1 - radius);
+            return slice(tree, from, rank - 1 - from + radius + 1);
+        }
+    }
+
+    /** Keyset page over the in-memory ranking: cost depends on the page size only, not its depth. */
+    public Page page(Window window, String after, int limit) {
+        Cursor cursor = Cursor.parse(after);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Standing> standings;
+        boolean more;
+        synchronized (this) {
+            rollOver();
+            RankTree tree = trees.get(window);
+            int from = cursor == Cursor.START ? 0 : tree.countNotAfter(cursor.points(), cursor.userId());
+            standings = slice(tree, from, size);
+            more = from + standings.size() < tree.size();
+        }
+        Standing last = standings.isEmpty() ? null : standings.get(standings.size() - 1);
+        return new Page(describe(standings),
+                more && last != null ? new Cursor(last.points(), last.userId(), last.rank()).format() : null);
+    }
+
+    /** Keyset page of users holding a role, read from users via idx_users_points_id (no OFFSET). */
+    public Page rolePage(ERole role, String after, int limit) {
+        Cursor cursor = Cursor.parse(after);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return keysetPage(userRepository.findRolePageAfter(role.name(), cursor.points(), cursor.userId(), size + 1),
+                cursor, size);
+    }
+
+    /** Keyset page of one classroom's members. */
+    public Page classroomPage(Long classroomId, String after, int limit) {
+        Cursor cursor = Cursor.parse(after);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return keysetPage(userRepository.findClassroomPageAfter(classroomId, cursor.points(), cursor.userId(), size + 1),
+                cursor, size);
+    }
+
+    /** Rows are [id, username, points, badge_mask]; one extra row beyond {@code size} signals a next page. */
+    private Page keysetPage(List<Object[]> rows, Cursor cursor, int size) {
+        List<Map<String, Object>> entries = new ArrayList<>(Math.min(rows.size(), size));
+        int rank = cursor.rank();
+        Cursor next = null;
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            Object[] r = rows.get(i);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("rank", ++rank);
+            entry.put("username", r[1]);
+            entry.put("points", ((Number) r[2]).intValue());
+            entry.put("badges", badgeService.badgeNames(r[3] != null ? ((Number) r[3]).longValue() : 0L));
+            entries.add(entry);
+            next = new Cursor(((Number) r[2]).intValue(), ((Number) r[0]).longValue(), rank);
+        }
+        return new Page(entries, rows.size() > size && next != null ? next.format() : null);
+    }
+
+    public int size() {
+        return size(Window.ALL);
+    }
+
+    public synchronized int size(Window window) {
+        return trees.get(window).size();
+    }
+
+    /** Adds username and badges to standings with one primary-key lookup for the whole page. */
+    public List<Map<String, Object>> describe(List<Standing> standings) {
+        if (standings.isEmpty()) return Collections.emptyList();
+        List<Long> ids = standings.stream().map(Standing::userId).toList();
+
+        Map<Long, Object[]> profiles = new HashMap<>();
+        for (Object[] r : userRepository.findLeaderboardProfiles(ids)) {
+            profiles.put(((Number) r[0]).longValue(), r);
+        }
+
+        List<Map<String, Object>> out = new ArrayList<>(standings.size());
+        for (Standing s : standings) {
+            Object[] p = profiles.get(s.userId());
+            if (p == null) continue; // deleted since it was ranked
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("rank", s.rank());
+            entry.put("username", p[1]);
+            entry.put("points", s.points());
+            entry.put("badges", badgeService.badgeNames(p[2] != null ? ((Number) p[2]).longValue() : 0L));
+            out.add(entry);
+        }
+        return out;
+    }
+
+    // ==============================
+    // 🔧 Windows
+    // ==============================
+
+    private void rollOver() {
+        int now = today();
+        if (now == today) return;
+        today = now;
+        refreshWindows();
+        log.info("📅 Leaderboard windows rolled over to {}", LocalDate.ofEpochDay(now));
+    }
+
+    private void refreshWindows() {
+        for (Window w : Window.values()) {
+            if (w != Window.ALL) trees.get(w).clear();
+        }
+        buckets.forEachUser(this::refreshWindows);
+    }
+
+    private void refreshWindows(long userId) {
+        for (Window w : Window.values()) {
+            if (w == Window.ALL) continue;
+            int points = buckets.sum(userId, today, w.days);
+            if (points != 0) trees.get(w).put(userId, points);
+            else trees.get(w).remove(userId);
+        }
+    }
+
+    private static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    private static List<Standing> slice(RankTree tree, int from, int count) {
+        List<Standing> out = new ArrayList<>(Math.max(0, Math.min(count, tree.size())));
+        int[] rank = {from};
+        tree.range(from, count, (user, points) -> out.add(new Standing(user, ++rank[0], points)));
+        return out;
+    }
+}
@@ -0,0 +1,283 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LeaderboardStreamService
+ * - Pushes the all-time top N over Server-Sent Events instead of having clients poll
+ * - A ticker compares the in-memory standings with the last ones sent; when they differ it
+ *   builds one diff (only the ranks whose row changed, plus the board size), serializes it
+ *   once and queues the same frame for every subscriber
+ * - Any number of points changes between two ticks collapse into a single diff, so the cost
+ *   per tick depends on the board size, not on the number of viewers or submissions
+ * - Frames are built under the lock but written outside it by a small writer pool; each
+ *   subscriber has a bounded queue, and one whose queue fills up (a stalled client) is dropped
+ *   instead of holding up the ticker or the other viewers
+ * - A write that has been blocked longer than the send time limit also gets its subscriber
+ *   dropped and its writer interrupted, so a few hung sockets cannot pin the whole pool
+ *
+ * Events: "snapshot" (full board, on subscribe) and "diff" ({version, size, changed}); clients
+ * replace the rows at the changed ranks and truncate to {@code size}.
+ */
+@Slf4j
+@Service
+public class LeaderboardStreamService {
+
+    private final LeaderboardService leaderboardService;
+    private final ObjectMapper objectMapper;
+    private final int size;
+    private final long timeoutMs;
+    private final long heartbeatMs;
+    private final int queueCapacity;
+    private final long sendTimeMs;
+    private final Executor writers;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // guarded by "this", which is also held while frames are queued so every viewer gets them in order
+    private List<LeaderboardService.Standing> lastStandings = List.of();
+    private List<Map<String, Object>> lastRows = List.of();
+    private long version;
+    private String snapshotPayload;
+    private long lastFrameAt = System.currentTimeMillis();
+
+    public LeaderboardStreamService(LeaderboardService leaderboardService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.leaderboard.stream.size:20}") int size,
+                                    @Value("${app.leaderboard.stream.timeout-ms:1800000}") long timeoutMs,
+                                    @Value("${app.leaderboard.stream.heartbeat-ms:15000}") long heartbeatMs,
+                                    @Value("${app.leaderboard.stream.queue-size:32}") int queueCapacity,
+                                    @Value("${app.leaderboard.stream.send-time-ms:5000}") long sendTimeMs,
+                                    @Value("${app.leaderboard.stream.writer-threads:4}") int writerThreads) {
+        this(leaderboardService, objectMapper, size, timeoutMs, heartbeatMs, queueCapacity, sendTimeMs,
+                Executors.newFixedThreadPool(Math.max(1, writerThreads), r -> {
+                    Thread t = new Thread(r, "leaderboard-stream");
+                    t.setDaemon(true);
+                    return t;
+                }));
+    }
+
+    LeaderboardStreamService(LeaderboardService leaderboardService, ObjectMapper objectMapper, int size,
+                             long timeoutMs, long heartbeatMs, int queueCapacity, long sendTimeMs, Executor writers) {
+        this.leaderboardService = leaderboardService;
+        this.objectMapper = objectMapper;
+        this.size = Math.max(1, Math.min(LeaderboardService.MAX_PAGE_SIZE, size));
+        this.timeoutMs = timeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.sendTimeMs = sendTimeMs;
+        this.writers = writers;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writers instanceof ExecutorService pool) pool.shutdownNow();
+    }
+
+    // ==============================
+    // 📡 Subscriptions
+    // ==============================
+
+    /** Registers a viewer and sends it the current board. */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, queueCapacity);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (this) {
+            String diff = refresh();
+            if (diff != null) enqueue(diffFrame(diff)); // existing viewers must not miss this version
+            subscriber.pending.offer(SseEmitter.event().id(Long.toString(version)).name("snapshot")
+                    .data(snapshotPayload, MediaType.APPLICATION_JSON).build());
+            subscribers.add(subscriber);
+        }
+        flush();
+        log.debug("📡 Leaderboard stream subscriber added ({} total)", subscribers.size());
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    // ==============================
+    // ⏱️ Ticker
+    // ==============================
+
+    /** Sends at most one diff per tick, and a keep-alive comment when the stream has been idle. */
+    @Scheduled(fixedDelayString = "${app.leaderboard.stream.tick-ms:500}")
+    public void tick() {
+        if (subscribers.isEmpty()) return;
+        evictStalled();
+
+        synchronized (this) {
+            String diff = refresh();
+            if (diff != null) {
+                enqueue(diffFrame(diff));
+            } else if (System.currentTimeMillis() - lastFrameAt >= heartbeatMs) {
+                enqueue(SseEmitter.event().comment("keep-alive").build());
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Re-reads the standings; when they changed, updates the snapshot and returns the serialized
+     * diff (null when nothing changed). Caller holds "this".
+     */
+    private String refresh() {
+        List<LeaderboardService.Standing> standings = leaderboardService.top(size);
+        if (snapshotPayload != null && standings.equals(lastStandings)) return null;
+
+        List<Map<String, Object>> rows = leaderboardService.describe(standings);
+        List<Map<String, Object>> changed = diff(lastRows, rows);
+        boolean unchanged = snapshotPayload != null && changed.isEmpty() && rows.size() == lastRows.size();
+        lastStandings = standings;
+        lastRows = rows;
+        if (unchanged) return null;
+
+        version++;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("version", version);
+        snapshot.put("entries", rows);
+        snapshotPayload = json(snapshot);
+
+        Map<String, Object> diff = new LinkedHashMap<>();
+        diff.put("version", version);
+        diff.put("size", rows.size());
+        diff.put("changed", changed);
+        return json(diff);
+    }
+
+    /** Rows of {@code current} that differ from the row at the same position in {@code previous}. */
+    static List<Map<String, Object>> diff(List<Map<String, Object>> previous, List<Map<String, Object>> current) {
+        List<Map<String, Object>> changed = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            if (i >= previous.size() || !previous.get(i).equals(current.get(i))) changed.add(current.get(i));
+        }
+        return changed;
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> diffFrame(String diff) {
+        return SseEmitter.event().id(Long.toString(version)).name("diff").data(diff, MediaType.APPLICATION_JSON).build();
+    }
+
+    // ==============================
+    // 📤 Delivery
+    // ==============================
+
+    /** One viewer: frames waiting to be written, drained by at most one writer at a time. */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> pending;
+        final AtomicBoolean draining = new AtomicBoolean();
+        // start of the write in progress (0 when idle) and the writer doing it
+        final AtomicLong sendingSince = new AtomicLong();
+        volatile Thread writer;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /** Queues one pre-built frame for every subscriber, dropping those that fell too far behind. Caller holds "this". */
+    private void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        lastFrameAt = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.pending.offer(frame)) drop(subscriber, "too slow, " + queueCapacity + " frames behind");
+        }
+    }
+
+    /** Hands every subscriber with queued frames to a writer. Called without holding "this". */
+    private void flush() {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(() -> drain(subscriber));
+                } catch (RejectedExecutionException e) {
+                    subscriber.draining.set(false); // shutting down
+                }
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = subscriber.pending.poll();
+            if (frame == null) {
+                subscriber.draining.set(false);
+                // a frame queued after the poll but before the flag cleared would otherwise wait a tick
+                if (subscriber.pending.isEmpty() || !subscriber.draining.compareAndSet(false, true)) return;
+                continue;
+            }
+            subscriber.writer = Thread.currentThread();
+            subscriber.sendingSince.set(System.currentTimeMillis());
+            try {
+                subscriber.emitter.send(frame);
+            } catch (IOException | IllegalStateException e) {
+                // client went away (or the write was cut short by evictStalled); the container
+                // also reports it through onError / onCompletion
+                drop(subscriber, e.getMessage());
+                return;
+            } finally {
+                subscriber.sendingSince.set(0);
+                subscriber.writer = null;
+                Thread.interrupted(); // an eviction racing the end of the write must not leak into the next task
+            }
+        }
+    }
+
+    /** Drops subscribers whose current write has been blocked for longer than the send time limit. */
+    private void evictStalled() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince.get();
+            if (since == 0 || now - since < sendTimeMs) continue;
+            Thread writer = subscriber.writer;
+            drop(subscriber, "send blocked for " + (now - since) + " ms");
+            // frees the writer when the write is interruptible; otherwise it is released by the
+            // container's own write timeout, and the subscriber is already gone either way
+            if (writer != null && subscriber.sendingSince.get() == since) writer.interrupt();
+        }
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        if (!subscribers.remove(subscriber)) return;
+        subscriber.pending.clear();
+        subscriber.emitter.complete();
+        log.debug("📴 Dropped leaderboard stream subscriber: {}", reason);
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize leaderboard frame", e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.intelliquiz.backend.security.services;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+
+/**
+ * In-memory state of one live classroom quiz.
+ *
+ * Answers are folded in without locks: each participant claims a question with a CAS on a
+ * bit mask (first answer wins), then bumps atomic per-option and per-question counters.
+ * Frames are serialized once by the caller and written unchanged to every socket in the room.
+ * At most {@link #MAX_QUESTIONS} questions and {@link #MAX_OPTIONS} options per question.
+ */
+final class LiveRoom {
+
+    static final int MAX_QUESTIONS = 64;
+    static final int MAX_OPTIONS = 8;
+
+    enum Outcome { ACCEPTED, DUPLICATE, CLOSED, NOT_JOINED, INVALID }
+
+    record Question(int questionId, String text, List<String> options, int correctOption) {}
+
+    /** One student; fields are written only by that student's answers (or read after the room ends). */
+    static final class Participant {
+        final long userId;
+        final String username;
+        final AtomicLong answered = new AtomicLong();       // bit per question index
+        final AtomicInteger correct = new AtomicInteger();
+        final AtomicLong answerMillis = new AtomicLong();   // time from question start to answer, summed
+        final AtomicIntegerArray chosen;                    // option + 1, 0 = no answer
+
+        Participant(long userId, String username, int questions) {
+            this.userId = userId;
+            this.username = username;
+            this.chosen = new AtomicIntegerArray(questions);
+        }
+
+        int answeredCount() {
+            return Long.bitCount(answered.get());
+        }
+    }
+
+    final String id;
+    final Long classroomId;
+    final Long teacherId;
+    final String topic;
+    final String difficulty;
+    final List<Question> questions;
+    final long createdAt = System.currentTimeMillis();
+
+    private final AtomicInteger current = new AtomicInteger(-1);
+    private volatile long questionStartedAt;
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private final AtomicIntegerArray optionCounts;
+    private final AtomicIntegerArray answeredCounts;
+    private final Map<Long, Participant> participants = new ConcurrentHashMap<>();
+    private final Set<WebSocketSession> sockets = ConcurrentHashMap.newKeySet();
+
+    // frame of the open question, replayed to late joiners; written by the host's "next" call
+    volatile TextMessage questionFrame;
+    // answered count last reported in a progress frame; touched only by the ticker
+    int reportedAnswered = -1;
+
+    LiveRoom(String id, Long classroomId, Long teacherId, String topic, String difficulty, List<Question> questions) {
+        if (questions.isEmpty() || questions.size() > MAX_QUESTIONS) {
+            throw new IllegalArgumentException("A live quiz needs 1-" + MAX_QUESTIONS + " questions");
+        }
+        this.id = id;
+        this.classroomId = classroomId;
+        this.teacherId = teacherId;
+        this.topic = topic;
+        this.difficulty = difficulty;
+        this.questions = List.copyOf(questions);
+        this.optionCounts = new AtomicIntegerArray(questions.size() * MAX_OPTIONS);
+        this.answeredCounts = new AtomicIntegerArray(questions.size());
+    }
+
+    // ==============================
+    // 👥 Participants and sockets
+    // ==============================
+
+    Participant join(long userId, String username) {
+        return participants.computeIfAbsent(userId, id -> new Participant(id, username, questions.size()));
+    }
+
+    void attach(WebSocketSession socket) {
+        sockets.add(socket);
+    }
+
+    void detach(WebSocketSession socket) {
+        sockets.remove(socket);
+    }
+
+    Collection<Participant> participants() {
+        return participants.values();
+    }
+
+    int socketCount() {
+        return sockets.size();
+    }
+
+    /** Writes one pre-serialized frame to every socket; dead sockets are dropped. */
+    void broadcast(TextMessage frame) {
+        for (WebSocketSession socket : sockets) {
+            try {
+                if (socket.isOpen()) socket.sendMessage(frame);
+                else sockets.remove(socket);
+            } catch (IOException | IllegalStateException e) {
+                sockets.remove(socket); // the decorator also gives up on clients that stop reading
+            }
+        }
+    }
+
+    void closeSockets() {
+        for (WebSocketSession socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+        }
+        sockets.clear();
+    }
+
+    // ==============================
+    // ❓ Questions and answers
+    // ==============================
+
+    /** Index of the open question, or -1 before the first one. */
+    int current() {
+        return current.get();
+    }
+
+    boolean isEnded() {
+        return ended.get();
+    }
+
+    /** Opens the next question and returns its index, or -1 when there are none left. */
+    int advance() {
+        if (ended.get()) return -1;
+        int next = current.updateAndGet(i -> Math.min(i + 1, questions.size()));
+        if (next >= questions.size()) return -1;
+        questionStartedAt = System.currentTimeMillis();
+        return next;
+    }
+
+    /** Marks the room ended; true only for the caller that ended it. */
+    boolean end() {
+        return ended.compareAndSet(false, true);
+    }
+
+    /** Undoes {@link #end()} when the results could not be saved, so ending can be retried. */
+    void reopen() {
+        ended.set(false);
+    }
+
+    Outcome answer(long userId, int index, int option) {
+        if (ended.get() || index != current.get()) return Outcome.CLOSED;
+        if (option < 0 || option >= Math.min(MAX_OPTIONS, questions.get(index).options().size())) return Outcome.INVALID;
+        Participant p = participants.get(userId);
+        if (p == null) return Outcome.NOT_JOINED;
+
+        long bit = 1L << index;
+        long seen;
+        do {
+            seen = p.answered.get();
+            if ((seen & bit) != 0) return Outcome.DUPLICATE;
+        } while (!p.answered.compareAndSet(seen, seen | bit));
+
+        p.chosen.set(index, option + 1);
+        if (option == questions.get(index).correctOption()) p.correct.incrementAndGet();
+        p.answerMillis.addAndGet(Math.max(0, System.currentTimeMillis() - questionStartedAt));
+        optionCounts.incrementAndGet(index * MAX_OPTIONS + option);
+        answeredCounts.incrementAndGet(index);
+        return Outcome.ACCEPTED;
+    }
+
+    int answeredCount(int index) {
+        return answeredCounts.get(index);
+    }
+
+    int[] optionCounts(int index) {
+        int[] counts = new int[questions.get(index).options().size()];
+        for (int o = 0; o < counts.length && o < MAX_OPTIONS; o++) counts[o] = optionCounts.get(index * MAX_OPTIONS + o);
+        return counts;
+    }
+}
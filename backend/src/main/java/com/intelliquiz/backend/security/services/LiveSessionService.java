@@ -0,0 +1,448 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.AttemptAnswer;
+import com.intelliquiz.backend.model.Classroom;
+import com.intelliquiz.backend.model.ClassroomMember;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.ClassroomMemberRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LiveSessionService
+ * - Live classroom quizzes: the teacher opens questions one at a time and every student answers
+ *   the same question over a WebSocket (see {@link LiveRoom} for the in-memory room state)
+ * - Each frame (question, results, progress, final standings) is serialized once per room and
+ *   the same bytes are written to every socket; answers never touch the database
+ * - When the session ends, one attempt per participant is written in a single transaction:
+ *   one multi-row INSERT for quiz_attempts, one for attempt_answers, one batched points update
+ *
+ * Rooms live in this JVM only; a restart drops open sessions (nothing is persisted before the end).
+ */
+@Slf4j
+@Service
+public class LiveSessionService {
+
+    private static final String BULK_ATTEMPTS_SQL =
+            "INSERT INTO quiz_attempts (user_id, topic, difficulty_level, score, time_taken, created_at) " +
+            "SELECT * FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::int[], ?::int[], ?::timestamp[]) " +
+            "RETURNING id, user_id";
+
+    private final ClassroomService classroomService;
+    private final ClassroomMemberRepository memberRepository;
+    private final ContentQuizService contentQuizService;
+    private final AttemptAnswerService attemptAnswerService;
+    private final PointsLedgerService pointsLedgerService;
+    private final BadgeService badgeService;
+    private final AbilityService abilityService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int sendTimeMs;
+    private final int bufferLimit;
+    private final long maxAgeMs;
+
+    private final Map<String, LiveRoom> rooms = new ConcurrentHashMap<>();
+
+    public LiveSessionService(ClassroomService classroomService,
+                              ClassroomMemberRepository memberRepository,
+                              ContentQuizService contentQuizService,
+                              AttemptAnswerService attemptAnswerService,
+                              PointsLedgerService pointsLedgerService,
+                              BadgeService badgeService,
+                              AbilityService abilityService,
+                              JdbcTemplate jdbcTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.live.send-time-ms:5000}") int sendTimeMs,
+                              @Value("${app.live.buffer-limit:65536}") int bufferLimit,
+                              @Value("${app.live.max-age-minutes:180}") long maxAgeMinutes) {
+        this.classroomService = classroomService;
+        this.memberRepository = memberRepository;
+        this.contentQuizService = contentQuizService;
+        this.attemptAnswerService = attemptAnswerService;
+        this.pointsLedgerService = pointsLedgerService;
+        this.badgeService = badgeService;
+        this.abilityService = abilityService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sendTimeMs = sendTimeMs;
+        this.bufferLimit = bufferLimit;
+        this.maxAgeMs = maxAgeMinutes * 60_000L;
+    }
+
+    // ==============================
+    // 🎬 Host actions (teacher of the class or admin)
+    // ==============================
+
+    public Map<String, Object> create(Long classroomId, String topic, String difficulty, User teacher) {
+        if (topic == null || topic.isBlank()) throw new BadRequestException("Topic is required");
+        Classroom classroom = classroomService.requireManageable(classroomId, teacher);
+        String level = difficulty == null || difficulty.isBlank() ? "medium" : difficulty.trim().toLowerCase(Locale.ROOT);
+
+        List<LiveRoom.Question> questions = new ArrayList<>();
+        for (Map<String, Object> q : contentQuizService.generateQuestionsFromTopic(topic.trim(), level)) {
+            if (questions.size() == LiveRoom.MAX_QUESTIONS) break;
+            @SuppressWarnings("unchecked")
+            List<String> options = (List<String>) q.get("options");
+            if (options == null || options.size() > LiveRoom.MAX_OPTIONS) continue;
+            questions.add(new LiveRoom.Question(((Number) q.get("questionId")).intValue(),
+                    (String) q.get("question"), List.copyOf(options), options.indexOf(q.get("answer"))));
+        }
+        if (questions.isEmpty()) throw new BadRequestException("No questions could be generated for topic: " + topic);
+
+        LiveRoom room = new LiveRoom(UUID.randomUUID().toString(), classroom.getId(), classroom.getTeacherId(),
+                topic.trim(), level, questions);
+        rooms.put(room.id, room);
+        log.info("🎬 Live session {} opened for classroom {} on '{}' ({} questions)",
+                room.id, classroom.getId(), room.topic, questions.size());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("sessionId", room.id);
+        response.put("classroomId", room.classroomId);
+        response.put("topic", room.topic);
+        response.put("difficulty", room.difficulty);
+        response.put("questions", questions.size());
+        return response;
+    }
+
+    /** Closes the open question (sending its results) and opens the next one. */
+    public Map<String, Object> next(String sessionId, User requester) {
+        LiveRoom room = requireHost(sessionId, requester);
+        synchronized (room) {
+            if (room.isEnded()) throw new BadRequestException("Live session has ended: " + sessionId);
+            int closing = room.current();
+            if (closing >= room.questions.size() - 1) {
+                throw new BadRequestException("No questions left; end the session to save results");
+            }
+            if (closing >= 0) room.broadcast(frame(resultsFrame(room, closing)));
+
+            int index = room.advance();
+            LiveRoom.Question q = room.questions.get(index);
+            Map<String, Object> question = new LinkedHashMap<>();
+            question.put("type", "question");
+            question.put("index", index);
+            question.put("total", room.questions.size());
+            question.put("questionId", q.questionId());
+            question.put("question", q.text());
+            question.put("options", q.options());
+            room.questionFrame = frame(question);
+            room.broadcast(room.questionFrame);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("sessionId", room.id);
+            response.put("index", index);
+            response.put("remaining", room.questions.size() - index - 1);
+            response.put("participants", room.participants().size());
+            return response;
+        }
+    }
+
+    /** Ends the session, sends the final standings and writes one attempt per participant. */
+    public Map<String, Object> end(String sessionId, User requester) {
+        return finish(requireHost(sessionId, requester));
+    }
+
+    // ==============================
+    // 🙋 Participants (socket handler)
+    // ==============================
+
+    /**
+     * Adds a socket to the room. Members of the class join as participants; the teacher and
+     * admins only watch. Returns the thread-safe wrapper that must be used for every later send.
+     */
+    public WebSocketSession join(String sessionId, Long userId, String username, boolean admin, WebSocketSession socket) {
+        LiveRoom room = rooms.get(sessionId);
+        if (room == null || room.isEnded()) throw new EntityNotFoundException("Live session not found: " + sessionId);
+
+        boolean host = admin || room.teacherId.equals(userId);
+        if (!host && !memberRepository.existsById(new ClassroomMember.Key(room.classroomId, userId))) {
+            throw new AccessDeniedException("Not a member of classroom " + room.classroomId);
+        }
+
+        WebSocketSession safe = new ConcurrentWebSocketSessionDecorator(socket, sendTimeMs, bufferLimit);
+        Map<String, Object> welcome = new LinkedHashMap<>();
+        welcome.put("type", "joined");
+        welcome.put("sessionId", room.id);
+        welcome.put("topic", room.topic);
+        welcome.put("questions", room.questions.size());
+        welcome.put("role", host ? "host" : "participant");
+
+        // under the room lock so a socket can never attach to a room that is being finished
+        synchronized (room) {
+            if (room.isEnded() || rooms.get(room.id) != room) {
+                throw new EntityNotFoundException("Live session not found: " + sessionId);
+            }
+            if (!host) room.join(userId, username);
+            try {
+                safe.sendMessage(frame(welcome));
+                TextMessage open = room.questionFrame;
+                if (open != null) safe.sendMessage(open);
+            } catch (Exception e) {
+                log.debug("📴 Live socket closed while joining {}: {}", room.id, e.getMessage());
+            }
+            room.attach(safe);
+        }
+        log.debug("🙋 User {} joined live session {} as {}", userId, room.id, host ? "host" : "participant");
+        return safe;
+    }
+
+    /** Records one answer; returns ACCEPTED, DUPLICATE, CLOSED, NOT_JOINED or INVALID. */
+    public String answer(String sessionId, Long userId, int index, int option) {
+        LiveRoom room = rooms.get(sessionId);
+        return (room == null ? LiveRoom.Outcome.CLOSED : room.answer(userId, index, option)).name();
+    }
+
+    public void leave(String sessionId, WebSocketSession socket) {
+        LiveRoom room = rooms.get(sessionId);
+        if (room != null) room.detach(socket);
+    }
+
+    // ==============================
+    // ⏱️ Ticker
+    // ==============================
+
+    /** Pushes answered counts for the open question when they changed; ends abandoned rooms. */
+    @Scheduled(fixedDelayString = "${app.live.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        for (LiveRoom room : rooms.values()) {
+            if (now - room.createdAt > maxAgeMs) {
+                log.warn("⏰ Live session {} exceeded its maximum age, ending it", room.id);
+                try {
+                    finish(room);
+                } catch (RuntimeException e) {
+                    log.error("❌ Could not end live session {}: {}", room.id, e.getMessage());
+                }
+                continue;
+            }
+            int index = room.current();
+            if (index < 0 || room.isEnded() || room.socketCount() == 0) continue;
+            int answered = room.answeredCount(index);
+            if (answered == room.reportedAnswered) continue;
+            room.reportedAnswered = answered;
+
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("type", "progress");
+            progress.put("index", index);
+            progress.put("answered", answered);
+            progress.put("participants", room.participants().size());
+            room.broadcast(frame(progress));
+        }
+    }
+
+    public int activeSessions() {
+        return rooms.size();
+    }
+
+    // ==============================
+    // 🏁 End of session
+    // ==============================
+
+    /**
+     * Saves the results first; only after the commit is the room removed and told it ended.
+     * If saving fails the room is reopened and kept, so ending can be retried.
+     */
+    private Map<String, Object> finish(LiveRoom room) {
+        synchronized (room) {
+            if (!room.end()) throw new BadRequestException("Live session has ended: " + room.id);
+
+            int asked = Math.max(0, room.current() + 1);
+            int saved;
+            try {
+                saved = persist(room, asked);
+            } catch (RuntimeException e) {
+                room.reopen();
+                log.error("❌ Saving live session {} failed, room kept for retry: {}", room.id, e.getMessage());
+                throw e;
+            }
+            rooms.remove(room.id);
+
+            List<Map<String, Object>> standings = standings(room, asked);
+            if (asked > 0) room.broadcast(frame(resultsFrame(room, asked - 1)));
+            Map<String, Object> ended = new LinkedHashMap<>();
+            ended.put("type", "ended");
+            ended.put("questionsAsked", asked);
+            ended.put("standings", standings);
+            room.broadcast(frame(ended));
+            room.closeSockets();
+            log.info("🏁 Live session {} ended: {} questions, {} participants, {} attempts saved",
+                    room.id, asked, room.participants().size(), saved);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("sessionId", room.id);
+            response.put("questionsAsked", asked);
+            response.put("attemptsSaved", saved);
+            response.put("standings", standings);
+            return response;
+        }
+    }
+
+    /**
+     * Writes one attempt (score over the questions asked) for every participant who answered at
+     * least once, plus their per-question answers and points, in one transaction.
+     * Badges and ability estimates are updated after commit, as the submit endpoint does, so
+     * streak rules see the recent-score rings with the live scores appended exactly once.
+     */
+    private int persist(LiveRoom room, int asked) {
+        List<LiveRoom.Participant> players = room.participants().stream().filter(p -> p.answeredCount() > 0).toList();
+        if (players.isEmpty() || asked == 0) return 0;
+
+        int n = players.size();
+        Long[] userIds = new Long[n];
+        String[] topics = new String[n];
+        String[] difficulties = new String[n];
+        Integer[] scores = new Integer[n];
+        Integer[] seconds = new Integer[n];
+        Timestamp[] createdAt = new Timestamp[n];
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> slotOf = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            LiveRoom.Participant p = players.get(i);
+            userIds[i] = p.userId;
+            topics[i] = room.topic;
+            difficulties[i] = room.difficulty;
+            scores[i] = (int) Math.round(p.correct.get() * 100.0 / asked);
+            seconds[i] = (int) Math.round(p.answerMillis.get() / 1000.0);
+            createdAt[i] = Timestamp.valueOf(now);
+            slotOf.put(p.userId, i);
+        }
+
+        Map<Long, Long> masks = new HashMap<>(n * 2);
+        Map<Long, Integer> totals = new HashMap<>(n * 2);
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Long> attemptOf = new HashMap<>(n * 2);
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(BULK_ATTEMPTS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", userIds));
+                ps.setArray(2, con.createArrayOf("varchar", topics));
+                ps.setArray(3, con.createArrayOf("varchar", difficulties));
+                ps.setArray(4, con.createArrayOf("integer", scores));
+                ps.setArray(5, con.createArrayOf("integer", seconds));
+                ps.setArray(6, con.createArrayOf("timestamp", createdAt));
+                return ps;
+            }, rs -> {
+                attemptOf.put(rs.getLong(2), rs.getLong(1));
+            });
+
+            List<AttemptAnswer> answers = new ArrayList<>(n * asked);
+            Map<Long, Integer> points = new LinkedHashMap<>(n * 2);
+            for (LiveRoom.Participant p : players) {
+                Long attemptId = attemptOf.get(p.userId);
+                int i = slotOf.get(p.userId);
+                eventPublisher.publishEvent(new QuizSubmittedEvent(p.userId, attemptId, room.topic, room.difficulty,
+                        scores[i], p.correct.get(), asked, seconds[i], now));
+                for (int q = 0; q < asked; q++) {
+                    int chosen = p.chosen.get(q);
+                    LiveRoom.Question question = room.questions.get(q);
+                    answers.add(new AttemptAnswer(attemptId, question.questionId(),
+                            chosen > 0 ? AttemptAnswerService.answerText(question.options().get(chosen - 1)) : null,
+                            chosen > 0 && chosen - 1 == question.correctOption(), null));
+                }
+                points.put(p.userId, PointsLedgerService.pointsForScore(scores[i]));
+            }
+            attemptAnswerService.saveAll(answers);
+
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT id, badge_mask FROM users WHERE id = ANY(?)");
+                ps.setArray(1, con.createArrayOf("bigint", userIds));
+                return ps;
+            }, rs -> {
+                masks.put(rs.getLong(1), rs.getLong(2));
+            });
+            totals.putAll(pointsLedgerService.accrueAll(points));
+        });
+
+        totals.forEach((userId, total) -> {
+            try {
+                badgeService.evaluate(userId, masks.getOrDefault(userId, 0L), total, room.topic);
+            } catch (RuntimeException e) {
+                log.error("⚠️ Error evaluating badges for user {}: {}", userId, e.getMessage());
+            }
+        });
+
+        for (LiveRoom.Participant p : players) {
+            try {
+                abilityService.record(p.userId, room.topic, room.difficulty, p.correct.get(), asked);
+            } catch (RuntimeException e) {
+                log.error("⚠️ Error updating ability for user {}: {}", p.userId, e.getMessage());
+            }
+        }
+        return n;
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    private LiveRoom requireHost(String sessionId, User requester) {
+        LiveRoom room = rooms.get(sessionId);
+        if (room == null) throw new EntityNotFoundException("Live session not found: " + sessionId);
+        classroomService.requireManageable(room.classroomId, requester);
+        return room;
+    }
+
+    private static Map<String, Object> resultsFrame(LiveRoom room, int index) {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("type", "results");
+        results.put("index", index);
+        results.put("correctOption", room.questions.get(index).correctOption());
+        results.put("counts", room.optionCounts(index));
+        results.put("answered", room.answeredCount(index));
+        return results;
+    }
+
+    /** Participants by correct answers, then by less total answer time. */
+    static List<Map<String, Object>> standings(LiveRoom room, int asked) {
+        List<LiveRoom.Participant> ranked = new ArrayList<>(room.participants());
+        ranked.sort(Comparator.comparingInt((LiveRoom.Participant p) -> -p.correct.get())
+                .thenComparingLong(p -> p.answerMillis.get())
+                .thenComparingLong(p -> p.userId));
+        List<Map<String, Object>> out = new ArrayList<>(ranked.size());
+        int rank = 0;
+        for (LiveRoom.Participant p : ranked) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", ++rank);
+            row.put("userId", p.userId);
+            row.put("username", p.username);
+            row.put("correct", p.correct.get());
+            row.put("answered", p.answeredCount());
+            row.put("score", asked > 0 ? (int) Math.round(p.correct.get() * 100.0 / asked) : 0);
+            out.add(row);
+        }
+        return out;
+    }
+
+    private TextMessage frame(Object value) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize live session frame", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.intelliquiz.backend.security.services;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a non-zero {@code long} key to a dense slot number (0, 1, 2, ...).
+ *
+ * Callers keep their values in parallel primitive arrays indexed by slot, which avoids
+ * boxing and per-entry objects. Not thread-safe: callers guard it with their own lock.
+ */
+final class LongSlotIndex {
+
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    LongSlotIndex(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[cap];
+        slots = new int[cap];
+        mask = cap - 1;
+    }
+
+    /** Slot for the key, or -1 if absent. */
+    int get(long key) {
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) return slots[i];
+            if (k == 0L) return -1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /** Existing slot for the key, or the next free slot ({@code size() - 1} afterwards). */
+    int getOrAdd(long key) {
+        if (key == 0L) throw new IllegalArgumentException("0 is reserved as the empty key");
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) return slots[i];
+            if (k == 0L) break;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        slots[i] = size;
+        int slot = size++;
+        if (size * 2 > keys.length) rehash(keys.length << 1);
+        return slot;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Grows a parallel value array so that it can hold {@code size()} slots. */
+    static float[] fit(float[] values, int size) {
+        return size <= values.length ? values : Arrays.copyOf(values, Math.max(size, values.length * 2));
+    }
+
+    static int[] fit(int[] values, int size) {
+        return size <= values.length ? values : Arrays.copyOf(values, Math.max(size, values.length * 2));
+    }
+
+    static long[] fit(long[] values, int size) {
+        return size <= values.length ? values : Arrays.copyOf(values, Math.max(size, values.length * 2));
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long k = oldKeys[j];
+            if (k == 0L) continue;
+            int i = mix(k) & mask;
+            while (keys[i] != 0L) i = (i + 1) & mask;
+            keys[i] = k;
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
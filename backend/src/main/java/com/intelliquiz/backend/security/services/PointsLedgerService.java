@@ -0,0 +1,125 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.PointsChangedEvent;
+import com.intelliquiz.backend.repository.UserPointsDailyRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * PointsLedgerService
+ * - Accrues points with a single atomic UPDATE ... RETURNING (no read-modify-write)
+ * - Batched accrual applies many users' increments in one statement
+ * - Today's user_points_daily bucket (windowed leaderboards) is bumped alongside the points,
+ *   also with one statement for a whole batch
+ *
+ * Concurrent submissions by the same user serialize on the row lock inside Postgres,
+ * so no increment is ever lost and only the points column is written.
+ * Every change is announced as a {@link PointsChangedEvent} carrying the new total.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointsLedgerService {
+
+    // One round trip for a whole burst: deltas are pre-aggregated per user, then joined via unnest
+    private static final String BATCH_ACCRUE_SQL =
+            "UPDATE users u SET points = u.points + d.delta " +
+            "FROM unnest(?::bigint[], ?::int[]) AS d(id, delta) " +
+            "WHERE u.id = d.id " +
+            "RETURNING u.id, u.points";
+
+    private static final String BATCH_DAILY_SQL =
+            "INSERT INTO user_points_daily (user_id, day, points) " +
+            "SELECT d.id, ?, d.delta FROM unnest(?::bigint[], ?::int[]) AS d(id, delta) " +
+            "ON CONFLICT (user_id, day) DO UPDATE SET points = user_points_daily.points + EXCLUDED.points";
+
+    private final UserRepository userRepository;
+    private final UserPointsDailyRepository dailyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Points awarded for one quiz attempt at the given percentage score. */
+    public static int pointsForScore(int score) {
+        if (score >= 80) return 50;
+        if (score >= 50) return 25;
+        return 10;
+    }
+
+    /**
+     * Atomically adds {@code delta} points to a user and returns the new total.
+     */
+    public int accrue(Long userId, int delta) {
+        Integer total = userRepository.addPoints(userId, delta);
+        if (total == null) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
+        dailyRepository.addPoints(userId, LocalDate.now(), delta);
+        log.debug("💰 Accrued {} points for user {} → total {}", delta, userId, total);
+        eventPublisher.publishEvent(new PointsChangedEvent(userId, delta, total));
+        return total;
+    }
+
+    /**
+     * Applies many increments in a single statement, plus one for their day buckets.
+     * Ids are bound in ascending order, so two overlapping batches take their row locks in the
+     * same order instead of deadlocking on each other.
+     *
+     * @return new totals keyed by user id (users that no longer exist are absent)
+     */
+    @Transactional
+    public Map<Long, Integer> accrueAll(Map<Long, Integer> deltas) {
+        if (deltas == null || deltas.isEmpty()) return Collections.emptyMap();
+
+        Long[] ids = new Long[deltas.size()];
+        Integer[] amounts = new Integer[deltas.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : new TreeMap<>(deltas).entrySet()) {
+            ids[i] = e.getKey();
+            amounts[i] = e.getValue();
+            i++;
+        }
+
+        Map<Long, Integer> totals = new HashMap<>(deltas.size() * 2);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BATCH_ACCRUE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("integer", amounts));
+            return ps;
+        }, rs -> {
+            totals.put(rs.getLong(1), rs.getInt(2));
+        });
+        addDaily(totals.keySet(), deltas);
+        totals.forEach((id, total) -> eventPublisher.publishEvent(new PointsChangedEvent(id, deltas.get(id), total)));
+
+        log.info("💰 Batched accrual applied to {} users ({} requested)", totals.size(), deltas.size());
+        return totals;
+    }
+
+    /** Adds the deltas of the users that were updated to today's bucket, in ascending id order like the points. */
+    private void addDaily(Set<Long> updated, Map<Long, Integer> deltas) {
+        if (updated.isEmpty()) return;
+        Long[] ids = new TreeSet<>(updated).toArray(new Long[0]);
+        Integer[] amounts = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) amounts[i] = deltas.get(ids[i]);
+        Date day = Date.valueOf(LocalDate.now());
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(BATCH_DAILY_SQL);
+            ps.setDate(1, day);
+            ps.setArray(2, con.createArrayOf("bigint", ids));
+            ps.setArray(3, con.createArrayOf("integer", amounts));
+            return ps;
+        });
+    }
+}
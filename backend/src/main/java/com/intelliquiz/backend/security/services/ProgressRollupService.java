@@ -0,0 +1,195 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * ProgressRollupService
+ * - Condenses attempts into per-(user, topic) day and week buckets (count, sum, min, max),
+ *   plus an all-topics bucket under topic id {@link #ALL_TOPICS}
+ * - Updated by one upsert per table inside the transaction that saves the QuizAttempt
+ * - {@link #series} picks day, week or month resolution from the requested range, so a chart
+ *   over any span returns at most a few hundred points and never reads raw attempts
+ *
+ * Months are summed from week buckets by the month their Monday falls in.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProgressRollupService {
+
+    public static final int ALL_TOPICS = 0;
+
+    // Longest span served at each resolution when the caller asks for "auto"
+    static final int MAX_DAILY_SPAN_DAYS = 92;
+    static final int MAX_WEEKLY_SPAN_DAYS = 731;
+
+    public enum Resolution {
+        AUTO, DAY, WEEK, MONTH;
+
+        public static Resolution parse(String value) {
+            if (value == null || value.isBlank()) return AUTO;
+            try {
+                return Resolution.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown resolution: " + value + " (use auto, day, week or month)");
+            }
+        }
+    }
+
+    // %s is the bucket table / column; each row is upserted for the topic and for ALL_TOPICS
+    private static final String UPSERT_SQL =
+            "INSERT INTO %1$s (user_id, topic_id, %2$s, attempt_count, score_sum, score_min, score_max) " +
+            "VALUES (?, ?, ?, 1, ?, ?, ?), (?, " + ALL_TOPICS + ", ?, 1, ?, ?, ?) " +
+            "ON CONFLICT (user_id, topic_id, %2$s) DO UPDATE SET " +
+            "attempt_count = %1$s.attempt_count + 1, " +
+            "score_sum = %1$s.score_sum + EXCLUDED.score_sum, " +
+            "score_min = LEAST(%1$s.score_min, EXCLUDED.score_min), " +
+            "score_max = GREATEST(%1$s.score_max, EXCLUDED.score_max)";
+
+    private static final String UPSERT_DAY_SQL = String.format(UPSERT_SQL, "user_daily_stats", "day");
+    private static final String UPSERT_WEEK_SQL = String.format(UPSERT_SQL, "user_weekly_stats", "week_start");
+
+    // %1$s table, %2$s bucket column, %3$s bucket expression over q.created_at, %4$s extra WHERE
+    private static final String REBUILD_SQL =
+            "INSERT INTO %1$s (user_id, topic_id, %2$s, attempt_count, score_sum, score_min, score_max) " +
+            "SELECT q.user_id, t.id, %3$s, COUNT(*), SUM(q.score), MIN(q.score), MAX(q.score) " +
+            "FROM quiz_attempts q JOIN topics t ON t.name = " + StatsRollupService.TOPIC_NAME_SQL + " " +
+            "WHERE q.created_at IS NOT NULL %4$s GROUP BY 1, 2, 3 " +
+            "UNION ALL " +
+            "SELECT q.user_id, " + ALL_TOPICS + ", %3$s, COUNT(*), SUM(q.score), MIN(q.score), MAX(q.score) " +
+            "FROM quiz_attempts q WHERE q.created_at IS NOT NULL %4$s GROUP BY 1, 3";
+
+    private final TopicRegistry topicRegistry;
+    private final StatsRollupService statsRollupService;
+    private final JdbcTemplate jdbcTemplate;
+
+    // ==============================
+    // 📝 Incremental maintenance
+    // ==============================
+
+    /** Runs synchronously inside QuizAttemptService's transaction. */
+    @EventListener
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        int score = Math.max(0, Math.min(100, event.score()));
+        LocalDate day = (event.createdAt() != null ? event.createdAt() : LocalDateTime.now()).toLocalDate();
+        int topicId = topicRegistry.idOf(event.topic());
+
+        jdbcTemplate.update(UPSERT_DAY_SQL, event.userId(), topicId, Date.valueOf(day), score, score, score,
+                event.userId(), Date.valueOf(day), score, score, score);
+        Date week = Date.valueOf(weekOf(day));
+        jdbcTemplate.update(UPSERT_WEEK_SQL, event.userId(), topicId, week, score, score, score,
+                event.userId(), week, score, score, score);
+    }
+
+    // ==============================
+    // 📈 Downsampled series
+    // ==============================
+
+    /**
+     * Progress buckets for [{@code from}, {@code to}], oldest first, for one topic or all topics.
+     * Each point carries the bucket start, attempt count, average, min and max.
+     */
+    public Map<String, Object> series(Long userId, String topic, LocalDate from, LocalDate to, Resolution requested) {
+        if (from.isAfter(to)) throw new BadRequestException("'from' is after 'to'");
+        long span = ChronoUnit.DAYS.between(from, to) + 1;
+        Resolution resolution = resolve(requested, span);
+
+        int topicId = topic == null ? ALL_TOPICS : topicRegistry.peekId(topic);
+        List<Map<String, Object>> points = new ArrayList<>();
+        if (topicId >= 0) {
+            String sql = switch (resolution) {
+                case DAY -> "SELECT day, attempt_count, score_sum, score_min, score_max FROM user_daily_stats " +
+                        "WHERE user_id = ? AND topic_id = ? AND day BETWEEN ? AND ? ORDER BY day";
+                case WEEK -> "SELECT week_start, attempt_count, score_sum, score_min, score_max FROM user_weekly_stats " +
+                        "WHERE user_id = ? AND topic_id = ? AND week_start BETWEEN ? AND ? ORDER BY week_start";
+                default -> "SELECT date_trunc('month', week_start)::date, SUM(attempt_count), SUM(score_sum), " +
+                        "MIN(score_min), MAX(score_max) FROM user_weekly_stats " +
+                        "WHERE user_id = ? AND topic_id = ? AND week_start BETWEEN ? AND ? GROUP BY 1 ORDER BY 1";
+            };
+            LocalDate first = resolution == Resolution.DAY ? from : weekOf(from);
+            jdbcTemplate.query(sql, rs -> {
+                long count = rs.getLong(2);
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("start", rs.getDate(1).toLocalDate().toString());
+                point.put("count", count);
+                point.put("average", count == 0 ? 0.0 : Math.round(rs.getLong(3) * 100.0 / count) / 100.0);
+                point.put("min", rs.getInt(4));
+                point.put("max", rs.getInt(5));
+                points.add(point);
+            }, userId, topicId, Date.valueOf(first), Date.valueOf(to));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("userId", userId);
+        response.put("topic", topic);
+        response.put("from", from.toString());
+        response.put("to", to.toString());
+        response.put("resolution", resolution.name().toLowerCase(Locale.ROOT));
+        response.put("points", points);
+        return response;
+    }
+
+    /** AUTO becomes the finest resolution that keeps the span within a few hundred buckets. */
+    static Resolution resolve(Resolution requested, long spanDays) {
+        if (requested == Resolution.AUTO) {
+            if (spanDays <= MAX_DAILY_SPAN_DAYS) return Resolution.DAY;
+            if (spanDays <= MAX_WEEKLY_SPAN_DAYS) return Resolution.WEEK;
+            return Resolution.MONTH;
+        }
+        if (requested == Resolution.DAY && spanDays > MAX_WEEKLY_SPAN_DAYS / 2) {
+            throw new BadRequestException("Daily resolution is limited to " + (MAX_WEEKLY_SPAN_DAYS / 2) + " days");
+        }
+        return requested;
+    }
+
+    static LocalDate weekOf(LocalDate day) {
+        return day.with(DayOfWeek.MONDAY);
+    }
+
+    // ==============================
+    // 🔄 Rebuild
+    // ==============================
+
+    /** Recomputes both bucket tables from quiz_attempts in one transaction. */
+    @Transactional
+    public Map<String, Integer> rebuild() {
+        statsRollupService.insertMissingTopics();
+        topicRegistry.reload();
+        int days = rebuildUsers(0L, Long.MAX_VALUE);
+        log.info("✅ Progress buckets rebuilt: {} daily rows", days);
+        return Map.of("dailyBuckets", days);
+    }
+
+    /**
+     * Recomputes the buckets of users with {@code afterId < id <= toId}; topics must already exist
+     * (see {@link StatsRollupService#insertMissingTopics()}).
+     */
+    @Transactional
+    public int rebuildUsers(long afterId, long toId) {
+        jdbcTemplate.update("DELETE FROM user_daily_stats WHERE user_id > ? AND user_id <= ?", afterId, toId);
+        jdbcTemplate.update("DELETE FROM user_weekly_stats WHERE user_id > ? AND user_id <= ?", afterId, toId);
+
+        String range = "AND q.user_id > ? AND q.user_id <= ?";
+        int days = jdbcTemplate.update(
+                String.format(REBUILD_SQL, "user_daily_stats", "day", "q.created_at::date", range),
+                afterId, toId, afterId, toId);
+        jdbcTemplate.update(
+                String.format(REBUILD_SQL, "user_weekly_stats", "week_start", "date_trunc('week', q.created_at)::date", range),
+                afterId, toId, afterId, toId);
+        return days;
+    }
+}
@@ -0,0 +1,46 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.QuizAttempt;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * QuizAttemptService
+ * - Saves a graded attempt, its per-question answers and publishes {@link QuizSubmittedEvent}
+ *   in the same transaction, so an attempt never exists without its answer rows
+ * - Derived state (schedules, rollups, caches) hangs off that event instead of the controller
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuizAttemptService {
+
+    private final QuizAttemptRepository quizAttemptRepository;
+    private final AttemptAnswerService attemptAnswerService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public QuizAttempt recordAttempt(User user, String topic, String difficulty,
+                                     int score, int timeTaken, int correct, int total,
+                                     List<Map<String, Object>> answers) {
+        QuizAttempt attempt = quizAttemptRepository.save(
+                new QuizAttempt(user, topic, difficulty, score, timeTaken));
+        attemptAnswerService.saveAll(attemptAnswerService.fromSubmission(attempt.getId(), answers));
+
+        eventPublisher.publishEvent(new QuizSubmittedEvent(
+                user.getId(), attempt.getId(), topic, difficulty,
+                score, correct, total, timeTaken, attempt.getCreatedAt()));
+
+        log.debug("📊 Saved quiz attempt {} for user {}", attempt.getId(), user.getId());
+        return attempt;
+    }
+}
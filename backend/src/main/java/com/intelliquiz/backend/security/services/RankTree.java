@@ -0,0 +1,208 @@
+package com.intelliquiz.backend.security.services;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+/**
+ * Order-statistic treap keyed by (points DESC, userId ASC).
+ * Every node carries its subtree size, so insert, delete, rank and select are O(log n) expected.
+ * One entry per user: {@link #put} replaces the user's previous score.
+ * Not thread-safe; callers synchronize.
+ */
+final class RankTree {
+
+    private static final int ABSENT = Integer.MIN_VALUE;
+
+    private static final class Node {
+        final long user;
+        final int points;
+        final int priority;
+        int size = 1;
+        Node left, right;
+
+        Node(long user, int points) {
+            this.user = user;
+            this.points = points;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private Node root;
+    private final LongSlotIndex index = new LongSlotIndex(1024);
+    private int[] current = new int[1024];
+
+    RankTree() {
+        Arrays.fill(current, ABSENT);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /** Current points for the user, or null when the user is not ranked. */
+    Integer pointsOf(long user) {
+        int slot = index.get(user);
+        return slot < 0 || current[slot] == ABSENT ? null : current[slot];
+    }
+
+    void put(long user, int points) {
+        int slot = index.getOrAdd(user);
+        if (slot >= current.length) {
+            int from = current.length;
+            current = LongSlotIndex.fit(current, index.size());
+            Arrays.fill(current, from, current.length, ABSENT);
+        }
+        if (current[slot] == points) return;
+        if (current[slot] != ABSENT) root = delete(root, user, current[slot]);
+        root = insert(root, new Node(user, points));
+        current[slot] = points;
+    }
+
+    void remove(long user) {
+        int slot = index.get(user);
+        if (slot < 0 || current[slot] == ABSENT) return;
+        root = delete(root, user, current[slot]);
+        current[slot] = ABSENT;
+    }
+
+    void clear() {
+        root = null;
+        Arrays.fill(current, ABSENT);
+    }
+
+    /** 1-based rank of the user, or -1 if the user is not ranked. */
+    int rank(long user) {
+        Integer points = pointsOf(user);
+        if (points == null) return -1;
+        int before = 0;
+        Node n = root;
+        while (n != null) {
+            int c = compare(points, user, n);
+            if (c == 0) return before + size(n.left) + 1;
+            if (c < 0) {
+                n = n.left;
+            } else {
+                before += size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return -1;
+    }
+
+    /** Number of entries ordered at or before (points, user), whether or not that key is present. */
+    int countNotAfter(int points, long user) {
+        int count = 0;
+        Node n = root;
+        while (n != null) {
+            if (compare(points, user, n) < 0) {
+                n = n.left;
+            } else {
+                count += size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return count;
+    }
+
+    /** Visits up to {@code count} entries starting at 0-based position {@code from}, best first. */
+    void range(int from, int count, BiConsumer<Long, Integer> visitor) {
+        if (count <= 0 || from >= size()) return;
+        walk(root, Math.max(0, from), count, visitor);
+    }
+
+    private static int walk(Node n, int skip, int remaining, BiConsumer<Long, Integer> visitor) {
+        // returns how many entries are still wanted after visiting this subtree
+        if (n == null || remaining == 0) return remaining;
+        int leftSize = size(n.left);
+        if (skip < leftSize) {
+            remaining = walk(n.left, skip, remaining, visitor);
+            skip = 0;
+        } else {
+            skip -= leftSize;
+        }
+        if (remaining == 0) return 0;
+        if (skip == 0) {
+            visitor.accept(n.user, n.points);
+            remaining--;
+        } else {
+            skip--;
+        }
+        return walk(n.right, skip, remaining, visitor);
+    }
+
+    // ==============================
+    // 🔧 Treap operations
+    // ==============================
+
+    private static int compare(int points, long user, Node n) {
+        if (points != n.points) return points > n.points ? -1 : 1;
+        return Long.compare(user, n.user);
+    }
+
+    private static Node insert(Node n, Node node) {
+        if (n == null) return node;
+        if (compare(node.points, node.user, n) < 0) {
+            n.left = insert(n.left, node);
+            if (n.left.priority > n.priority) n = rotateRight(n);
+        } else {
+            n.right = insert(n.right, node);
+            if (n.right.priority > n.priority) n = rotateLeft(n);
+        }
+        update(n);
+        return n;
+    }
+
+    private static Node delete(Node n, long user, int points) {
+        if (n == null) return null;
+        int c = compare(points, user, n);
+        if (c < 0) {
+            n.left = delete(n.left, user, points);
+        } else if (c > 0) {
+            n.right = delete(n.right, user, points);
+        } else {
+            return merge(n.left, n.right);
+        }
+        update(n);
+        return n;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private static void update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+}
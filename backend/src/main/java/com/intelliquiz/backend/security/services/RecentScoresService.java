@@ -0,0 +1,136 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * RecentScoresService
+ * - Keeps each active user's last {@link #CAPACITY} scores in a primitive ring buffer
+ * - A user's ring is filled once by a LIMITed query, then appended to after every committed submission
+ * - Trend windows (5, 20, 100) are served from memory without touching quiz_attempts
+ *
+ * Rings are kept for the most recently used users only; evicted users are re-read on their next visit.
+ * A submission that commits while its user's ring is being loaded is buffered and applied once the
+ * ring is in place; attempts the load query already returned are never appended a second time.
+ */
+@Slf4j
+@Service
+public class RecentScoresService {
+
+    public static final int CAPACITY = 100;
+
+    /** A loaded ring plus the attempt ids its load query returned (sorted), to skip late duplicates. */
+    private record Entry(ScoreRing ring, long[] loadedIds) {
+        boolean alreadyLoaded(Long attemptId) {
+            return attemptId != null && Arrays.binarySearch(loadedIds, attemptId) >= 0;
+        }
+    }
+
+    private final QuizAttemptRepository quizAttemptRepository;
+    // guarded by its own monitor (Collections.synchronizedMap), which also guards "loading"
+    private final Map<Long, Entry> rings;
+    // users whose ring is being loaded → submissions committed meanwhile
+    private final Map<Long, Pending> loading = new HashMap<>();
+
+    private static final class Pending {
+        int loaders;
+        final List<QuizSubmittedEvent> events = new ArrayList<>();
+    }
+
+    public RecentScoresService(QuizAttemptRepository quizAttemptRepository,
+                               @Value("${app.recent-scores.max-users:10000}") int maxUsers) {
+        this.quizAttemptRepository = quizAttemptRepository;
+        this.rings = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /** The user's last {@code window} scores, oldest first (window is capped at {@link #CAPACITY}). */
+    public List<Integer> recent(Long userId, int window) {
+        int[] scores = last(userId, window);
+        List<Integer> out = new ArrayList<>(scores.length);
+        for (int s : scores) out.add(s);
+        return out;
+    }
+
+    /** Primitive variant of {@link #recent}. */
+    public int[] last(Long userId, int window) {
+        ScoreRing ring = ring(userId);
+        synchronized (ring) {
+            return ring.last(Math.min(window, CAPACITY));
+        }
+    }
+
+    /** Loaded rings are appended to; a ring being loaded gets the score once it is in place; others read the row later. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        Entry entry;
+        synchronized (rings) {
+            entry = rings.get(event.userId());
+            if (entry == null) {
+                Pending pending = loading.get(event.userId());
+                if (pending != null) pending.events.add(event);
+                return;
+            }
+        }
+        append(entry, event);
+    }
+
+    private ScoreRing ring(Long userId) {
+        synchronized (rings) {
+            Entry entry = rings.get(userId);
+            if (entry != null) return entry.ring();
+            loading.computeIfAbsent(userId, id -> new Pending()).loaders++;
+        }
+
+        // newest first, bounded by the ring size
+        List<Object[]> newest;
+        try {
+            newest = quizAttemptRepository.findRecentIdsAndScores(userId, PageRequest.of(0, CAPACITY));
+        } catch (RuntimeException e) {
+            synchronized (rings) {
+                Pending pending = loading.get(userId);
+                if (pending != null && --pending.loaders == 0) loading.remove(userId);
+            }
+            throw e;
+        }
+        ScoreRing loaded = new ScoreRing(CAPACITY);
+        long[] ids = new long[newest.size()];
+        for (int i = newest.size() - 1; i >= 0; i--) {
+            Object[] row = newest.get(i);
+            ids[i] = ((Number) row[0]).longValue();
+            loaded.add(row[1] != null ? ((Number) row[1]).intValue() : 0);
+        }
+        Arrays.sort(ids);
+
+        synchronized (rings) {
+            Entry existing = rings.get(userId);
+            if (existing != null) return existing.ring(); // a concurrent loader won and drained the buffer
+            Entry entry = new Entry(loaded, ids);
+            rings.put(userId, entry);
+            // drained before any listener can see the ring, so scores stay in commit order
+            Pending missed = loading.remove(userId);
+            if (missed != null) missed.events.forEach(event -> append(entry, event));
+        }
+        log.debug("📈 Loaded {} recent scores for user {}", loaded.size(), userId);
+        return loaded;
+    }
+
+    private static void append(Entry entry, QuizSubmittedEvent event) {
+        if (entry.alreadyLoaded(event.attemptId())) return; // the load query saw this attempt
+        synchronized (entry.ring()) {
+            entry.ring().add(event.score());
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.RecomputeFinishedEvent;
+import com.intelliquiz.backend.model.RecomputeJob;
+import com.intelliquiz.backend.repository.RecomputeJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * RecomputeJobService
+ * - Rebuilds users.points, users.badge_mask, user_points_daily, the score rollups and the
+ *   progress buckets from quiz_attempts
+ * - Walks users in id order in keyset chunks; each chunk streams its attempts through a
+ *   server-side cursor (fetch size) and is written in its own transaction
+ * - Chunks run in parallel on a bounded pool; the producer blocks while too many are in flight
+ * - Progress is checkpointed in recompute_jobs as the highest user id below which every chunk
+ *   has committed, so a crashed or failed run resumes from there instead of starting over
+ *
+ * Every chunk is idempotent (absolute writes, delete-and-insert), so re-running a chunk is harmless.
+ * Badges are only ever granted, never revoked. Submissions that land while their user's chunk is
+ * being recomputed may be counted twice or not at all; run it in a quiet period or re-run.
+ */
+@Slf4j
+@Service
+public class RecomputeJobService {
+
+    private static final String USER_IDS_SQL = "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?";
+
+    // topics keyed exactly like user_topic_stats, so mastery sees the same buckets as a live submission
+    private static final String ATTEMPTS_SQL =
+            "SELECT q.user_id, q.score, " + StatsRollupService.TOPIC_NAME_SQL + ", q.created_at FROM quiz_attempts q " +
+            "WHERE q.user_id > ? AND q.user_id <= ? ORDER BY q.user_id, q.created_at, q.id";
+
+    private static final String WRITE_USERS_SQL =
+            "UPDATE users u SET points = d.points, badge_mask = u.badge_mask | d.mask " +
+            "FROM unnest(?::bigint[], ?::int[], ?::bigint[]) AS d(id, points, mask) WHERE u.id = d.id";
+
+    private static final String WRITE_DAILY_SQL =
+            "INSERT INTO user_points_daily (user_id, day, points) " +
+            "SELECT * FROM unnest(?::bigint[], ?::date[], ?::int[])";
+
+    private static final int DAYS_KEPT = LeaderboardService.Window.MONTH.days;
+
+    /** One keyset chunk: users with {@code afterId < id <= toId}. */
+    record Chunk(long seq, long afterId, long toId, long[] userIds) {}
+
+    private final RecomputeJobRepository jobRepository;
+    private final BadgeService badgeService;
+    private final StatsRollupService statsRollupService;
+    private final ProgressRollupService progressRollupService;
+    private final TopicRegistry topicRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int threads;
+    private final int fetchSize;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "recompute-job");
+        t.setDaemon(true); // an interrupted run resumes from its checkpoint on the next start
+        return t;
+    });
+    private volatile Long activeJobId;
+
+    public RecomputeJobService(RecomputeJobRepository jobRepository,
+                               BadgeService badgeService,
+                               StatsRollupService statsRollupService,
+                               ProgressRollupService progressRollupService,
+                               TopicRegistry topicRegistry,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${app.recompute.chunk-size:500}") int chunkSize,
+                               @Value("${app.recompute.threads:4}") int threads,
+                               @Value("${app.recompute.fetch-size:1000}") int fetchSize) {
+        this.jobRepository = jobRepository;
+        this.badgeService = badgeService;
+        this.statsRollupService = statsRollupService;
+        this.progressRollupService = progressRollupService;
+        this.topicRegistry = topicRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = Math.max(1, threads);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // ==============================
+    // ▶️ Start / resume / progress
+    // ==============================
+
+    /**
+     * Starts a recompute in the background, or resumes the latest one if it did not complete.
+     * Returns the job immediately; poll {@link #progress()} for status.
+     */
+    public synchronized RecomputeJob start() {
+        if (activeJobId != null) {
+            return jobRepository.findById(activeJobId).orElseThrow();
+        }
+        RecomputeJob job = jobRepository.findFirstByOrderByIdDesc()
+                .filter(j -> j.getStatus() != RecomputeJob.Status.COMPLETED)
+                .orElseGet(RecomputeJob::new);
+        if (job.getId() != null) {
+            log.info("⏯️ Resuming recompute job {} after user {}", job.getId(), job.getLastUserId());
+        }
+        job.setStatus(RecomputeJob.Status.RUNNING);
+        job.setError(null);
+        job.setFinishedAt(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        Long remaining = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE id > ?", Long.class, job.getLastUserId());
+        job.setUsersTotal(job.getUsersDone() + (remaining != null ? remaining : 0L));
+        RecomputeJob saved = jobRepository.save(job);
+
+        activeJobId = saved.getId();
+        runner.submit(() -> run(saved));
+        return saved;
+    }
+
+    /** Latest job with a completion percentage, or an empty map if none ever ran. */
+    public Map<String, Object> progress() {
+        return jobRepository.findFirstByOrderByIdDesc().map(this::describe).orElseGet(Map::of);
+    }
+
+    /** A run that was still RUNNING when the process stopped is picked up again on startup. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        jobRepository.findFirstByOrderByIdDesc()
+                .filter(j -> j.getStatus() == RecomputeJob.Status.RUNNING)
+                .ifPresent(j -> start());
+    }
+
+    // ==============================
+    // 🏭 Producer
+    // ==============================
+
+    private void run(RecomputeJob job) {
+        long startedAt = System.currentTimeMillis();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "recompute-chunk"));
+        Semaphore inFlight = new Semaphore(threads * 2);
+        Watermark watermark = new Watermark(job.getLastUserId(), job.getUsersDone(), job.getChunksDone());
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            statsRollupService.insertMissingTopics();
+
+            long after = job.getLastUserId();
+            for (long seq = 0; !watermark.failed(); seq++) {
+                long[] ids = jdbcTemplate.queryForList(USER_IDS_SQL, Long.class, after, chunkSize)
+                        .stream().mapToLong(Long::longValue).toArray();
+                if (ids.length == 0) break;
+
+                Chunk chunk = new Chunk(seq, after, ids[ids.length - 1], ids);
+                after = chunk.toId();
+                inFlight.acquire();
+                futures.add(pool.submit(() -> {
+                    try {
+                        process(chunk);
+                        synchronized (watermark) { // checkpoints must reach the table in order
+                            Watermark.Advance adv = watermark.complete(chunk);
+                            if (adv != null) {
+                                jobRepository.checkpoint(job.getId(), adv.lastUserId(), adv.usersDone(),
+                                        adv.chunksDone(), LocalDateTime.now());
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        watermark.fail(e);
+                        log.error("❌ Recompute chunk {} (users {}..{}] failed: {}",
+                                chunk.seq(), chunk.afterId(), chunk.toId(), e.getMessage(), e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            watermark.fail(e);
+        } catch (ExecutionException | RuntimeException e) {
+            watermark.fail(e);
+        } finally {
+            pool.shutdown();
+        }
+
+        finish(job, watermark, System.currentTimeMillis() - startedAt);
+    }
+
+    private void finish(RecomputeJob job, Watermark watermark, long elapsedMs) {
+        Throwable error = watermark.error();
+        try {
+            if (error == null) {
+                jobRepository.finish(job.getId(), RecomputeJob.Status.COMPLETED, null, LocalDateTime.now());
+                topicRegistry.reload();
+                eventPublisher.publishEvent(new RecomputeFinishedEvent(job.getId(), watermark.usersDone()));
+                log.info("✅ Recompute job {} finished: {} users in {} chunks, {} ms",
+                        job.getId(), watermark.usersDone(), watermark.chunksDone(), elapsedMs);
+            } else {
+                String message = String.valueOf(error.getMessage());
+                jobRepository.finish(job.getId(), RecomputeJob.Status.FAILED,
+                        message.length() > 500 ? message.substring(0, 500) : message, LocalDateTime.now());
+                log.warn("⚠️ Recompute job {} stopped after user {}; start it again to resume",
+                        job.getId(), watermark.lastUserId());
+            }
+        } finally {
+            activeJobId = null;
+        }
+    }
+
+    // ==============================
+    // ⚙️ One chunk
+    // ==============================
+
+    private void process(Chunk chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, UserTotals> totals = new HashMap<>(chunk.userIds().length * 2);
+            for (long id : chunk.userIds()) totals.put(id, new UserTotals());
+
+            int firstDay = (int) LocalDate.now().toEpochDay() - DAYS_KEPT + 1;
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(ATTEMPTS_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize); // cursor-based fetch: the connection is not in autocommit here
+                ps.setLong(1, chunk.afterId());
+                ps.setLong(2, chunk.toId());
+                return ps;
+            }, rs -> {
+                UserTotals t = totals.computeIfAbsent(rs.getLong(1), id -> new UserTotals());
+                Timestamp at = rs.getTimestamp(4);
+                int day = at == null ? -1 : (int) at.toLocalDateTime().toLocalDate().toEpochDay();
+                t.add(rs.getInt(2), rs.getString(3), day >= firstDay ? day : -1);
+            });
+
+            writeUsers(totals);
+            writeDaily(chunk, totals);
+            statsRollupService.rebuildUsers(chunk.afterId(), chunk.toId());
+            progressRollupService.rebuildUsers(chunk.afterId(), chunk.toId());
+        });
+    }
+
+    private void writeUsers(Map<Long, UserTotals> totals) {
+        BadgeRuleEngine rules = badgeService.engine();
+        Long[] ids = new Long[totals.size()];
+        Integer[] points = new Integer[totals.size()];
+        Long[] masks = new Long[totals.size()];
+        int i = 0;
+        for (Map.Entry<Long, UserTotals> e : totals.entrySet()) {
+            ids[i] = e.getKey();
+            points[i] = e.getValue().points;
+            masks[i] = e.getValue().badgeMask(rules);
+            i++;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(WRITE_USERS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("integer", points));
+            ps.setArray(3, con.createArrayOf("bigint", masks));
+            return ps;
+        });
+    }
+
+    private void writeDaily(Chunk chunk, Map<Long, UserTotals> totals) {
+        jdbcTemplate.update("DELETE FROM user_points_daily WHERE user_id > ? AND user_id <= ?",
+                chunk.afterId(), chunk.toId());
+
+        List<Long> users = new ArrayList<>();
+        List<Date> days = new ArrayList<>();
+        List<Integer> points = new ArrayList<>();
+        totals.forEach((userId, t) -> t.daily.forEach((day, p) -> {
+            users.add(userId);
+            days.add(Date.valueOf(LocalDate.ofEpochDay(day)));
+            points.add(p);
+        }));
+        if (users.isEmpty()) return;
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(WRITE_DAILY_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", users.toArray()));
+            ps.setArray(2, con.createArrayOf("date", days.toArray()));
+            ps.setArray(3, con.createArrayOf("integer", points.toArray()));
+            return ps;
+        });
+    }
+
+    /** Everything the job derives for one user, folded from their attempts in time order. */
+    static final class UserTotals {
+        int points;
+        int streak;
+        int bestStreak;
+        final Map<String, int[]> topics = new HashMap<>();   // topic → {score sum, attempts}
+        final Map<Integer, Integer> daily = new TreeMap<>(); // epoch day → points (recent days only)
+
+        void add(int score, String topic, int day) {
+            int earned = PointsLedgerService.pointsForScore(score);
+            points += earned;
+            streak = score >= BadgeService.STREAK_PASS_SCORE ? streak + 1 : 0;
+            bestStreak = Math.max(bestStreak, streak);
+            if (topic != null) {
+                int[] agg = topics.computeIfAbsent(topic, k -> new int[2]);
+                agg[0] += score;
+                agg[1]++;
+            }
+            if (day >= 0) daily.merge(day, earned, Integer::sum);
+        }
+
+        /** Every badge the history ever qualified for (a streak counts if it was reached at any point). */
+        long badgeMask(BadgeRuleEngine rules) {
+            long mask = rules.pointsMask(points) | rules.streakMask(bestStreak);
+            for (Map.Entry<String, int[]> e : topics.entrySet()) {
+                int[] agg = e.getValue();
+                mask |= rules.masteryMask(e.getKey(), (double) agg[0] / agg[1], agg[1]);
+            }
+            return mask;
+        }
+    }
+
+    // ==============================
+    // 📍 Checkpoint tracking
+    // ==============================
+
+    /**
+     * Chunks finish out of order; the checkpoint may only move past a chunk once every
+     * earlier chunk has committed too. Finished chunks wait here until the gap closes.
+     */
+    static final class Watermark {
+
+        record Advance(long lastUserId, long usersDone, int chunksDone) {}
+
+        private final Map<Long, Chunk> finished = new HashMap<>();
+        private long nextSeq;
+        private long lastUserId;
+        private long usersDone;
+        private int chunksDone;
+        private Throwable error;
+
+        Watermark(long lastUserId, long usersDone, int chunksDone) {
+            this.lastUserId = lastUserId;
+            this.usersDone = usersDone;
+            this.chunksDone = chunksDone;
+        }
+
+        /** Records a committed chunk; returns the new checkpoint if it moved. */
+        synchronized Advance complete(Chunk chunk) {
+            finished.put(chunk.seq(), chunk);
+            boolean moved = false;
+            Chunk next;
+            while ((next = finished.remove(nextSeq)) != null) {
+                lastUserId = next.toId();
+                usersDone += next.userIds().length;
+                chunksDone++;
+                nextSeq++;
+                moved = true;
+            }
+            return moved ? new Advance(lastUserId, usersDone, chunksDone) : null;
+        }
+
+        synchronized void fail(Throwable t) {
+            if (error == null) error = t;
+        }
+
+        synchronized boolean failed() {
+            return error != null;
+        }
+
+        synchronized Throwable error() {
+            return error;
+        }
+
+        synchronized long lastUserId() {
+            return lastUserId;
+        }
+
+        synchronized long usersDone() {
+            return usersDone;
+        }
+
+        synchronized int chunksDone() {
+            return chunksDone;
+        }
+    }
+
+    private Map<String, Object> describe(RecomputeJob job) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("jobId", job.getId());
+        out.put("status", job.getStatus().name());
+        out.put("usersDone", job.getUsersDone());
+        out.put("usersTotal", job.getUsersTotal());
+        out.put("percent", job.getUsersTotal() == 0 ? 100.0
+                : Math.round(job.getUsersDone() * 1000.0 / job.getUsersTotal()) / 10.0);
+        out.put("chunksDone", job.getChunksDone());
+        out.put("lastUserId", job.getLastUserId());
+        out.put("startedAt", job.getStartedAt().toString());
+        out.put("updatedAt", job.getUpdatedAt().toString());
+        out.put("finishedAt", job.getFinishedAt() != null ? job.getFinishedAt().toString() : null);
+        out.put("error", job.getError());
+        return out;
+    }
+}
@@ -0,0 +1,168 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Resource;
+import com.intelliquiz.backend.repository.ResourceRepository;
+import com.intelliquiz.backend.repository.TopicRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * ResourceIndexService
+ * - In-memory topic → ranked resources index, so recommendations never scan resources with LIKE
+ * - Ranking: exact topic match, then resources whose topic contains the quiz topic as whole
+ *   words, then broader resources whose topic is contained in it; teacher uploads before
+ *   student uploads, newest first
+ * - Kept current by ResourceService on upload and delete (applied after commit); topics first
+ *   seen after a refresh are ranked once from the in-memory resource list and cached
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResourceIndexService {
+
+    public record Entry(Long id, String fileName, String topic, String uploaderRole, LocalDateTime uploadedAt) {}
+
+    private static final Comparator<Entry> NEWEST_TEACHER_FIRST = Comparator
+            .comparing((Entry e) -> !"TEACHER".equalsIgnoreCase(e.uploaderRole()))
+            .thenComparing(Entry::uploadedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Entry::id, Comparator.reverseOrder());
+
+    private final ResourceRepository resourceRepository;
+    private final TopicRepository topicRepository;
+
+    // replaced as a whole on every change; readers never lock
+    private volatile Index index = new Index(List.of());
+
+    // ==============================
+    // 🚀 Build
+    // ==============================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Entry> entries = resourceRepository.findAll().stream().map(ResourceIndexService::entry).toList();
+        Index built = new Index(entries);
+        topicRepository.findAll().forEach(t -> built.ranked(t.getName()));
+        entries.forEach(e -> built.ranked(e.topic()));
+        synchronized (this) {
+            index = built;
+        }
+        log.info("📚 Resource index built: {} resources over {} topics", entries.size(), built.byTopic.size());
+    }
+
+    // ==============================
+    // 📝 Change hooks (ResourceService)
+    // ==============================
+
+    public void resourceAdded(Resource resource) {
+        Entry added = entry(resource);
+        afterCommit(() -> replace(current -> {
+            List<Entry> next = new ArrayList<>(current.size() + 1);
+            for (Entry e : current) if (!e.id().equals(added.id())) next.add(e);
+            next.add(added);
+            return next;
+        }, added.topic()));
+    }
+
+    public void resourceRemoved(Long resourceId) {
+        afterCommit(() -> replace(current -> current.stream().filter(e -> !e.id().equals(resourceId)).toList(), null));
+    }
+
+    // ==============================
+    // 🔎 Lookups
+    // ==============================
+
+    /** Best resources for each topic, in the order given. */
+    public List<Map<String, Object>> forTopics(List<String> topics, int perTopic) {
+        Index snapshot = index;
+        List<Map<String, Object>> out = new ArrayList<>(topics.size());
+        for (String topic : topics) {
+            List<Entry> ranked = snapshot.ranked(topic);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("topic", topic);
+            row.put("resources", ranked.size() <= perTopic ? ranked : ranked.subList(0, perTopic));
+            out.add(row);
+        }
+        return out;
+    }
+
+    // ==============================
+    // 🔧 Internals
+    // ==============================
+
+    /** Immutable resource list plus ranked lists per normalized topic, filled on first use. */
+    static final class Index {
+        final List<Entry> resources;
+        final Map<String, List<Entry>> byTopic = new ConcurrentHashMap<>();
+
+        Index(List<Entry> resources) {
+            this.resources = resources;
+        }
+
+        List<Entry> ranked(String topic) {
+            String key = TopicRegistry.normalize(topic);
+            List<Entry> hit = byTopic.get(key);
+            return hit != null ? hit : byTopic.computeIfAbsent(key, k -> rank(resources, k));
+        }
+    }
+
+    static List<Entry> rank(List<Entry> resources, String topicKey) {
+        String topicWords = " " + words(topicKey) + " ";
+        boolean byWords = !topicWords.isBlank(); // punctuation-only topics match exactly or not at all
+        List<List<Entry>> tiers = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (Entry e : resources) {
+            if (e.topic() == null) continue;
+            String resourceKey = TopicRegistry.normalize(e.topic());
+            String resourceWords = " " + words(resourceKey) + " ";
+            if (resourceKey.equals(topicKey)) tiers.get(0).add(e);
+            else if (byWords && resourceWords.contains(topicWords)) tiers.get(1).add(e);
+            else if (byWords && !resourceWords.isBlank() && topicWords.contains(resourceWords)) tiers.get(2).add(e);
+        }
+        List<Entry> ranked = new ArrayList<>();
+        for (List<Entry> tier : tiers) {
+            tier.sort(NEWEST_TEACHER_FIRST);
+            ranked.addAll(tier);
+        }
+        return List.copyOf(ranked);
+    }
+
+    private synchronized void replace(UnaryOperator<List<Entry>> change, String extraTopic) {
+        Index previous = index;
+        Index next = new Index(List.copyOf(change.apply(previous.resources)));
+        // re-rank every topic that was already served so the first reader after a change pays nothing
+        previous.byTopic.keySet().forEach(next::ranked);
+        if (extraTopic != null) next.ranked(extraTopic);
+        index = next;
+        log.debug("📚 Resource index refreshed: {} resources", next.resources.size());
+    }
+
+    private static String words(String normalized) {
+        return normalized.replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static Entry entry(Resource r) {
+        return new Entry(r.getId(), r.getFileName(), r.getTopic(), r.getUploaderRole(), r.getUploadedAt());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
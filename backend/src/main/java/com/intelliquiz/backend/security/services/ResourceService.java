@@ -28,6 +28,8 @@ public class ResourceService {
 
     private final ResourceRepository resourceRepository;
     private final UserRepository userRepository;
+    private final CounterService counterService;
+    private final ResourceIndexService resourceIndexService;
 
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
@@ -70,6 +72,8 @@ public class ResourceService {
             resource.setUploadedAt(LocalDateTime.now());
 
             Resource saved = resourceRepository.save(resource);
+            counterService.resourceAdded(uploader.getId());
+            resourceIndexService.resourceAdded(saved);
             log.info("✅ Saved resource {} by {}", uniqueFileName, uploader.getUsername());
             return saved;
 
@@ -114,6 +118,8 @@ public class ResourceService {
         }
 
         resourceRepository.delete(resource);
+        counterService.resourceRemoved(resource.getUploader().getId());
+        resourceIndexService.resourceRemoved(resource.getId());
         log.info("✅ Resource {} deleted by {}", id, currentUser.getUsername());
     }
 }
@@ -0,0 +1,211 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.ReviewSchedule;
+import com.intelliquiz.backend.repository.ReviewScheduleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReviewSchedulerService
+ * - SM-2 style spaced repetition per (user, topic): every submission reschedules that topic
+ * - Future reviews wait in a min-heap ordered by due minute; a once-a-minute tick moves
+ *   whatever became due into a per-user "due now" map
+ * - /quiz/due is a single map lookup, independent of attempt history or total schedule size
+ *
+ * Rescheduling does not search the heap: the latest due time per key is tracked separately
+ * and stale heap entries are dropped when they surface.
+ */
+@Slf4j
+@Service
+public class ReviewSchedulerService {
+
+    static final float INITIAL_EASE = 2.5f;
+    static final float MIN_EASE = 1.3f;
+    static final int MAX_INTERVAL_DAYS = 365;
+
+    private static final int TOPIC_BITS = 24;
+    private static final long TOPIC_MASK = (1L << TOPIC_BITS) - 1;
+
+    private record Pending(long key, long dueMinute) {}
+
+    private final ReviewScheduleRepository repository;
+    private final TopicRegistry topicRegistry;
+
+    // guarded by "this"
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(Comparator.comparingLong(Pending::dueMinute));
+    private final LongSlotIndex index = new LongSlotIndex(4096);
+    private long[] scheduled = new long[4096];
+
+    // userId → (topicId → due minute) for everything currently due
+    private final Map<Long, Map<Integer, Long>> dueByUser = new ConcurrentHashMap<>();
+
+    public ReviewSchedulerService(ReviewScheduleRepository repository, TopicRegistry topicRegistry) {
+        this.repository = repository;
+        this.topicRegistry = topicRegistry;
+    }
+
+    // ==============================
+    // 📝 Submission hook
+    // ==============================
+
+    /**
+     * Runs inside the submission's transaction: the row is locked while SM-2 is applied, so two
+     * concurrent submissions for the same topic cannot both start from the same state. The
+     * in-memory queue only changes once the transaction commits.
+     */
+    @EventListener
+    @Transactional
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        int topicId = topicRegistry.idOf(event.topic());
+        LocalDateTime reviewedAt = event.createdAt() != null ? event.createdAt() : LocalDateTime.now();
+
+        repository.insertIfAbsent(event.userId(), topicId, reviewedAt, INITIAL_EASE);
+        ReviewSchedule state = repository.findForUpdate(event.userId(), topicId)
+                .orElseThrow(() -> new IllegalStateException("Review schedule row missing after insert"));
+        applyReview(state, quality(event.score()), reviewedAt);
+        repository.save(state);
+
+        long key = key(event.userId(), topicId);
+        long dueMinute = toMinute(state.getDueAt());
+        afterCommit(() -> {
+            Map<Integer, Long> due = dueByUser.get(event.userId());
+            if (due != null) due.remove(topicId);
+            schedule(key, dueMinute);
+        });
+
+        log.debug("📅 Next review for user {} on '{}' in {} day(s)",
+                event.userId(), event.topic(), state.getIntervalDays());
+    }
+
+    // ==============================
+    // 📋 Queries
+    // ==============================
+
+    /** Topics due for review for this user, most overdue first. */
+    public List<Map<String, Object>> getDue(Long userId) {
+        Map<Integer, Long> due = dueByUser.get(userId);
+        if (due == null || due.isEmpty()) return Collections.emptyList();
+
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(due.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+
+        List<Map<String, Object>> out = new ArrayList<>(entries.size());
+        for (Map.Entry<Integer, Long> e : entries) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("topic", topicRegistry.nameOf(e.getKey()));
+            item.put("dueAt", fromMinute(e.getValue()).toString());
+            out.add(item);
+        }
+        return out;
+    }
+
+    // ==============================
+    // ⏰ Queue maintenance
+    // ==============================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Object[]> rows = repository.findAllDueTimes();
+        for (Object[] r : rows) {
+            schedule(key((Long) r[0], (Integer) r[1]), toMinute((LocalDateTime) r[2]));
+        }
+        tick();
+        log.info("📅 Review queue loaded: {} scheduled topics", rows.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.review.tick-ms:60000}")
+    public void tick() {
+        long now = toMinute(LocalDateTime.now());
+        int released = 0;
+        synchronized (this) {
+            while (!queue.isEmpty() && queue.peek().dueMinute() <= now) {
+                Pending p = queue.poll();
+                int slot = index.get(p.key());
+                if (slot < 0 || scheduled[slot] != p.dueMinute()) continue; // superseded by a newer review
+                dueByUser.computeIfAbsent(p.key() >>> TOPIC_BITS, id -> new ConcurrentHashMap<>())
+                        .put((int) (p.key() & TOPIC_MASK), p.dueMinute());
+                released++;
+            }
+        }
+        if (released > 0) log.debug("⏰ {} topic reviews became due", released);
+    }
+
+    private synchronized void schedule(long key, long dueMinute) {
+        int slot = index.getOrAdd(key);
+        scheduled = LongSlotIndex.fit(scheduled, index.size());
+        scheduled[slot] = dueMinute;
+        queue.add(new Pending(key, dueMinute));
+    }
+
+    // ==============================
+    // 📐 SM-2
+    // ==============================
+
+    /** Maps a percentage score to SM-2 recall quality (0-5). */
+    static int quality(int score) {
+        if (score >= 90) return 5;
+        if (score >= 80) return 4;
+        if (score >= 60) return 3;
+        if (score >= 40) return 2;
+        if (score >= 20) return 1;
+        return 0;
+    }
+
+    static void applyReview(ReviewSchedule s, int quality, LocalDateTime reviewedAt) {
+        int interval;
+        int reps = s.getRepetitions();
+        if (quality < 3) {
+            reps = 0;
+            interval = 1;
+        } else {
+            reps++;
+            if (reps == 1) interval = 1;
+            else if (reps == 2) interval = 6;
+            else interval = Math.round(s.getIntervalDays() * s.getEase());
+        }
+        float ease = s.getEase() + (0.1f - (5 - quality) * (0.08f + (5 - quality) * 0.02f));
+
+        s.setEase(Math.max(MIN_EASE, ease));
+        s.setRepetitions((short) Math.min(reps, Short.MAX_VALUE));
+        s.setIntervalDays((short) Math.min(Math.max(1, interval), MAX_INTERVAL_DAYS));
+        s.setDueAt(reviewedAt.plusDays(s.getIntervalDays()));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long key(Long userId, int topicId) {
+        return (userId << TOPIC_BITS) | topicId;
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+    }
+
+    private static LocalDateTime fromMinute(long minute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(minute * 60), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,107 @@
+package com.intelliquiz.backend.security.services;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Exact, mergeable distribution of integer scores 0-100: one counter per possible score.
+ *
+ * Because scores are whole percentages this is an HDR-style histogram with unit precision,
+ * so every percentile it reports is exact, memory is fixed (101 counters) and two histograms
+ * merge by adding counters — across topics, classes or weeks in any order.
+ *
+ * Serialized form: a version byte, then (gap to previous non-empty score, count) varint pairs
+ * for the non-empty scores only; a typical topic-week is a few dozen bytes.
+ * Not thread-safe; callers synchronize.
+ */
+final class ScoreHistogram {
+
+    static final int BINS = 101;
+    private static final byte VERSION = 1;
+
+    private final long[] counts = new long[BINS];
+    private long total;
+
+    void add(int score) {
+        add(score, 1);
+    }
+
+    void add(int score, long n) {
+        counts[Math.max(0, Math.min(100, score))] += n;
+        total += n;
+    }
+
+    void merge(ScoreHistogram other) {
+        for (int i = 0; i < BINS; i++) counts[i] += other.counts[i];
+        total += other.total;
+    }
+
+    long total() {
+        return total;
+    }
+
+    boolean isEmpty() {
+        return total == 0;
+    }
+
+    /** Nearest-rank percentile (0 < p <= 100), or -1 when empty. */
+    int percentile(double p) {
+        if (total == 0) return -1;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int score = 0; score < BINS; score++) {
+            seen += counts[score];
+            if (seen >= rank) return score;
+        }
+        return 100;
+    }
+
+    double mean() {
+        if (total == 0) return 0.0;
+        long sum = 0;
+        for (int score = 0; score < BINS; score++) sum += score * counts[score];
+        return (double) sum / total;
+    }
+
+    int min() {
+        for (int score = 0; score < BINS; score++) if (counts[score] > 0) return score;
+        return -1;
+    }
+
+    int max() {
+        for (int score = BINS - 1; score >= 0; score--) if (counts[score] > 0) return score;
+        return -1;
+    }
+
+    // ==============================
+    // 💾 Encoding
+    // ==============================
+
+    byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(VERSION);
+        int previous = -1;
+        for (int score = 0; score < BINS; score++) {
+            if (counts[score] == 0) continue;
+            Varints.write(out, score - previous);
+            Varints.write(out, counts[score]);
+            previous = score;
+        }
+        return out.toByteArray();
+    }
+
+    static ScoreHistogram decode(byte[] bytes) {
+        ScoreHistogram h = new ScoreHistogram();
+        if (bytes == null || bytes.length == 0) return h;
+        if (bytes[0] != VERSION) throw new IllegalArgumentException("Unknown score sketch version " + bytes[0]);
+
+        int[] pos = {1};
+        int score = -1;
+        while (pos[0] < bytes.length) {
+            score += (int) Varints.read(bytes, pos);
+            long n = Varints.read(bytes, pos);
+            if (score < 0 || score >= BINS) throw new IllegalArgumentException("Corrupt score sketch");
+            h.add(score, n);
+        }
+        return h;
+    }
+}
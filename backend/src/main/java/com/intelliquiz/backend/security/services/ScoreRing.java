@@ -0,0 +1,42 @@
+package com.intelliquiz.backend.security.services;
+
+/**
+ * Fixed-capacity ring of percentage scores (0-100), one byte per score.
+ * Not thread-safe; callers synchronize on the ring.
+ */
+final class ScoreRing {
+
+    private final byte[] scores;
+    private int head; // next write position
+    private int size;
+
+    ScoreRing(int capacity) {
+        this.scores = new byte[capacity];
+    }
+
+    void add(int score) {
+        scores[head] = (byte) Math.max(0, Math.min(100, score));
+        head = (head + 1) % scores.length;
+        if (size < scores.length) size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return scores.length;
+    }
+
+    /** The last {@code n} scores, oldest first. */
+    int[] last(int n) {
+        int count = Math.max(0, Math.min(n, size));
+        int[] out = new int[count];
+        int start = head - count;
+        if (start < 0) start += scores.length;
+        for (int i = 0; i < count; i++) {
+            out[i] = scores[(start + i) % scores.length] & 0xFF;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,273 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.exception.BadRequestException;
+import com.intelliquiz.backend.model.ScoreSketch;
+import com.intelliquiz.backend.repository.ClassroomMemberRepository;
+import com.intelliquiz.backend.repository.ScoreSketchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * ScoreSketchService
+ * - Per-topic score distributions for all students and for each classroom, one sketch per week
+ * - Submissions add to in-memory deltas after commit; a periodic flush merges them into
+ *   score_sketches (compact binary), so the hot path never locks a shared row
+ * - Percentiles for any topic set, class and date range merge at most (topics × weeks) sketches
+ *   of 101 counters each — no sorting and no scan of quiz_attempts
+ *
+ * Class sketches count attempts made while the student was a member; {@link #rebuild()}
+ * recomputes everything from quiz_attempts using current memberships.
+ */
+@Slf4j
+@Service
+public class ScoreSketchService {
+
+    private static final long ALL_STUDENTS = 0L;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO score_sketches (scope, scope_id, topic_id, week_start, attempt_count, counts, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (scope, scope_id, topic_id, week_start) DO UPDATE SET " +
+            "attempt_count = EXCLUDED.attempt_count, counts = EXCLUDED.counts, updated_at = EXCLUDED.updated_at";
+
+    record Key(short scope, long scopeId, int topicId, LocalDate weekStart) {}
+
+    private final ScoreSketchRepository repository;
+    private final ClassroomMemberRepository memberRepository;
+    private final TopicRegistry topicRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // serializes flush() and rebuild(); never held while a submission waits on "this"
+    private final Object flushLock = new Object();
+
+    // guarded by "this": deltas not yet in the table, and deltas being written right now
+    private Map<Key, ScoreHistogram> pending = new HashMap<>();
+    private Map<Key, ScoreHistogram> flushing = Map.of();
+
+    public ScoreSketchService(ScoreSketchRepository repository,
+                              ClassroomMemberRepository memberRepository,
+                              TopicRegistry topicRegistry,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.memberRepository = memberRepository;
+        this.topicRegistry = topicRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==============================
+    // 📝 Submission hook
+    // ==============================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        int topicId = topicRegistry.idOf(event.topic());
+        LocalDate week = weekOf(event.createdAt() != null ? event.createdAt().toLocalDate() : LocalDate.now());
+        List<Long> classrooms = memberRepository.findClassroomIds(event.userId());
+
+        synchronized (this) {
+            delta(new Key(ScoreSketch.SCOPE_TOPIC, ALL_STUDENTS, topicId, week)).add(event.score());
+            for (Long classroomId : classrooms) {
+                delta(new Key(ScoreSketch.SCOPE_CLASSROOM, classroomId, topicId, week)).add(event.score());
+            }
+        }
+    }
+
+    // ==============================
+    // 📊 Percentiles
+    // ==============================
+
+    /**
+     * Distribution summary for a topic (or all topics when {@code topic} is null), across all
+     * students or one classroom, for attempts in the whole weeks covering [{@code from}, {@code to}]
+     * (either may be null). Sketches are weekly, so {@code from} is widened to its Monday and
+     * {@code to} to its Sunday; the response's "from" / "to" are that effective range.
+     */
+    public Map<String, Object> percentiles(Long classroomId, String topic, LocalDate from, LocalDate to,
+                                           List<Double> ps) {
+        for (Double p : ps) {
+            if (p == null || p <= 0 || p > 100) throw new BadRequestException("Percentiles must be in (0, 100]: " + p);
+        }
+        short scope = classroomId != null ? ScoreSketch.SCOPE_CLASSROOM : ScoreSketch.SCOPE_TOPIC;
+        long scopeId = classroomId != null ? classroomId : ALL_STUDENTS;
+        Integer topicId = topic == null ? null : topicRegistry.peekId(topic);
+        LocalDate fromWeek = from != null ? weekOf(from) : LocalDate.of(1970, 1, 5);
+        LocalDate toWeek = to != null ? weekOf(to) : LocalDate.of(9999, 12, 27);
+
+        ScoreHistogram merged = new ScoreHistogram();
+        if (topicId == null || topicId >= 0) {
+            List<byte[]> rows = topicId == null
+                    ? jdbcTemplate.queryForList(
+                            "SELECT counts FROM score_sketches WHERE scope = ? AND scope_id = ? " +
+                            "AND week_start BETWEEN ? AND ?", byte[].class,
+                            scope, scopeId, Date.valueOf(fromWeek), Date.valueOf(toWeek))
+                    : jdbcTemplate.queryForList(
+                            "SELECT counts FROM score_sketches WHERE scope = ? AND scope_id = ? AND topic_id = ? " +
+                            "AND week_start BETWEEN ? AND ?", byte[].class,
+                            scope, scopeId, topicId, Date.valueOf(fromWeek), Date.valueOf(toWeek));
+            for (byte[] row : rows) merged.merge(ScoreHistogram.decode(row));
+
+            synchronized (this) {
+                mergeMatching(merged, pending, scope, scopeId, topicId, fromWeek, toWeek);
+                mergeMatching(merged, flushing, scope, scopeId, topicId, fromWeek, toWeek);
+            }
+        }
+
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        for (Double p : ps) {
+            String label = "p" + (p == Math.rint(p) ? String.valueOf(p.intValue()) : String.valueOf(p));
+            percentiles.put(label, merged.isEmpty() ? null : merged.percentile(p));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("topic", topic);
+        response.put("classroomId", classroomId);
+        response.put("from", from != null ? fromWeek.toString() : null);
+        response.put("to", to != null ? toWeek.plusDays(6).toString() : null);
+        response.put("count", merged.total());
+        response.put("mean", merged.isEmpty() ? null : Math.round(merged.mean() * 100.0) / 100.0);
+        response.put("min", merged.isEmpty() ? null : merged.min());
+        response.put("max", merged.isEmpty() ? null : merged.max());
+        response.put("percentiles", percentiles);
+        return response;
+    }
+
+    // ==============================
+    // 💾 Flush / rebuild
+    // ==============================
+
+    /** Merges accumulated deltas into score_sketches, one read-modify-write per touched sketch. */
+    @Scheduled(fixedDelayString = "${app.sketches.flush-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Key, ScoreHistogram> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                batch = pending;
+                flushing = batch;
+                pending = new HashMap<>();
+            }
+
+            boolean written = false;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    for (Map.Entry<Key, ScoreHistogram> e : batch.entrySet()) {
+                        Key k = e.getKey();
+                        List<byte[]> existing = jdbcTemplate.queryForList(
+                                "SELECT counts FROM score_sketches WHERE scope = ? AND scope_id = ? AND topic_id = ? " +
+                                "AND week_start = ? FOR UPDATE", byte[].class,
+                                k.scope(), k.scopeId(), k.topicId(), Date.valueOf(k.weekStart()));
+                        ScoreHistogram merged = existing.isEmpty() ? new ScoreHistogram() : ScoreHistogram.decode(existing.get(0));
+                        merged.merge(e.getValue());
+                        jdbcTemplate.update(UPSERT_SQL, k.scope(), k.scopeId(), k.topicId(), Date.valueOf(k.weekStart()),
+                                merged.total(), merged.encode(), now);
+                    }
+                });
+                written = true;
+                log.debug("💾 Flushed {} score sketches", batch.size());
+            } catch (RuntimeException e) {
+                log.error("❌ Score sketch flush failed, will retry: {}", e.getMessage());
+            } finally {
+                synchronized (this) {
+                    if (!written) batch.forEach((k, h) -> delta(k).merge(h)); // keep for the next flush
+                    flushing = Map.of();
+                }
+            }
+        }
+    }
+
+    /** Recomputes every sketch from quiz_attempts (class sketches use current memberships). */
+    public Map<String, Integer> rebuild() {
+        synchronized (flushLock) {
+            synchronized (this) {
+                pending = new HashMap<>();
+            }
+            return rebuildLocked();
+        }
+    }
+
+    private Map<String, Integer> rebuildLocked() {
+        log.info("🔄 Rebuilding score sketches from quiz_attempts");
+
+        Map<Key, ScoreHistogram> built = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT q.topic, date_trunc('week', q.created_at)::date, q.score, COUNT(*) FROM quiz_attempts q " +
+                "WHERE q.created_at IS NOT NULL GROUP BY 1, 2, 3",
+                rs -> {
+                    Key k = new Key(ScoreSketch.SCOPE_TOPIC, ALL_STUDENTS, topicRegistry.idOf(rs.getString(1)),
+                            rs.getDate(2).toLocalDate());
+                    built.computeIfAbsent(k, x -> new ScoreHistogram()).add(rs.getInt(3), rs.getLong(4));
+                });
+        jdbcTemplate.query(
+                "SELECT m.classroom_id, q.topic, date_trunc('week', q.created_at)::date, q.score, COUNT(*) " +
+                "FROM quiz_attempts q JOIN classroom_members m ON m.user_id = q.user_id " +
+                "WHERE q.created_at IS NOT NULL GROUP BY 1, 2, 3, 4",
+                rs -> {
+                    Key k = new Key(ScoreSketch.SCOPE_CLASSROOM, rs.getLong(1), topicRegistry.idOf(rs.getString(2)),
+                            rs.getDate(3).toLocalDate());
+                    built.computeIfAbsent(k, x -> new ScoreHistogram()).add(rs.getInt(4), rs.getLong(5));
+                });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ScoreSketch> rows = new ArrayList<>(built.size());
+        built.forEach((k, h) -> {
+            ScoreSketch s = new ScoreSketch();
+            s.setScope(k.scope());
+            s.setScopeId(k.scopeId());
+            s.setTopicId(k.topicId());
+            s.setWeekStart(k.weekStart());
+            s.setAttemptCount(h.total());
+            s.setCounts(h.encode());
+            s.setUpdatedAt(now);
+            rows.add(s);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.deleteAllInBatch();
+            repository.saveAll(rows);
+        });
+
+        log.info("✅ Score sketches rebuilt: {} sketches", rows.size());
+        return Map.of("sketches", rows.size());
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    static LocalDate weekOf(LocalDate day) {
+        return day.with(DayOfWeek.MONDAY);
+    }
+
+    private ScoreHistogram delta(Key key) {
+        return pending.computeIfAbsent(key, k -> new ScoreHistogram());
+    }
+
+    private static void mergeMatching(ScoreHistogram into, Map<Key, ScoreHistogram> deltas, short scope, long scopeId,
+                                      Integer topicId, LocalDate fromWeek, LocalDate toWeek) {
+        for (Map.Entry<Key, ScoreHistogram> e : deltas.entrySet()) {
+            Key k = e.getKey();
+            if (k.scope() != scope || k.scopeId() != scopeId) continue;
+            if (topicId != null && k.topicId() != topicId) continue;
+            if (k.weekStart().isBefore(fromWeek) || k.weekStart().isAfter(toWeek)) continue;
+            into.merge(e.getValue());
+        }
+    }
+}
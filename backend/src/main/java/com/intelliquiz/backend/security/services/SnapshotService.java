@@ -0,0 +1,225 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * SnapshotService
+ * - Periodically copies quiz_attempts into a columnar snapshot file on local disk
+ *   (see {@link ColumnarSnapshot} for the encoding); the newest file is kept loaded
+ * - Historical reports (attempts, students and average score per topic or difficulty over a
+ *   date range) are answered by scanning the snapshot in-process, so they never touch Postgres
+ * - Reports are as fresh as the last snapshot; each response says when it was taken
+ */
+@Slf4j
+@Service
+public class SnapshotService {
+
+    private static final String PREFIX = "attempts-";
+    private static final String SUFFIX = ".iqcs";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final Path dir;
+    private final int keep;
+    private final int fetchSize;
+
+    // serializes takeSnapshot(); readers only use "current"
+    private final Object writeLock = new Object();
+    private volatile ColumnarSnapshot current;
+
+    public SnapshotService(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.snapshots.dir:snapshots}") String dir,
+                           @Value("${app.snapshots.keep:3}") int keep,
+                           @Value("${app.snapshots.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.dir = Paths.get(dir);
+        this.keep = Math.max(1, keep);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // ==============================
+    // 🚀 Startup
+    // ==============================
+
+    /** Loads the newest snapshot on disk; takes one if there is none yet. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLatest() {
+        try {
+            Optional<Path> latest = snapshotFiles().stream().findFirst();
+            if (latest.isPresent()) {
+                current = ColumnarSnapshot.read(latest.get());
+                log.info("🗂️ Loaded attempt snapshot {} ({} rows)", latest.get().getFileName(), current.rows());
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Could not load attempt snapshot, taking a new one: {}", e.getMessage());
+        }
+        try {
+            takeSnapshot();
+        } catch (RuntimeException e) {
+            log.error("❌ Initial attempt snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    // ==============================
+    // 📸 Snapshot job
+    // ==============================
+
+    /** Streams quiz_attempts (ordered by user, then time) into a new snapshot file and swaps it in. */
+    @Scheduled(cron = "${app.snapshots.cron:0 0 2 * * *}")
+    public Map<String, Object> takeSnapshot() {
+        synchronized (writeLock) {
+            long started = System.currentTimeMillis();
+            ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer();
+
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "SELECT user_id, created_at, topic, difficulty_level, score, time_taken FROM quiz_attempts " +
+                        "WHERE created_at IS NOT NULL ORDER BY user_id, created_at",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, rs -> {
+                Timestamp at = rs.getTimestamp(2);
+                String difficulty = rs.getString(4);
+                writer.add(rs.getLong(1), at.toLocalDateTime().atZone(ZoneId.systemDefault()).toEpochSecond(),
+                        TopicRegistry.normalize(rs.getString(3)),
+                        difficulty != null ? difficulty.trim().toLowerCase(Locale.ROOT) : "unknown",
+                        rs.getInt(5), rs.getInt(6));
+            }));
+
+            Path file;
+            try {
+                Files.createDirectories(dir);
+                file = dir.resolve(PREFIX + started + SUFFIX);
+                Path tmp = Files.createTempFile(dir, PREFIX, ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    writer.writeTo(out, started);
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                current = ColumnarSnapshot.read(file);
+                prune();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            log.info("📸 Attempt snapshot {} written: {} rows, {} bytes in {} ms",
+                    file.getFileName(), current.rows(), current.sizeBytes(), System.currentTimeMillis() - started);
+            return status();
+        }
+    }
+
+    public Map<String, Object> status() {
+        ColumnarSnapshot s = current;
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("available", s != null);
+        if (s != null) {
+            response.put("takenAt", takenAt(s).toString());
+            response.put("rows", s.rows());
+            response.put("topics", s.topicCount());
+            response.put("sizeBytes", s.sizeBytes());
+        }
+        try {
+            response.put("files", snapshotFiles().stream().map(p -> p.getFileName().toString()).toList());
+        } catch (IOException e) {
+            response.put("files", List.of());
+        }
+        return response;
+    }
+
+    // ==============================
+    // 📊 Reports
+    // ==============================
+
+    /**
+     * Attempts, distinct students and average score grouped by topic or difficulty for attempts
+     * on calendar days [{@code from}, {@code to}] (either may be null), largest groups first.
+     */
+    public Map<String, Object> report(String groupBy, LocalDate from, LocalDate to) {
+        ColumnarSnapshot s = current;
+        if (s == null) throw new BadRequestException("No attempt snapshot has been taken yet");
+        if (from != null && to != null && from.isAfter(to)) throw new BadRequestException("'from' is after 'to'");
+
+        ColumnarSnapshot.GroupBy by;
+        try {
+            by = ColumnarSnapshot.GroupBy.valueOf((groupBy == null ? "topic" : groupBy).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown groupBy: " + groupBy + " (use topic or difficulty)");
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long fromSecond = from != null ? from.atStartOfDay(zone).toEpochSecond() : Long.MIN_VALUE;
+        long toSecond = to != null ? to.plusDays(1).atStartOfDay(zone).toEpochSecond() : Long.MAX_VALUE;
+
+        long started = System.nanoTime();
+        List<Map<String, Object>> groups = new ArrayList<>();
+        for (ColumnarSnapshot.Group g : s.aggregate(by, fromSecond, toSecond)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(by.name().toLowerCase(Locale.ROOT), g.key());
+            row.put("attempts", g.attempts());
+            row.put("students", g.students());
+            row.put("averageScore", g.averageScore());
+            groups.add(row);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("groupBy", by.name().toLowerCase(Locale.ROOT));
+        response.put("from", from != null ? from.toString() : null);
+        response.put("to", to != null ? to.toString() : null);
+        response.put("snapshotTakenAt", takenAt(s).toString());
+        response.put("scanMicros", (System.nanoTime() - started) / 1000);
+        response.put("groups", groups);
+        return response;
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    /** Snapshot files, newest first. */
+    private List<Path> snapshotFiles() throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> files = snapshotFiles();
+        for (Path old : files.subList(Math.min(keep, files.size()), files.size())) {
+            Files.deleteIfExists(old);
+            log.debug("🗑️ Removed old attempt snapshot {}", old.getFileName());
+        }
+    }
+
+    private static LocalDateTime takenAt(ColumnarSnapshot s) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(s.takenAtMillis()), ZoneId.systemDefault());
+    }
+}
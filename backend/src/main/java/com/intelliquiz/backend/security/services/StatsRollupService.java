@@ -0,0 +1,176 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.UserStats;
+import com.intelliquiz.backend.model.UserTopicStats;
+import com.intelliquiz.backend.model.dto.TopicAnalyticsDTO;
+import com.intelliquiz.backend.repository.UserStatsRepository;
+import com.intelliquiz.backend.repository.UserTopicStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * StatsRollupService
+ * - Maintains user_stats and user_topic_stats (count, sum, min, max, last attempt)
+ * - Updated by one upsert per table inside the transaction that saves the QuizAttempt
+ * - Dashboards read these rows instead of aggregating quiz_attempts, so cost is independent of history
+ * - {@link #rebuild()} recomputes both tables from quiz_attempts ({@link #rebuildUsers} for one id range)
+ *
+ * Recent scores per user come from RecentScoresService, not from these rows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatsRollupService {
+
+    private static final String UPSERT_USER_SQL =
+            "INSERT INTO user_stats (user_id, attempt_count, score_sum, score_min, score_max, last_attempt_at) " +
+            "VALUES (?, 1, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "attempt_count = user_stats.attempt_count + 1, " +
+            "score_sum = user_stats.score_sum + EXCLUDED.score_sum, " +
+            "score_min = LEAST(user_stats.score_min, EXCLUDED.score_min), " +
+            "score_max = GREATEST(user_stats.score_max, EXCLUDED.score_max), " +
+            "last_attempt_at = GREATEST(user_stats.last_attempt_at, EXCLUDED.last_attempt_at)";
+
+    private static final String UPSERT_TOPIC_SQL =
+            "INSERT INTO user_topic_stats (user_id, topic_id, attempt_count, score_sum, score_min, score_max, last_attempt_at) " +
+            "VALUES (?, ?, 1, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, topic_id) DO UPDATE SET " +
+            "attempt_count = user_topic_stats.attempt_count + 1, " +
+            "score_sum = user_topic_stats.score_sum + EXCLUDED.score_sum, " +
+            "score_min = LEAST(user_topic_stats.score_min, EXCLUDED.score_min), " +
+            "score_max = GREATEST(user_topic_stats.score_max, EXCLUDED.score_max), " +
+            "last_attempt_at = GREATEST(user_topic_stats.last_attempt_at, EXCLUDED.last_attempt_at)";
+
+    // Normalized topic name, matching TopicRegistry.normalize()
+    static final String TOPIC_NAME_SQL = "COALESCE(NULLIF(lower(trim(q.topic)), ''), 'general')";
+
+    // %s is an optional WHERE clause on quiz_attempts q
+    private static final String REBUILD_USERS_SQL =
+            "INSERT INTO user_stats (user_id, attempt_count, score_sum, score_min, score_max, last_attempt_at) " +
+            "SELECT q.user_id, COUNT(*), SUM(q.score), MIN(q.score), MAX(q.score), MAX(q.created_at) " +
+            "FROM quiz_attempts q %s GROUP BY q.user_id";
+
+    private static final String REBUILD_TOPICS_SQL =
+            "INSERT INTO user_topic_stats (user_id, topic_id, attempt_count, score_sum, score_min, score_max, last_attempt_at) " +
+            "SELECT g.user_id, t.id, g.cnt, g.total, g.lo, g.hi, g.last_at " +
+            "FROM (SELECT q.user_id, " + TOPIC_NAME_SQL + " AS topic_name, COUNT(*) cnt, SUM(q.score) total, " +
+            "      MIN(q.score) lo, MAX(q.score) hi, MAX(q.created_at) last_at " +
+            "      FROM quiz_attempts q %s GROUP BY 1, 2) g " +
+            "JOIN topics t ON t.name = g.topic_name";
+
+    private final UserStatsRepository userStatsRepository;
+    private final UserTopicStatsRepository userTopicStatsRepository;
+    private final TopicRegistry topicRegistry;
+    private final JdbcTemplate jdbcTemplate;
+
+    // ==============================
+    // 📝 Incremental maintenance
+    // ==============================
+
+    /** Runs synchronously inside QuizAttemptService's transaction. */
+    @EventListener
+    public void onQuizSubmitted(QuizSubmittedEvent event) {
+        int score = Math.max(0, Math.min(100, event.score()));
+        Timestamp at = Timestamp.valueOf(event.createdAt() != null ? event.createdAt() : LocalDateTime.now());
+        int topicId = topicRegistry.idOf(event.topic());
+
+        jdbcTemplate.update(UPSERT_USER_SQL, event.userId(), score, score, score, at);
+        jdbcTemplate.update(UPSERT_TOPIC_SQL, event.userId(), topicId, score, score, score, at);
+    }
+
+    // ==============================
+    // 📊 Reads
+    // ==============================
+
+    public Optional<UserStats> userStats(Long userId) {
+        return userStatsRepository.findById(userId);
+    }
+
+    /** Per-topic accuracy from user_topic_stats (unsorted). */
+    public List<TopicAnalyticsDTO> topicAnalytics(Long userId) {
+        List<UserTopicStats> rows = userTopicStatsRepository.findByUserId(userId);
+        List<TopicAnalyticsDTO> out = new ArrayList<>(rows.size());
+        for (UserTopicStats s : rows) {
+            out.add(new TopicAnalyticsDTO(
+                    topicRegistry.nameOf(s.getTopicId()),
+                    Math.round(s.average() * 100.0) / 100.0,
+                    s.getAttemptCount()));
+        }
+        return out;
+    }
+
+    /** Last {@code n} scores of a packed window (one unsigned byte per score, oldest first), e.g. classroom_stats. */
+    public static List<Integer> recentScores(byte[] packed, int n) {
+        if (packed == null || packed.length == 0 || n <= 0) return new ArrayList<>();
+        int from = Math.max(0, packed.length - n);
+        List<Integer> out = new ArrayList<>(packed.length - from);
+        for (int i = from; i < packed.length; i++) out.add(packed[i] & 0xFF);
+        return out;
+    }
+
+    // ==============================
+    // 🔄 Rebuild
+    // ==============================
+
+    /**
+     * Recomputes both rollup tables from quiz_attempts in one transaction.
+     * Intended for admins after data fixes or when the rollups are first introduced.
+     */
+    @Transactional
+    public Map<String, Integer> rebuild() {
+        log.info("🔄 Rebuilding score rollups from quiz_attempts");
+
+        insertMissingTopics();
+        jdbcTemplate.update("DELETE FROM user_topic_stats");
+        jdbcTemplate.update("DELETE FROM user_stats");
+
+        int users = jdbcTemplate.update(String.format(REBUILD_USERS_SQL, ""));
+        int topics = jdbcTemplate.update(String.format(REBUILD_TOPICS_SQL, ""));
+
+        topicRegistry.reload();
+        log.info("✅ Rollups rebuilt: {} users, {} user-topic rows", users, topics);
+        return Map.of("users", users, "userTopics", topics);
+    }
+
+    /**
+     * Recomputes the rollups of users with {@code afterId < id <= toId} only.
+     * Used by the chunked recompute job; call {@link #insertMissingTopics()} once beforehand.
+     */
+    @Transactional
+    public int rebuildUsers(long afterId, long toId) {
+        jdbcTemplate.update("DELETE FROM user_topic_stats WHERE user_id > ? AND user_id <= ?", afterId, toId);
+        jdbcTemplate.update("DELETE FROM user_stats WHERE user_id > ? AND user_id <= ?", afterId, toId);
+
+        String range = "WHERE q.user_id > ? AND q.user_id <= ?";
+        int users = jdbcTemplate.update(String.format(REBUILD_USERS_SQL, range), afterId, toId);
+        jdbcTemplate.update(String.format(REBUILD_TOPICS_SQL, range), afterId, toId);
+        return users;
+    }
+
+    /**
+     * Drops the recent_scores columns user_stats and user_topic_stats used to carry; nothing read
+     * them, and ddl-auto=update never removes a column. Safe to call on every start.
+     */
+    public void dropRecentScoreColumns() {
+        jdbcTemplate.execute("ALTER TABLE user_stats DROP COLUMN IF EXISTS recent_scores");
+        jdbcTemplate.execute("ALTER TABLE user_topic_stats DROP COLUMN IF EXISTS recent_scores");
+    }
+
+    /** Adds a topics row for every topic name that appears in quiz_attempts. */
+    public void insertMissingTopics() {
+        jdbcTemplate.update(
+                "INSERT INTO topics (name, label) " +
+                "SELECT " + TOPIC_NAME_SQL + ", MIN(COALESCE(NULLIF(trim(q.topic), ''), 'General')) " +
+                "FROM quiz_attempts q GROUP BY 1 ON CONFLICT (name) DO NOTHING");
+    }
+}
@@ -0,0 +1,139 @@
+package com.intelliquiz.backend.security.services;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TinyLfuCache
+ * - Bounded key/value cache with W-TinyLFU admission: a small LRU window (1%) in front of a
+ *   segmented LRU main area (20% probation, 80% protected)
+ * - A window victim only enters the main area if the frequency sketch says it is more popular
+ *   than the main area's own victim, so one-off scans cannot flush hot entries
+ * - Hit, miss, eviction and invalidation counts are kept in LongAdders
+ *
+ * All structural operations are serialized on the cache; lookups are O(1).
+ */
+public class TinyLfuCache<K, V> {
+
+    private final String name;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+
+    // guarded by "this"
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public TinyLfuCache(String name, int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("capacity must be at least 2");
+        this.name = name;
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = Math.max(1, (int) (mainCapacity * 0.8));
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key);
+
+        V value = window.get(key);
+        if (value == null) {
+            value = probation.remove(key);
+            if (value != null) {
+                promote(key, value);
+            } else {
+                value = protectedSegment.get(key);
+            }
+        }
+
+        if (value != null) hits.increment();
+        else misses.increment();
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (window.containsKey(key)) { window.put(key, value); return; }
+        if (protectedSegment.containsKey(key)) { protectedSegment.put(key, value); return; }
+        if (probation.containsKey(key)) { probation.put(key, value); return; }
+
+        window.put(key, value);
+        if (window.size() > windowCapacity) {
+            Map.Entry<K, V> candidate = removeEldest(window);
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        if (window.remove(key) != null || probation.remove(key) != null || protectedSegment.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations.add(size());
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("name", name);
+        out.put("size", size());
+        out.put("capacity", windowCapacity + mainCapacity);
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRate", h + m == 0 ? 0.0 : Math.round(10000.0 * h / (h + m)) / 10000.0);
+        out.put("evictions", evictions.sum());
+        out.put("invalidations", invalidations.sum());
+        return out;
+    }
+
+    // ==============================
+    // 🔧 Segments
+    // ==============================
+
+    private void admit(K key, V value) {
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(key, value);
+            return;
+        }
+
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victimSegment.keySet().iterator().next();
+        if (sketch.frequency(key) > sketch.frequency(victim)) {
+            victimSegment.remove(victim);
+            probation.put(key, value);
+        }
+        evictions.increment(); // either the victim or the rejected candidate leaves the cache
+    }
+
+    private void promote(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedCapacity) {
+            Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> it = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = it.next();
+        Map.Entry<K, V> copy = new AbstractMap.SimpleImmutableEntry<>(eldest);
+        it.remove();
+        return copy;
+    }
+}
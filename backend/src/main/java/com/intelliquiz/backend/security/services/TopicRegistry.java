@@ -0,0 +1,77 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Topic;
+import com.intelliquiz.backend.repository.TopicRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TopicRegistry
+ * - In-memory dictionary of topic name ↔ integer id (plus a display label), backed by the topics table
+ * - Unknown names are inserted on first use, in their own transaction, so a caller that rolls
+ *   back cannot leave a cached id without a row; after that lookups never hit the database
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TopicRegistry {
+
+    public static final String DEFAULT_TOPIC = "general";
+
+    private final TopicRepository topicRepository;
+
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        topicRepository.findAll().forEach(this::remember);
+        log.info("📚 Topic dictionary loaded: {} topics", idsByName.size());
+    }
+
+    public static String normalize(String topic) {
+        if (topic == null || topic.isBlank()) return DEFAULT_TOPIC;
+        return topic.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public int idOf(String topic) {
+        String name = normalize(topic);
+        Integer id = idsByName.get(name);
+        if (id != null) return id;
+
+        topicRepository.insertIfAbsent(name, topic == null || topic.isBlank() ? "General" : topic.trim());
+        Topic saved = topicRepository.findByName(name)
+                .orElseThrow(() -> new IllegalStateException("Topic vanished after insert: " + name));
+        remember(saved);
+        return saved.getId();
+    }
+
+    /** Topic id if the name is known, or -1 without touching the database. */
+    public int peekId(String topic) {
+        return idsByName.getOrDefault(normalize(topic), -1);
+    }
+
+    /** Display label for a topic id (falls back to the normalized name). */
+    public String nameOf(int id) {
+        String name = namesById.get(id);
+        if (name != null) return name;
+        return topicRepository.findById(id).map(t -> { remember(t); return namesById.get(t.getId()); }).orElse(null);
+    }
+
+    /** Re-reads the whole dictionary, e.g. after a bulk job inserted topics directly in SQL. */
+    public void reload() {
+        warmUp();
+    }
+
+    private void remember(Topic topic) {
+        idsByName.put(topic.getName(), topic.getId());
+        namesById.put(topic.getId(), topic.getLabel() != null ? topic.getLabel() : topic.getName());
+    }
+}
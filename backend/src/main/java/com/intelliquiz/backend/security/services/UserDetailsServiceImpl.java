@@ -1,20 +1,161 @@
 package com.intelliquiz.backend.security.services;
 
+import com.intelliquiz.backend.event.UserAccountChangedEvent;
 import com.intelliquiz.backend.model.User;
 import com.intelliquiz.backend.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserDetailsServiceImpl
+ * - Loads {@link UserDetailsImpl} by username (login, tokens without claims) or by id, through
+ *   two bounded TinyLFU caches whose entries expire after a TTL
+ * - {@link UserAccountChangedEvent} drops the user's entries and records when the change
+ *   happened, so access tokens issued earlier are re-resolved (ROLES) or rejected (PASSWORD,
+ *   LOGOUT, DELETED) by {@link #principalFor}
+ *
+ * Change times are kept in memory for one token lifetime; after that every older token has expired.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
+
+    private record Entry(UserDetailsImpl details, long loadedAt) {}
+
     private final UserRepository userRepository;
+    private final TinyLfuCache<String, Entry> byUsername;
+    private final TinyLfuCache<Long, Entry> byId;
+    private final long ttlMs;
+    private final long tokenLifetimeMs;
+
+    // user id → time of the last change of each kind (epoch millis)
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> revokedAt = new ConcurrentHashMap<>();
+    // bumped by every change; a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  @Value("${app.auth.user-cache.size:10000}") int cacheSize,
+                                  @Value("${app.auth.user-cache.ttl-ms:300000}") long ttlMs,
+                                  @Value("${app.jwtExpirationMs}") long tokenLifetimeMs) {
+        this.userRepository = userRepository;
+        this.byUsername = new TinyLfuCache<>("userDetailsByUsername", cacheSize);
+        this.byId = new TinyLfuCache<>("userDetailsById", cacheSize);
+        this.ttlMs = ttlMs;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    // ==============================
+    // 🔎 Lookups
+    // ==============================
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException{
+        Entry cached = fresh(byUsername.get(username));
+        if (cached != null) return cached.details();
+
+        long seen = generation.get();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(()->new UsernameNotFoundException("User Not Found with username: "+username));
-        return UserDetailsImpl.build(user);
+        return remember(UserDetailsImpl.build(user), seen);
+    }
+
+    public UserDetailsImpl loadUserById(Long id) throws UsernameNotFoundException {
+        Entry cached = fresh(byId.get(id));
+        if (cached != null) return cached.details();
+
+        long seen = generation.get();
+        Optional<User> user = userRepository.findById(id);
+        return remember(UserDetailsImpl.build(user.orElseThrow(
+                () -> new UsernameNotFoundException("User Not Found with id: " + id))), seen);
+    }
+
+    /**
+     * Principal for a verified access token, or null when the token was revoked or its user is gone.
+     * {@code fromClaims} (null for tokens without id / roles claims) is trusted unless the user's
+     * account changed after the token was issued.
+     * Token issue times have one-second resolution, so a change only affects tokens issued in an
+     * earlier second; a token obtained right after a logout stays valid.
+     */
+    public UserDetailsImpl principalFor(UserDetailsImpl fromClaims, String username, Date issuedAt) {
+        long issued = issuedAt != null ? issuedAt.getTime() : 0L;
+        try {
+            UserDetailsImpl principal = fromClaims != null ? fromClaims : (UserDetailsImpl) loadUserByUsername(username);
+            Long id = principal.getId();
+            if (issued < wholeSecond(revokedAt.get(id))) return null;
+            if (fromClaims != null && issued < wholeSecond(changedAt.get(id))) return loadUserById(id);
+            return principal;
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+    public List<Map<String, Object>> cacheStats() {
+        return List.of(byUsername.stats(), byId.stats());
+    }
+
+    // ==============================
+    // 🔄 Invalidation
+    // ==============================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(UserAccountChangedEvent event) {
+        Long id = event.userId();
+        if (id == null) return;
+        long now = System.currentTimeMillis();
+        generation.incrementAndGet();
+        changedAt.merge(id, now, Math::max);
+        if (event.change() != UserAccountChangedEvent.Change.ROLES) revokedAt.merge(id, now, Math::max);
+
+        Entry cached = byId.get(id);
+        byId.invalidate(id);
+        if (cached != null) byUsername.invalidate(cached.details().getUsername());
+        // entries only reachable by username are caught by the changedAt check in fresh()
+        log.info("🔄 Account {} changed ({}); cached details dropped", id, event.change());
+    }
+
+    /** Forgets change times older than any token that could still be presented. */
+    @Scheduled(fixedDelayString = "${app.auth.user-cache.prune-ms:600000}")
+    public void pruneChanges() {
+        long cutoff = System.currentTimeMillis() - tokenLifetimeMs;
+        changedAt.values().removeIf(at -> at < cutoff);
+        revokedAt.values().removeIf(at -> at < cutoff);
+    }
+
+    // ==============================
+    // 🔧 Helpers
+    // ==============================
+
+    /** The entry, unless it expired or was loaded before the user's last change. */
+    private Entry fresh(Entry entry) {
+        if (entry == null) return null;
+        if (System.currentTimeMillis() - entry.loadedAt() > ttlMs) return null;
+        Long changed = changedAt.get(entry.details().getId());
+        return changed != null && entry.loadedAt() <= changed ? null : entry;
+    }
+
+    private UserDetailsImpl remember(UserDetailsImpl details, long seenGeneration) {
+        if (generation.get() == seenGeneration) {
+            Entry entry = new Entry(details, System.currentTimeMillis());
+            byUsername.put(details.getUsername(), entry);
+            byId.put(details.getId(), entry);
+        }
+        return details;
+    }
+
+    private static long wholeSecond(Long millis) {
+        return millis == null ? Long.MIN_VALUE : millis - Math.floorMod(millis, 1000L);
     }
 }
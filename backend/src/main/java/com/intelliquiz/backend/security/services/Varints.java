@@ -0,0 +1,42 @@
+package com.intelliquiz.backend.security.services;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * LEB128 varints (7 bits per byte, low bits first) and zigzag mapping for signed deltas,
+ * shared by the compact binary encodings (score sketches, columnar snapshots).
+ */
+final class Varints {
+
+    private Varints() {}
+
+    static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /** Reads one varint at {@code pos[0]} and advances it. */
+    static long read(byte[] bytes, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= bytes.length) throw new IllegalArgumentException("Truncated varint");
+            byte b = bytes[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+            if (shift > 63) throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -1,6 +1,7 @@
 package com.intelliquiz.backend.controller;
 
 import com.intelliquiz.backend.security.services.AnalyticsService;
+import com.intelliquiz.backend.security.services.LeaderboardStreamService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,9 @@ class AnalyticsControllerTest {
     @MockBean
     private com.intelliquiz.backend.repository.UserRepository userRepository;
 
+    @MockBean
+    private LeaderboardStreamService leaderboardStreamService;
+
     @Test
     void getStudentAnalytics_returns200() throws Exception {
         Mockito.when(userRepository.existsById(1L)).thenReturn(true);
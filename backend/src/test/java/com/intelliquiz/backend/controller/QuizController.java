@@ -1,4 +0,0 @@
-package com.intelliquiz.backend.controller;
-
-public class QuizController {
-}
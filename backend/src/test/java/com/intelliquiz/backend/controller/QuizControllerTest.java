@@ -0,0 +1,80 @@
+package com.intelliquiz.backend.controller;
+
+import com.intelliquiz.backend.model.QuizAttempt;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.security.services.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(QuizController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class QuizControllerTest {
+
+    private static final String BODY = "{\"userId\":7,\"topic\":\"AI\",\"difficulty\":\"easy\",\"timeTaken\":30," +
+            "\"answers\":[{\"questionId\":1,\"selectedAnswer\":\"a\",\"isCorrect\":true}]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean private QuizAttemptRepository quizAttemptRepository;
+    @MockBean private UserRepository userRepository;
+    @MockBean private AnalyticsService analyticsService;
+    @MockBean private IdempotencyService idempotencyService;
+    @MockBean private AbilityService abilityService;
+    @MockBean private QuizAttemptService quizAttemptService;
+    @MockBean private ReviewSchedulerService reviewSchedulerService;
+    @MockBean private ContentQuizService contentQuizService;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        Mockito.when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        Mockito.when(idempotencyService.claim(7L, "k1")).thenReturn(new IdempotencyService.Claim(IdempotencyService.Outcome.NEW, null));
+    }
+
+    @Test
+    void submit_failureAfterCommitKeepsKeyAndStoresResponse() throws Exception {
+        QuizAttempt attempt = new QuizAttempt();
+        attempt.setId(11L);
+        Mockito.when(quizAttemptService.recordAttempt(any(), any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), anyList()))
+                .thenReturn(attempt);
+        Mockito.when(abilityService.record(any(), any(), any(), anyInt(), anyInt())).thenThrow(new RuntimeException("boom"));
+
+        mockMvc.perform(post("/quiz/submit").header("Idempotency-Key", "k1")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextLevel").value("easy"));
+
+        Mockito.verify(idempotencyService).complete(eq(7L), eq("k1"), anyMap());
+        Mockito.verify(idempotencyService, Mockito.never()).release(any(), any());
+    }
+
+    @Test
+    void submit_failureBeforeCommitReleasesKey() throws Exception {
+        Mockito.when(quizAttemptService.recordAttempt(any(), any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), anyList()))
+                .thenThrow(new RuntimeException("db down"));
+
+        mockMvc.perform(post("/quiz/submit").header("Idempotency-Key", "k1")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isInternalServerError());
+
+        Mockito.verify(idempotencyService).release(7L, "k1");
+    }
+}
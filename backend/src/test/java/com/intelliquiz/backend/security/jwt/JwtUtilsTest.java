@@ -0,0 +1,123 @@
+package com.intelliquiz.backend.security.jwt;
+
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.model.Role;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.security.services.UserDetailsImpl;
+import com.intelliquiz.backend.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JwtUtilsTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    public void setup() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        jwtUtils.init();
+    }
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static UserDetailsImpl teacher() {
+        return new UserDetailsImpl(42L, "tina", "tina@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_TEACHER")));
+    }
+
+    @Test
+    public void testPrincipalOf_roundTripsIdAndRoles() {
+        Claims claims = jwtUtils.parseClaims(jwtUtils.generateToken(teacher()));
+
+        UserDetailsImpl principal = jwtUtils.principalOf(claims);
+        assertNotNull(principal);
+        assertEquals(42L, principal.getId());
+        assertEquals("tina", principal.getUsername());
+        assertNull(principal.getPassword());
+        assertEquals(List.of("ROLE_TEACHER"),
+                principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    public void testParseClaims_rejectsTamperedAndForeignTokens() {
+        String token = jwtUtils.generateToken(teacher());
+        assertNull(jwtUtils.parseClaims(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtUtils.parseClaims("not-a-jwt"));
+
+        String foreign = Jwts.builder().setSubject("tina")
+                .signWith(Keys.hmacShaKeyFor(SECRET.replace('0', '9').getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+        assertNull(jwtUtils.parseClaims(foreign));
+    }
+
+    @Test
+    public void testFilter_authenticatesFromClaimsWithoutUserLookup() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        AuthTokenFilter filter = new AuthTokenFilter(jwtUtils, new UserDetailsServiceImpl(userRepository, 100, 60_000, 60_000));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateToken(teacher()));
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("tina", auth.getName());
+        assertEquals(42L, ((UserDetailsImpl) auth.getPrincipal()).getId());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testFilter_fallsBackToCachedUserLookupForTokensWithoutClaims() throws Exception {
+        User tina = new User();
+        tina.setId(42L);
+        tina.setUsername("tina");
+        tina.setPassword("hash");
+        tina.setRoles(Set.of(Role.builder().name(ERole.ROLE_TEACHER).build()));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("tina")).thenReturn(Optional.of(tina));
+        AuthTokenFilter filter = new AuthTokenFilter(jwtUtils, new UserDetailsServiceImpl(userRepository, 100, 60_000, 60_000));
+
+        String legacy = Jwts.builder().setSubject("tina")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer " + legacy);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            assertEquals("tina", SecurityContextHolder.getContext().getAuthentication().getName());
+        }
+        verify(userRepository, times(1)).findByUsername("tina");
+    }
+}
@@ -0,0 +1,75 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.UserTopicAbility;
+import com.intelliquiz.backend.repository.UserTopicAbilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AbilityServiceTest {
+
+    private UserTopicAbilityRepository repository;
+    private TopicRegistry topicRegistry;
+    private AbilityService abilityService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserTopicAbilityRepository.class);
+        topicRegistry = mock(TopicRegistry.class);
+        when(topicRegistry.idOf("AI")).thenReturn(3);
+        when(topicRegistry.peekId("AI")).thenReturn(3);
+        when(topicRegistry.peekId("Unknown")).thenReturn(-1);
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        abilityService = new AbilityService(repository, topicRegistry, 100);
+    }
+
+    @Test
+    void newLearner_startsOnEasy() {
+        AbilityService.Estimate estimate = abilityService.estimate(1L, "AI");
+        assertEquals(0, estimate.attempts());
+        assertEquals("easy", estimate.recommendedDifficulty());
+    }
+
+    @Test
+    void estimate_neverRegistersTopicsOrCachesKeys() {
+        assertEquals(0, abilityService.estimate(1L, "Unknown").attempts());
+        abilityService.estimate(1L, "AI");
+        abilityService.estimate(1L, "AI");
+
+        verify(topicRegistry, never()).idOf(anyString());
+        verify(repository, times(2)).findById(any()); // a read does not populate the cache
+        abilityService.record(1L, "AI", "medium", 5, 5);
+        assertEquals(1, abilityService.estimate(1L, "AI").attempts());
+        verify(repository, times(3)).findById(any());
+    }
+
+    @Test
+    void consistentPerfectScores_climbToHard() {
+        AbilityService.Estimate estimate = null;
+        for (int i = 0; i < 10; i++) {
+            estimate = abilityService.record(1L, "AI", "medium", 5, 5);
+        }
+        assertEquals(10, estimate.attempts());
+        assertEquals("hard", estimate.recommendedDifficulty());
+        verify(repository, times(10)).upsert(eq(1L), eq(3), anyFloat(), anyInt());
+        // history is never re-read after the first load
+        verify(repository, times(1)).findById(any());
+    }
+
+    @Test
+    void failingHardQuizzes_dropsAbility() {
+        UserTopicAbility row = new UserTopicAbility();
+        row.setRating(2f);
+        row.setAttempts(20);
+        when(repository.findById(any())).thenReturn(Optional.of(row));
+
+        AbilityService.Estimate estimate = abilityService.record(2L, "AI", "hard", 0, 5);
+        assertTrue(estimate.ability() < 2.0);
+        assertEquals(21, estimate.attempts());
+    }
+}
@@ -1,14 +1,17 @@
 package com.intelliquiz.backend.security.services;
 
+import com.intelliquiz.backend.model.User;
 import com.intelliquiz.backend.model.dto.TopicAnalyticsDTO;
 import com.intelliquiz.backend.repository.QuizAttemptRepository;
 import com.intelliquiz.backend.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
@@ -17,23 +20,32 @@ import java.util.Arrays;
 public class AnalyticsServiceTest {
 
     private QuizAttemptRepository quizAttemptRepository;
+    private UserRepository userRepository;
+    private PointsLedgerService pointsLedgerService;
+    private BadgeService badgeService;
+    private StatsRollupService statsRollupService;
     private AnalyticsService analyticsService;
 
     @BeforeEach
     public void setup() {
         quizAttemptRepository = mock(QuizAttemptRepository.class);
-        UserRepository userRepository = mock(UserRepository.class);
-        analyticsService = new AnalyticsService(quizAttemptRepository, userRepository);
+        userRepository = mock(UserRepository.class);
+        pointsLedgerService = mock(PointsLedgerService.class);
+        badgeService = mock(BadgeService.class);
+        statsRollupService = mock(StatsRollupService.class);
+        analyticsService = new AnalyticsService(quizAttemptRepository, userRepository, pointsLedgerService,
+                badgeService, statsRollupService, mock(RecentScoresService.class), mock(LeaderboardService.class),
+                mock(ClassroomService.class), mock(RecomputeJobService.class),
+                mock(ScoreSketchService.class), mock(ProgressRollupService.class), mock(ResourceIndexService.class), 100);
     }
 
     @Test
     public void testGetTopicAnalytics_mapsRowsCorrectly() {
         Long userId = 42L;
-        // Simulate repository rows: [topic, avgScore, count]
-        Object[] row1 = new Object[] {"AI", 78.5, 4L};
-        Object[] row2 = new Object[] {"Math", 62.0, 3L};
-
-        when(quizAttemptRepository.findTopicAveragesByUser(userId)).thenReturn(Arrays.asList(row1, row2));
+        // Simulate rollup rows: topic, avgScore, count
+        when(statsRollupService.topicAnalytics(userId)).thenReturn(new ArrayList<>(Arrays.asList(
+                new TopicAnalyticsDTO("Math", 62.0, 3L),
+                new TopicAnalyticsDTO("AI", 78.5, 4L))));
 
         List<TopicAnalyticsDTO> result = analyticsService.getTopicAnalytics(userId);
         assertNotNull(result);
@@ -50,17 +62,18 @@ public class AnalyticsServiceTest {
         assertEquals(62.0, second.getAccuracy(), 0.01);
         assertEquals(3L, second.getAttempts());
 
-        verify(quizAttemptRepository, times(1)).findTopicAveragesByUser(userId);
+        assertEquals("AI", result.get(0).getTopic()); // strongest first
+        verify(statsRollupService, times(1)).topicAnalytics(userId);
+        verifyNoInteractions(quizAttemptRepository);
     }
 
     @Test
     public void testGetWeakTopics_returnsLowest() {
         Long userId = 1L;
-        Object[] row1 = new Object[] {"AI", 90.0, 5L};
-        Object[] row2 = new Object[] {"Physics", 40.0, 2L};
-        Object[] row3 = new Object[] {"Math", 55.0, 3L};
-
-        when(quizAttemptRepository.findTopicAveragesByUser(userId)).thenReturn(Arrays.asList(row1, row2, row3));
+        when(statsRollupService.topicAnalytics(userId)).thenReturn(new ArrayList<>(Arrays.asList(
+                new TopicAnalyticsDTO("AI", 90.0, 5L),
+                new TopicAnalyticsDTO("Physics", 40.0, 2L),
+                new TopicAnalyticsDTO("Math", 55.0, 3L))));
 
         List<String> weak = analyticsService.getWeakTopics(userId, 2);
         assertNotNull(weak);
@@ -68,4 +81,37 @@ public class AnalyticsServiceTest {
         assertEquals("Physics", weak.get(0)); // lowest
         assertEquals("Math", weak.get(1));
     }
+
+    @Test
+    public void testGetStudentAnalytics_cachedUntilPointsChange() {
+        User user = new User();
+        user.setId(5L);
+        when(userRepository.findById(5L)).thenReturn(java.util.Optional.of(user));
+        when(statsRollupService.userStats(5L)).thenReturn(java.util.Optional.empty());
+        when(statsRollupService.topicAnalytics(5L)).thenReturn(new ArrayList<>());
+
+        analyticsService.getStudentAnalytics(5L);
+        analyticsService.getStudentAnalytics(5L);
+        verify(userRepository, times(1)).findById(5L);
+
+        analyticsService.onPointsChanged(new com.intelliquiz.backend.event.PointsChangedEvent(5L, 25, 25));
+        analyticsService.getStudentAnalytics(5L);
+        verify(userRepository, times(2)).findById(5L);
+    }
+
+    @Test
+    public void testUpdateGamification_accruesAtomicallyThenEvaluatesBadges() {
+        User user = new User();
+        user.setId(7L);
+        user.setBadgeMask(0b1L);
+
+        when(pointsLedgerService.accrue(7L, 50)).thenReturn(520);
+        when(badgeService.evaluate(7L, 0b1L, 520, "AI")).thenReturn(0b11L);
+
+        analyticsService.updateGamification(user, 90, "AI");
+
+        verify(pointsLedgerService).accrue(7L, 50);
+        verify(badgeService).evaluate(7L, 0b1L, 520, "AI");
+        verify(userRepository, never()).save(any());
+    }
 }
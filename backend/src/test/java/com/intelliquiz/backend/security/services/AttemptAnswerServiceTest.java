@@ -0,0 +1,92 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.AttemptAnswer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AttemptAnswerServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AttemptAnswerService service;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new AttemptAnswerService(jdbcTemplate);
+    }
+
+    @Test
+    public void testFromSubmission_fallbacksAliasesAndNullEntries() {
+        List<Map<String, Object>> answers = new ArrayList<>();
+        answers.add(Map.of("questionId", 7, "selectedAnswer", " Paris ", "isCorrect", true, "timeTaken", 12));
+        answers.add(null);
+        answers.add(Map.of("chosenAnswer", "Rome", "isCorrect", false));
+        answers.add(Map.of("questionId", "4", "selectedOption", 2));
+
+        List<AttemptAnswer> rows = service.fromSubmission(9L, answers);
+
+        assertEquals(3, rows.size());
+        assertEquals(7, rows.get(0).getQuestionId());
+        assertEquals("Paris", rows.get(0).getChosenAnswer());
+        assertTrue(rows.get(0).isCorrect());
+        assertEquals(12, rows.get(0).getTimeTaken());
+
+        assertEquals(3, rows.get(1).getQuestionId()); // no id → 1-based position, null entry still counted
+        assertEquals("Rome", rows.get(1).getChosenAnswer());
+        assertFalse(rows.get(1).isCorrect());
+        assertNull(rows.get(1).getTimeTaken());
+
+        assertEquals(4, rows.get(2).getQuestionId());
+        assertNull(rows.get(2).getChosenAnswer()); // a bare option index is not stored
+        assertEquals(9L, rows.get(2).getAttemptId());
+
+        assertTrue(service.fromSubmission(9L, null).isEmpty());
+    }
+
+    @Test
+    public void testAnswerText_trimsBlanksAndLength() {
+        assertNull(AttemptAnswerService.answerText("  "));
+        assertEquals(AttemptAnswer.MAX_ANSWER_LENGTH, AttemptAnswerService.answerText("x".repeat(900)).length());
+    }
+
+    @Test
+    public void testSaveAll_bindsEveryColumnAsOneArray() throws Exception {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenReturn(2);
+        List<AttemptAnswer> rows = List.of(
+                new AttemptAnswer(5L, 1, "a", true, 3),
+                new AttemptAnswer(5L, 2, null, false, null));
+
+        assertEquals(2, service.saveAll(rows));
+
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate, times(1)).update(creator.capture());
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+        when(con.createArrayOf(anyString(), any())).thenReturn(mock(Array.class));
+        creator.getValue().createPreparedStatement(con);
+
+        verify(con).prepareStatement(contains("unnest"));
+        verify(con).createArrayOf("bigint", new Long[]{5L, 5L});
+        verify(con).createArrayOf("integer", new Integer[]{1, 2});
+        verify(con).createArrayOf("varchar", new String[]{"a", null});
+        verify(con).createArrayOf("boolean", new Boolean[]{true, false});
+        verify(con).createArrayOf("integer", new Integer[]{3, null});
+        verify(ps, times(5)).setArray(anyInt(), any());
+
+        assertEquals(0, service.saveAll(List.of()));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+}
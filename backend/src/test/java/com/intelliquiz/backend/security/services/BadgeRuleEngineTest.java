@@ -0,0 +1,64 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Badge;
+import com.intelliquiz.backend.model.EBadgeRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BadgeRuleEngineTest {
+
+    private BadgeRuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = BadgeRuleEngine.compile(List.of(
+                Badge.builder().bit(2).name("Gold").ruleType(EBadgeRule.POINTS_AT_LEAST).threshold(1000).build(),
+                Badge.builder().bit(0).name("Bronze").ruleType(EBadgeRule.POINTS_AT_LEAST).threshold(200).build(),
+                Badge.builder().bit(1).name("Silver").ruleType(EBadgeRule.POINTS_AT_LEAST).threshold(500).build(),
+                Badge.builder().bit(3).name("Hot Streak").ruleType(EBadgeRule.STREAK_AT_LEAST).threshold(3).build(),
+                Badge.builder().bit(5).name("AI Master").ruleType(EBadgeRule.TOPIC_MASTERY)
+                        .threshold(90).minAttempts(5).topic("AI").build()
+        ));
+    }
+
+    @Test
+    void pointsMask_includesEveryThresholdReached() {
+        assertEquals(0L, engine.pointsMask(199));
+        assertEquals(0b001L, engine.pointsMask(200));
+        assertEquals(0b011L, engine.pointsMask(999));
+        assertEquals(0b111L, engine.pointsMask(5000));
+    }
+
+    @Test
+    void streakAndMastery_onlyNeededWhileUnearned() {
+        assertTrue(engine.needsStreak(0L));
+        assertFalse(engine.needsStreak(1L << 3));
+        assertEquals(3, engine.maxStreak());
+        assertEquals(1L << 3, engine.streakMask(4));
+
+        assertEquals(0L, engine.masteryMask("AI", 95.0, 4));
+        assertEquals(0L, engine.masteryMask("Math", 95.0, 10));
+        assertEquals(1L << 5, engine.masteryMask("ai", 95.0, 5));
+        assertFalse(engine.needsMastery(1L << 5));
+    }
+
+    @Test
+    void mastery_matchesTopicsTrimmedAndLowerCased() {
+        assertEquals(1L << 5, engine.masteryMask("  AI ", 95.0, 5));
+        assertEquals(1L << 5, engine.masteryBitsFor(" ai"));
+        assertEquals(0L, engine.masteryBitsFor("Math"));
+        assertEquals(0L, engine.masteryBitsFor(null));
+    }
+
+    @Test
+    void names_decodesMaskInBitOrder() {
+        assertEquals(List.of("Bronze", "Gold", "AI Master"), engine.names((1L << 0) | (1L << 2) | (1L << 5)));
+        assertTrue(engine.names(0L).isEmpty());
+        assertEquals(1L << 1, engine.bitOf("silver"));
+        assertEquals(0L, engine.bitOf("Platinum"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Badge;
+import com.intelliquiz.backend.model.EBadgeRule;
+import com.intelliquiz.backend.model.UserTopicStats;
+import com.intelliquiz.backend.repository.BadgeRepository;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import com.intelliquiz.backend.repository.UserTopicStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BadgeServiceTest {
+
+    private QuizAttemptRepository quizAttemptRepository;
+    private UserTopicStatsRepository userTopicStatsRepository;
+    private TopicRegistry topicRegistry;
+    private BadgeService badgeService;
+
+    @BeforeEach
+    public void setup() {
+        BadgeRepository badgeRepository = mock(BadgeRepository.class);
+        when(badgeRepository.findAllByOrderByBitAsc()).thenReturn(List.of(
+                Badge.builder().bit(5).name("AI Master").ruleType(EBadgeRule.TOPIC_MASTERY)
+                        .threshold(90).minAttempts(5).topic("AI").build()));
+        quizAttemptRepository = mock(QuizAttemptRepository.class);
+        userTopicStatsRepository = mock(UserTopicStatsRepository.class);
+        topicRegistry = mock(TopicRegistry.class);
+        badgeService = new BadgeService(badgeRepository, mock(UserRepository.class), quizAttemptRepository,
+                mock(JdbcTemplate.class), mock(RecentScoresService.class), userTopicStatsRepository, topicRegistry);
+    }
+
+    @Test
+    public void testEvaluate_masteryFromTopicStatsRow() {
+        when(topicRegistry.peekId(" ai ")).thenReturn(4);
+        UserTopicStats stats = new UserTopicStats();
+        stats.setAttemptCount(5);
+        stats.setScoreSum(470);
+        when(userTopicStatsRepository.findById(any())).thenReturn(Optional.of(stats));
+
+        assertEquals(1L << 5, badgeService.evaluate(7L, 0L, 0, " ai "));
+        verify(quizAttemptRepository, never()).findTopicStats(anyLong(), anyString());
+    }
+
+    @Test
+    public void testEvaluate_fallsBackToAttemptsWithNormalizedTopic() {
+        when(topicRegistry.peekId("AI")).thenReturn(-1);
+        when(quizAttemptRepository.findTopicStats(7L, "ai")).thenReturn(List.<Object[]>of(new Object[]{95.0, 6L}));
+
+        assertEquals(1L << 5, badgeService.evaluate(7L, 0L, 0, "AI"));
+    }
+
+    @Test
+    public void testEvaluate_skipsLookupsForTopicsWithoutRules() {
+        assertEquals(0L, badgeService.evaluate(7L, 0L, 0, "Math"));
+        verifyNoInteractions(userTopicStatsRepository, quizAttemptRepository, topicRegistry);
+    }
+}
@@ -0,0 +1,65 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Classroom;
+import com.intelliquiz.backend.model.ClassroomMember;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ClassroomServiceTest {
+
+    @Test
+    public void testBucketOf_foldsPerfectScoreIntoLastBucket() {
+        assertEquals(0, ClassroomService.bucketOf(0));
+        assertEquals(0, ClassroomService.bucketOf(9));
+        assertEquals(5, ClassroomService.bucketOf(55));
+        assertEquals(9, ClassroomService.bucketOf(90));
+        assertEquals(9, ClassroomService.bucketOf(100));
+    }
+
+    @Test
+    public void testDistribution_labelsEveryBucket() {
+        int[] histogram = {0, 0, 0, 0, 1, 2, 3, 4, 5, 6};
+
+        List<Map<String, Object>> out = ClassroomService.distribution(histogram);
+
+        assertEquals(10, out.size());
+        assertEquals("0-9", out.get(0).get("range"));
+        assertEquals("90-100", out.get(9).get("range"));
+        assertEquals(6, out.get(9).get("count"));
+        assertEquals(0, ClassroomService.distribution(null).get(3).get("count"));
+    }
+
+    @Test
+    public void testRequireViewable_membersTeacherButNotOutsiders() {
+        Classroom classroom = new Classroom("Class", 10L);
+        classroom.setId(1L);
+        ClassroomRepository classrooms = mock(ClassroomRepository.class);
+        when(classrooms.findById(1L)).thenReturn(Optional.of(classroom));
+        ClassroomMemberRepository members = mock(ClassroomMemberRepository.class);
+        when(members.existsById(new ClassroomMember.Key(1L, 100L))).thenReturn(true);
+        ClassroomService service = new ClassroomService(classrooms, members, mock(ClassroomStatsRepository.class),
+                mock(ClassroomTopicStatsRepository.class), mock(UserRepository.class), mock(TopicRegistry.class),
+                mock(CounterService.class), mock(JdbcTemplate.class));
+
+        assertSame(classroom, service.requireViewable(1L, user(10L)));
+        assertSame(classroom, service.requireViewable(1L, user(100L)));
+        assertThrows(AccessDeniedException.class, () -> service.requireViewable(1L, user(200L)));
+        assertThrows(AccessDeniedException.class, () -> service.requireManageable(1L, user(100L)));
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
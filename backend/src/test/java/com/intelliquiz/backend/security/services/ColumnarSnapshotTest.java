@@ -0,0 +1,89 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarSnapshotTest {
+
+    private static final long DAY = 86_400L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRoundTrip_aggregatesByTopicWithinRange() throws Exception {
+        ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer();
+        // user 1: two java attempts on day 0 and 1, one sql on day 5
+        writer.add(1, 0, "java", "easy", 80, 30);
+        writer.add(1, DAY, "java", "hard", 60, 45);
+        writer.add(1, 5 * DAY, "sql", "easy", 90, 20);
+        // user 7: java on day 1, sql on day 2
+        writer.add(7, DAY + 10, "java", "easy", 100, 12);
+        writer.add(7, 2 * DAY, "sql", "hard", 40, 50);
+
+        ColumnarSnapshot snapshot = write(writer, 1234L);
+        assertEquals(5, snapshot.rows());
+        assertEquals(1234L, snapshot.takenAtMillis());
+        assertEquals(2, snapshot.topicCount());
+
+        List<ColumnarSnapshot.Group> all = snapshot.aggregate(ColumnarSnapshot.GroupBy.TOPIC, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(List.of(
+                new ColumnarSnapshot.Group("java", 3, 2, 80.0),
+                new ColumnarSnapshot.Group("sql", 2, 2, 65.0)), all);
+
+        // [day 1, day 3): drops user 1's first java attempt and the day-5 sql attempt
+        List<ColumnarSnapshot.Group> window = snapshot.aggregate(ColumnarSnapshot.GroupBy.TOPIC, DAY, 3 * DAY);
+        assertEquals(List.of(
+                new ColumnarSnapshot.Group("java", 2, 2, 80.0),
+                new ColumnarSnapshot.Group("sql", 1, 1, 40.0)), window);
+
+        List<ColumnarSnapshot.Group> byDifficulty =
+                snapshot.aggregate(ColumnarSnapshot.GroupBy.DIFFICULTY, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(new ColumnarSnapshot.Group("easy", 3, 2, 90.0), byDifficulty.get(0));
+        assertEquals(new ColumnarSnapshot.Group("hard", 2, 2, 50.0), byDifficulty.get(1));
+    }
+
+    @Test
+    public void testAggregate_spansManyBatches() throws Exception {
+        ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer();
+        int rows = ColumnarSnapshot.BATCH * 3 + 17;
+        long expectedInRange = 0;
+        for (int i = 0; i < rows; i++) {
+            long user = i / 10;
+            long time = user * 1000 + i; // sorted by user, then time
+            writer.add(user, time, i % 2 == 0 ? "even" : "odd", "medium", i % 101, 10);
+            if (time >= 5_000 && time < 200_000 && i % 2 == 0) expectedInRange++;
+        }
+
+        ColumnarSnapshot snapshot = write(writer, 0L);
+        long total = snapshot.aggregate(ColumnarSnapshot.GroupBy.TOPIC, Long.MIN_VALUE, Long.MAX_VALUE)
+                .stream().mapToLong(ColumnarSnapshot.Group::attempts).sum();
+        assertEquals(rows, total);
+
+        ColumnarSnapshot.Group even = snapshot.aggregate(ColumnarSnapshot.GroupBy.TOPIC, 5_000, 200_000).stream()
+                .filter(g -> g.key().equals("even")).findFirst().orElseThrow();
+        assertEquals(expectedInRange, even.attempts());
+    }
+
+    @Test
+    public void testRead_rejectsForeignFile() throws Exception {
+        Path file = dir.resolve("bogus.iqcs");
+        Files.write(file, new byte[] {1, 2, 3, 4, 0, 0, 0, 1});
+        assertThrows(java.io.IOException.class, () -> ColumnarSnapshot.read(file));
+    }
+
+    private ColumnarSnapshot write(ColumnarSnapshot.Writer writer, long takenAt) throws Exception {
+        Path file = dir.resolve("attempts-" + takenAt + ".iqcs");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writer.writeTo(out, takenAt);
+        }
+        return ColumnarSnapshot.read(file);
+    }
+}
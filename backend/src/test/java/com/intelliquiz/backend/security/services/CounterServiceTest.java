@@ -0,0 +1,76 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.repository.DashboardCounterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class CounterServiceTest {
+
+    private CounterService counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new CounterService(mock(DashboardCounterRepository.class), mock(JdbcTemplate.class));
+    }
+
+    @Test
+    public void testWriteHooks_applyImmediatelyOutsideTransaction() {
+        counters.userRegistered(List.of(ERole.ROLE_TEACHER));
+        counters.userRegistered(List.of(ERole.ROLE_STUDENT));
+        counters.resourceAdded(7L);
+        counters.resourceAdded(7L);
+        counters.resourceRemoved(7L);
+        counters.classroomCreated(7L);
+        counters.studentsChanged(7L, 3);
+        counters.studentsChanged(7L, -1);
+
+        assertEquals(2, counters.get(CounterService.USERS_TOTAL));
+        assertEquals(1, counters.usersWithRole(ERole.ROLE_TEACHER));
+        assertEquals(0, counters.usersWithRole(ERole.ROLE_ADMIN));
+        assertEquals(1, counters.get(CounterService.RESOURCES_TOTAL));
+        assertEquals(1, counters.forUser(7L, "resources"));
+        assertEquals(1, counters.forUser(7L, "classes"));
+        assertEquals(2, counters.forUser(7L, "students"));
+        assertEquals(0, counters.forUser(8L, "students"));
+    }
+
+    @Test
+    public void testQuizSubmissions_countAttemptsAndDistinctUsers() {
+        counters.onQuizSubmitted(event(1L));
+        counters.onQuizSubmitted(event(1L));
+        counters.onQuizSubmitted(event(2L));
+
+        assertEquals(3, counters.attemptsToday());
+        assertEquals(2, counters.activeUsersToday());
+    }
+
+    @Test
+    public void testConcurrentSubmissions_noIncrementLost() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            long userId = i % 50;
+            pool.execute(() -> counters.onQuizSubmitted(event(userId)));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(8_000, counters.attemptsToday());
+        assertEquals(50, counters.activeUsersToday());
+    }
+
+    private static QuizSubmittedEvent event(Long userId) {
+        return new QuizSubmittedEvent(userId, 1L, "AI", "medium", 80, 4, 5, 30, LocalDateTime.now());
+    }
+}
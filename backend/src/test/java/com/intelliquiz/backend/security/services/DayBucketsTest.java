@@ -0,0 +1,44 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DayBucketsTest {
+
+    private static final int DAY = 20000;
+
+    @Test
+    public void testSum_mergesBucketsInsideTheWindow() {
+        DayBuckets buckets = new DayBuckets(30);
+        buckets.add(1L, DAY - 10, 25);
+        buckets.add(1L, DAY - 3, 50);
+        buckets.add(1L, DAY, 10);
+        buckets.add(1L, DAY, 10);
+
+        assertEquals(20, buckets.sum(1L, DAY, 1));
+        assertEquals(70, buckets.sum(1L, DAY, 7));
+        assertEquals(95, buckets.sum(1L, DAY, 30));
+        assertEquals(0, buckets.sum(2L, DAY, 30));
+    }
+
+    @Test
+    public void testSum_expiresDaysThatLeftTheWindow() {
+        DayBuckets buckets = new DayBuckets(30);
+        buckets.add(1L, DAY, 40);
+
+        assertEquals(40, buckets.sum(1L, DAY + 6, 7));
+        assertEquals(0, buckets.sum(1L, DAY + 7, 7));
+        assertEquals(0, buckets.sum(1L, DAY + 30, 30));
+    }
+
+    @Test
+    public void testAdd_reusesRingSlotsAfterWrapping() {
+        DayBuckets buckets = new DayBuckets(7);
+        buckets.add(1L, DAY, 10);
+        buckets.add(1L, DAY + 7, 5); // same ring slot as DAY
+
+        assertEquals(5, buckets.sum(1L, DAY + 7, 7));
+        assertEquals(5, buckets.sum(1L, DAY + 7, 1));
+    }
+}
@@ -0,0 +1,119 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class DifficultyCalibrationServiceTest {
+
+    @Test
+    public void testBuild_measuresDifficultyAndDiscrimination() {
+        DifficultyCalibrationService.Responses r = new DifficultyCalibrationService.Responses();
+        for (int student = 0; student < 200; student++) {
+            boolean strong = student % 2 == 0;
+            // question 1: everyone gets it right; question 2: only strong students do
+            r.add(3, 1, true, strong ? 1f : 0f);
+            r.add(3, 2, strong, strong ? 1f : 0f);
+            // question 3 on another topic: right one time in four, unrelated to the rest
+            r.add(5, 3, student % 4 == 0, 0.5f + (student % 3) * 0.1f);
+        }
+
+        DifficultyCalibrationService.Table t = DifficultyCalibrationService.build(r, 4, 1L);
+        DifficultyCalibrationService.Calibration easy = item(t, 3, 1);
+        DifficultyCalibrationService.Calibration split = item(t, 3, 2);
+        DifficultyCalibrationService.Calibration hard = item(t, 5, 3);
+
+        assertEquals(1.0, easy.pCorrect(), 1e-6);
+        assertEquals("easy", easy.label());
+        assertEquals(0.0, easy.discrimination(), 1e-6); // no variance, no information
+
+        assertEquals(0.5, split.pCorrect(), 1e-6);
+        assertEquals("medium", split.label());
+        assertEquals(1.0, split.discrimination(), 1e-6);
+
+        assertEquals(0.25, hard.pCorrect(), 1e-6);
+        assertEquals("hard", hard.label());
+        assertTrue(Math.abs(hard.discrimination()) < 0.2);
+
+        assertEquals(400, t.topicResponses[3]);
+        assertEquals(0.75, t.topicP[3], 1e-6);
+        assertEquals(600, t.answers);
+    }
+
+    @Test
+    public void testRecalibrate_skipsUnknownTopicsWithoutInserting() throws Exception {
+        TopicRegistry topics = mock(TopicRegistry.class);
+        when(topics.peekId("java")).thenReturn(3);
+        when(topics.peekId("ghost")).thenReturn(-1);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            handler.processRow(row(" Java ", 1, true));
+            handler.processRow(row("ghost", 2, false));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        DifficultyCalibrationService service = new DifficultyCalibrationService(topics, jdbcTemplate, transactionManager, 1, 100);
+        assertEquals(1L, service.recalibrate().get("answers"));
+
+        verify(topics, never()).idOf(anyString());
+    }
+
+    private static ResultSet row(String topic, int questionId, boolean correct) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(topic);
+        when(rs.getInt(2)).thenReturn(questionId);
+        when(rs.getBoolean(3)).thenReturn(correct);
+        when(rs.getInt(4)).thenReturn(correct ? 3 : 1);
+        when(rs.getInt(5)).thenReturn(4);
+        return rs;
+    }
+
+    @Test
+    public void testBuild_parallelMatchesSequential() {
+        DifficultyCalibrationService.Responses r = new DifficultyCalibrationService.Responses();
+        for (int i = 0; i < 50_000; i++) {
+            r.add(i % 7, i % 5, (i * 31) % 10 < 6, (i % 11) / 10f);
+        }
+
+        DifficultyCalibrationService.Table one = DifficultyCalibrationService.build(r, 1, 0L);
+        DifficultyCalibrationService.Table many = DifficultyCalibrationService.build(r, 8, 0L);
+        for (int topic = 0; topic < 7; topic++) {
+            for (int q = 0; q < 5; q++) {
+                DifficultyCalibrationService.Calibration a = item(one, topic, q);
+                DifficultyCalibrationService.Calibration b = item(many, topic, q);
+                assertEquals(a.responses(), b.responses());
+                assertEquals(a.pCorrect(), b.pCorrect(), 1e-6);
+                assertEquals(a.discrimination(), b.discrimination(), 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void testItem_belowMinimumHasNoLabel() {
+        DifficultyCalibrationService.Responses r = new DifficultyCalibrationService.Responses();
+        r.add(1, 0, true, 1f);
+        DifficultyCalibrationService.Table t = DifficultyCalibrationService.build(r, 2, 0L);
+
+        DifficultyCalibrationService.Calibration c = t.item(t.items.get(DifficultyCalibrationService.itemKey(1, 0)), 30);
+        assertEquals(1, c.responses());
+        assertNull(c.label());
+    }
+
+    private static DifficultyCalibrationService.Calibration item(DifficultyCalibrationService.Table t, int topic, int q) {
+        int slot = t.items.get(DifficultyCalibrationService.itemKey(topic, q));
+        assertTrue(slot >= 0);
+        return t.item(slot, 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportServiceTest {
+
+    @Test
+    public void testCsv_quotesOnlyWhenNeeded() {
+        assertEquals("Recursion", ExportService.csv("Recursion"));
+        assertEquals("\"Trees, Graphs\"", ExportService.csv("Trees, Graphs"));
+        assertEquals("\"say \"\"hi\"\"\"", ExportService.csv("say \"hi\""));
+        assertEquals("", ExportService.csv(null));
+    }
+
+    @Test
+    public void testCsv_neutralisesFormulas() {
+        assertEquals("'=SUM(A1:A9)", ExportService.csv("=SUM(A1:A9)"));
+        assertEquals("\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"", ExportService.csv("=HYPERLINK(\"x\",\"y\")"));
+    }
+
+    @Test
+    public void testFormatParse() {
+        assertEquals(ExportService.Format.NDJSON, ExportService.Format.parse("NDJSON"));
+        assertEquals("text/csv", ExportService.Format.parse("csv").contentType);
+        assertThrows(BadRequestException.class, () -> ExportService.Format.parse("xlsx"));
+    }
+}
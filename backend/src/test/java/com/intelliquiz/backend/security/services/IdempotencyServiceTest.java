@@ -0,0 +1,138 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intelliquiz.backend.model.IdempotencyRecord;
+import com.intelliquiz.backend.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTest {
+
+    // in-memory stand-in for idempotency_keys with the claim upsert's semantics
+    private final Map<String, IdempotencyRecord> table = new ConcurrentHashMap<>();
+    private IdempotencyRecordRepository repository;
+
+    @BeforeEach
+    public void setup() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.claim(anyString(), anyLong(), any(), any(), any())).thenAnswer(inv -> {
+            String id = inv.getArgument(0);
+            LocalDateTime now = inv.getArgument(2);
+            LocalDateTime leaseCutoff = inv.getArgument(3);
+            LocalDateTime expiredBefore = inv.getArgument(4);
+            synchronized (table) {
+                IdempotencyRecord row = table.get(id);
+                boolean takeOver = row != null && ((row.getResponse() == null && row.getCreatedAt().isBefore(leaseCutoff))
+                        || row.getCreatedAt().isBefore(expiredBefore));
+                if (row != null && !takeOver) return 0;
+                table.put(id, record(id, inv.getArgument(1), null, now));
+                return 1;
+            }
+        });
+        when(repository.complete(anyString(), anyString())).thenAnswer(inv -> {
+            IdempotencyRecord row = table.get(inv.<String>getArgument(0));
+            if (row == null) return 0;
+            row.setResponse(inv.getArgument(1));
+            return 1;
+        });
+        when(repository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(table.get(inv.<String>getArgument(0))));
+        doAnswer(inv -> table.remove(inv.<String>getArgument(0))).when(repository).deleteById(anyString());
+    }
+
+    @Test
+    public void testClaimCompleteReplay_fromCacheAndFromTable() {
+        IdempotencyService service = service();
+        assertEquals(IdempotencyService.Outcome.NEW, service.claim(1L, "k1").outcome());
+        assertEquals(IdempotencyService.Outcome.IN_FLIGHT, service.claim(1L, "k1").outcome());
+        assertEquals(IdempotencyService.Outcome.NEW, service.claim(2L, "k1").outcome()); // keys are per user
+
+        service.complete(1L, "k1", Map.of("score", 80));
+        IdempotencyService.Claim replay = service.claim(1L, "k1");
+        assertEquals(IdempotencyService.Outcome.REPLAY, replay.outcome());
+        assertEquals(80, replay.response().get("score"));
+
+        // another instance has an empty cache and replays from the table
+        IdempotencyService other = service();
+        assertEquals(80, other.claim(1L, "k1").response().get("score"));
+    }
+
+    @Test
+    public void testRelease_letsTheRetryRun() {
+        IdempotencyService service = service();
+        assertEquals(IdempotencyService.Outcome.NEW, service.claim(1L, "k1").outcome());
+        service.release(1L, "k1");
+        assertEquals(IdempotencyService.Outcome.NEW, service.claim(1L, "k1").outcome());
+    }
+
+    @Test
+    public void testAbandonedClaimIsTakenOverAndExpiredResponseNotReplayed() {
+        IdempotencyService service = service();
+        table.put("1:dead", record("1:dead", 1L, null, LocalDateTime.now().minusMinutes(10)));
+        table.put("1:fresh", record("1:fresh", 1L, null, LocalDateTime.now().minusMinutes(1)));
+        table.put("1:old", record("1:old", 1L, "{\"score\":10}", LocalDateTime.now().minusHours(30)));
+
+        assertEquals(IdempotencyService.Outcome.NEW, service.claim(1L, "dead").outcome());
+        assertEquals(IdempotencyService.Outcome.IN_FLIGHT, service.claim(1L, "dead").outcome());
+        assertEquals(IdempotencyService.Outcome.IN_FLIGHT, service.claim(1L, "fresh").outcome());
+        assertEquals(IdempotencyService.Outcome.NEW, service.claim(1L, "old").outcome());
+        assertNull(table.get("1:old").getResponse());
+    }
+
+    @Test
+    public void testConcurrentClaims_exactlyOneWins() throws Exception {
+        IdempotencyService service = service();
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyService.Outcome>> outcomes = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            outcomes.add(pool.submit(() -> {
+                start.await();
+                return service.claim(1L, "race").outcome();
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        int fresh = 0;
+        for (Future<IdempotencyService.Outcome> f : outcomes) {
+            IdempotencyService.Outcome outcome = f.get();
+            if (outcome == IdempotencyService.Outcome.NEW) fresh++;
+            else assertEquals(IdempotencyService.Outcome.IN_FLIGHT, outcome);
+        }
+        assertEquals(1, fresh);
+    }
+
+    @Test
+    public void testComplete_storeFailureStillReplaysLocally() {
+        IdempotencyService service = service();
+        service.claim(1L, "k1");
+        when(repository.complete(anyString(), anyString())).thenThrow(new RuntimeException("db down"));
+
+        service.complete(1L, "k1", Map.of("score", 50));
+
+        assertEquals(IdempotencyService.Outcome.REPLAY, service.claim(1L, "k1").outcome());
+    }
+
+    private IdempotencyService service() {
+        return new IdempotencyService(repository, new ObjectMapper(), 1000, 24, 100, 5);
+    }
+
+    private static IdempotencyRecord record(String id, Long userId, String response, LocalDateTime createdAt) {
+        IdempotencyRecord row = new IdempotencyRecord();
+        row.setId(id);
+        row.setUserId(userId);
+        row.setResponse(response);
+        row.setCreatedAt(createdAt);
+        return row;
+    }
+}
@@ -0,0 +1,29 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.PointsChangedEvent;
+import com.intelliquiz.backend.repository.UserPointsDailyRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class LeaderboardServiceTest {
+
+    @Test
+    public void testOnPointsChanged_staleTotalDoesNotLowerRank() {
+        LeaderboardService leaderboard = new LeaderboardService(
+                mock(UserRepository.class), mock(UserPointsDailyRepository.class), mock(BadgeService.class));
+
+        leaderboard.onPointsChanged(new PointsChangedEvent(1L, 10, 30)); // second accrual commits first
+        leaderboard.onPointsChanged(new PointsChangedEvent(1L, 20, 20));
+        leaderboard.onPointsChanged(new PointsChangedEvent(2L, 25, 25));
+
+        List<LeaderboardService.Standing> top = leaderboard.top(LeaderboardService.Window.ALL, 2);
+        assertEquals(1L, top.get(0).userId());
+        assertEquals(30, top.get(0).points());
+        assertEquals(2L, top.get(1).userId());
+    }
+}
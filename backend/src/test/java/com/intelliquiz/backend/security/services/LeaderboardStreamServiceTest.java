@@ -0,0 +1,134 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class LeaderboardStreamServiceTest {
+
+    private LeaderboardService leaderboardService;
+    private LeaderboardStreamService stream;
+
+    @BeforeEach
+    public void setup() {
+        leaderboardService = mock(LeaderboardService.class);
+        when(leaderboardService.describe(anyList())).thenAnswer(inv -> {
+            List<LeaderboardService.Standing> standings = inv.getArgument(0);
+            return standings.stream()
+                    .map(s -> Map.<String, Object>of("rank", s.rank(), "username", "u" + s.userId(), "points", s.points()))
+                    .toList();
+        });
+        stream = new LeaderboardStreamService(leaderboardService, new ObjectMapper(), 3, 60_000, 15_000, 4, 5_000, Runnable::run);
+    }
+
+    @Test
+    public void testDiff_onlyChangedPositions() {
+        Map<String, Object> a = Map.of("rank", 1, "username", "a", "points", 50);
+        Map<String, Object> b = Map.of("rank", 2, "username", "b", "points", 40);
+        Map<String, Object> c = Map.of("rank", 2, "username", "c", "points", 45);
+
+        assertEquals(List.of(), LeaderboardStreamService.diff(List.of(a, b), List.of(a, b)));
+        assertEquals(List.of(c), LeaderboardStreamService.diff(List.of(a, b), List.of(a, c)));
+        assertEquals(List.of(b), LeaderboardStreamService.diff(List.of(a), List.of(a, b)));
+    }
+
+    @Test
+    public void testTick_describesOnlyWhenStandingsChange() throws Exception {
+        List<LeaderboardService.Standing> board = List.of(new LeaderboardService.Standing(1, 1, 50));
+        when(leaderboardService.top(anyInt())).thenReturn(board);
+
+        stream.subscribe(); // first snapshot
+        stream.tick();
+        stream.tick();
+        verify(leaderboardService, times(1)).describe(anyList());
+
+        when(leaderboardService.top(anyInt())).thenReturn(List.of(
+                new LeaderboardService.Standing(2, 1, 60), new LeaderboardService.Standing(1, 2, 50)));
+        stream.tick();
+        stream.tick();
+        verify(leaderboardService, times(2)).describe(anyList());
+        assertEquals(1, stream.subscriberCount());
+    }
+
+    @Test
+    public void testSlowSubscriberDroppedWhenQueueFills() {
+        // writers that never run: frames pile up as behind a stalled client
+        LeaderboardStreamService stalled = new LeaderboardStreamService(
+                leaderboardService, new ObjectMapper(), 3, 60_000, 15_000, 4, 5_000, task -> {});
+        when(leaderboardService.top(anyInt())).thenReturn(List.of(new LeaderboardService.Standing(1, 1, 10)));
+        stalled.subscribe(); // snapshot is frame 1
+
+        for (int points = 11; points <= 13; points++) {
+            when(leaderboardService.top(anyInt())).thenReturn(List.of(new LeaderboardService.Standing(1, 1, points)));
+            stalled.tick();
+        }
+        assertEquals(1, stalled.subscriberCount()); // 4 frames queued, still within the bound
+
+        when(leaderboardService.top(anyInt())).thenReturn(List.of(new LeaderboardService.Standing(1, 1, 14)));
+        stalled.tick();
+        assertEquals(0, stalled.subscriberCount());
+    }
+
+    @Test
+    public void testBlockedSendIsEvictedAndFreesTheWriter() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger created = new AtomicInteger();
+        LeaderboardStreamService service = new LeaderboardStreamService(
+                leaderboardService, new ObjectMapper(), 3, 60_000, 15_000, 4, 50, pool) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                boolean hung = created.getAndIncrement() == 0; // the first viewer's socket never drains
+                return new SseEmitter(timeoutMs) {
+                    @Override
+                    public void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) throws IOException {
+                        if (!hung) {
+                            delivered.incrementAndGet();
+                            return;
+                        }
+                        blocked.countDown();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException("interrupted");
+                        }
+                    }
+                };
+            }
+        };
+        try {
+            when(leaderboardService.top(anyInt())).thenReturn(List.of(new LeaderboardService.Standing(1, 1, 10)));
+            service.subscribe();
+            assertTrue(blocked.await(5, TimeUnit.SECONDS)); // the only writer is now stuck
+            service.subscribe();
+            assertEquals(0, delivered.get());
+
+            Thread.sleep(100);
+            service.tick();
+
+            assertEquals(1, service.subscriberCount());
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (delivered.get() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            assertEquals(1, delivered.get()); // the healthy viewer's snapshot went out once the writer was freed
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
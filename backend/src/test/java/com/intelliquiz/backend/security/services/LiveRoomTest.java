@@ -0,0 +1,123 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LiveRoomTest {
+
+    private LiveRoom room;
+
+    @BeforeEach
+    public void setup() {
+        room = new LiveRoom("s1", 1L, 10L, "Java", "medium", List.of(
+                new LiveRoom.Question(1, "Q1", List.of("a", "b", "c", "d"), 2),
+                new LiveRoom.Question(2, "Q2", List.of("a", "b", "c", "d"), 0)));
+    }
+
+    @Test
+    public void testAnswer_firstAnswerWinsAndClosedQuestionsRejected() {
+        room.join(100L, "alice");
+        assertEquals(LiveRoom.Outcome.CLOSED, room.answer(100L, 0, 2)); // nothing open yet
+
+        assertEquals(0, room.advance());
+        assertEquals(LiveRoom.Outcome.NOT_JOINED, room.answer(200L, 0, 2));
+        assertEquals(LiveRoom.Outcome.INVALID, room.answer(100L, 0, 7));
+        assertEquals(LiveRoom.Outcome.ACCEPTED, room.answer(100L, 0, 2));
+        assertEquals(LiveRoom.Outcome.DUPLICATE, room.answer(100L, 0, 1));
+
+        assertEquals(1, room.advance());
+        assertEquals(LiveRoom.Outcome.CLOSED, room.answer(100L, 0, 2));
+        assertEquals(LiveRoom.Outcome.ACCEPTED, room.answer(100L, 1, 3));
+        assertEquals(-1, room.advance());
+
+        LiveRoom.Participant alice = room.participants().iterator().next();
+        assertEquals(1, alice.correct.get());
+        assertEquals(2, alice.answeredCount());
+        assertEquals(3, alice.chosen.get(0));
+        assertArrayEquals(new int[]{0, 0, 1, 0}, room.optionCounts(0));
+
+        assertTrue(room.end());
+        assertFalse(room.end());
+        assertEquals(LiveRoom.Outcome.CLOSED, room.answer(100L, 1, 0));
+    }
+
+    @Test
+    public void testAnswer_concurrentRetriesCountedOnce() throws Exception {
+        int students = 200;
+        for (long u = 1; u <= students; u++) room.join(u, "u" + u);
+        room.advance();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (long u = 1; u <= students; u++) {
+            long user = u;
+            for (int retry = 0; retry < 3; retry++) {
+                int option = (int) ((user + retry) % 4);
+                pool.submit(() -> {
+                    start.await();
+                    return room.answer(user, 0, option);
+                });
+            }
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(students, room.answeredCount(0));
+        int total = 0;
+        for (int c : room.optionCounts(0)) total += c;
+        assertEquals(students, total);
+        int correct = 0;
+        for (LiveRoom.Participant p : room.participants()) correct += p.correct.get();
+        assertEquals(room.optionCounts(0)[2], correct);
+    }
+
+    @Test
+    public void testBroadcast_sameFrameToEverySocketAndDropsDead() throws IOException {
+        WebSocketSession open = mock(WebSocketSession.class);
+        WebSocketSession dead = mock(WebSocketSession.class);
+        when(open.isOpen()).thenReturn(true);
+        when(dead.isOpen()).thenReturn(true);
+        doThrow(new IOException("gone")).when(dead).sendMessage(any());
+        room.attach(open);
+        room.attach(dead);
+
+        TextMessage frame = new TextMessage("{\"type\":\"question\"}");
+        room.broadcast(frame);
+        room.broadcast(frame);
+
+        verify(open, times(2)).sendMessage(same(frame));
+        verify(dead, times(1)).sendMessage(frame);
+        assertEquals(1, room.socketCount());
+    }
+
+    @Test
+    public void testStandings_byCorrectThenTime() {
+        room.join(1L, "slow");
+        room.join(2L, "fast");
+        room.join(3L, "wrong");
+        room.advance();
+        room.answer(1L, 0, 2);
+        room.answer(2L, 0, 2);
+        room.answer(3L, 0, 1);
+        for (LiveRoom.Participant p : room.participants()) p.answerMillis.set(p.userId == 1L ? 9000 : 1000);
+
+        List<Map<String, Object>> standings = LiveSessionService.standings(room, 1);
+        assertEquals(List.of("fast", "slow", "wrong"), standings.stream().map(r -> r.get("username")).toList());
+        assertEquals(100, standings.get(0).get("score"));
+        assertEquals(0, standings.get(2).get("score"));
+    }
+}
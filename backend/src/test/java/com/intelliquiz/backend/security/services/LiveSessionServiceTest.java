@@ -0,0 +1,93 @@
+package com.intelliquiz.backend.security.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intelliquiz.backend.model.Classroom;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.ClassroomMemberRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LiveSessionServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PointsLedgerService pointsLedgerService;
+    private BadgeService badgeService;
+    private PlatformTransactionManager transactionManager;
+    private LiveSessionService service;
+    private final User teacher = new User();
+
+    @BeforeEach
+    public void setup() {
+        Classroom classroom = new Classroom("Class", 10L);
+        classroom.setId(1L);
+        teacher.setId(10L);
+
+        ClassroomService classroomService = mock(ClassroomService.class);
+        when(classroomService.requireManageable(eq(1L), any())).thenReturn(classroom);
+        ClassroomMemberRepository memberRepository = mock(ClassroomMemberRepository.class);
+        when(memberRepository.existsById(any())).thenReturn(true);
+        ContentQuizService contentQuizService = mock(ContentQuizService.class);
+        when(contentQuizService.generateQuestionsFromTopic(anyString(), anyString())).thenReturn(List.of(
+                Map.of("questionId", 1, "question", "Q1", "options", List.of("a", "b", "c", "d"), "answer", "c")));
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        jdbcTemplate = mock(JdbcTemplate.class);
+        pointsLedgerService = mock(PointsLedgerService.class);
+        when(pointsLedgerService.accrueAll(anyMap())).thenReturn(Map.of(100L, 120));
+        badgeService = mock(BadgeService.class);
+
+        service = new LiveSessionService(classroomService, memberRepository, contentQuizService,
+                mock(AttemptAnswerService.class), pointsLedgerService, badgeService,
+                mock(AbilityService.class), jdbcTemplate, mock(ApplicationEventPublisher.class),
+                new ObjectMapper(), transactionManager, 1000, 65536, 60);
+    }
+
+    @Test
+    public void testEnd_failedSaveKeepsRoomForRetry() throws Exception {
+        String sessionId = (String) service.create(1L, "Java", "easy", teacher).get("sessionId");
+        WebSocketSession socket = mock(WebSocketSession.class);
+        when(socket.isOpen()).thenReturn(true);
+        service.join(sessionId, 100L, "alice", false, socket);
+        service.next(sessionId, teacher);
+        assertEquals("ACCEPTED", service.answer(sessionId, 100L, 0, 2));
+
+        doThrow(new DataAccessResourceFailureException("db down"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        assertThrows(DataAccessResourceFailureException.class, () -> service.end(sessionId, teacher));
+
+        assertEquals(1, service.activeSessions());
+        verify(socket, never()).close();
+        assertEquals("DUPLICATE", service.answer(sessionId, 100L, 0, 1)); // answers kept, room open again
+
+        doNothing().when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        Map<String, Object> result = service.end(sessionId, teacher);
+
+        assertEquals(1, result.get("attemptsSaved"));
+        assertEquals(0, service.activeSessions());
+        verify(pointsLedgerService).accrueAll(Map.of(100L, PointsLedgerService.pointsForScore(100)));
+        verify(socket).close();
+        // badges only after commit, so streaks read rings that already hold the live score
+        InOrder order = inOrder(transactionManager, badgeService);
+        order.verify(transactionManager).commit(any());
+        order.verify(badgeService).evaluate(100L, 0L, 120, "Java");
+        assertThrows(EntityNotFoundException.class,
+                () -> service.join(sessionId, 101L, "bob", false, mock(WebSocketSession.class)));
+    }
+}
@@ -0,0 +1,126 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.PointsChangedEvent;
+import com.intelliquiz.backend.repository.UserPointsDailyRepository;
+import com.intelliquiz.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PointsLedgerServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private UserRepository userRepository;
+    private UserPointsDailyRepository dailyRepository;
+    private PointsLedgerService ledger;
+
+    // what the statement was bound with, and the users table it runs against
+    private final Map<String, Object[]> bound = new HashMap<>();
+    private Connection con;
+    private final Map<Long, Integer> points = new HashMap<>(Map.of(1L, 100, 2L, 0, 3L, 40));
+
+    @BeforeEach
+    public void setup() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        userRepository = mock(UserRepository.class);
+        dailyRepository = mock(UserPointsDailyRepository.class);
+        ledger = new PointsLedgerService(userRepository, dailyRepository, jdbcTemplate, eventPublisher);
+
+        con = mock(Connection.class);
+        when(con.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(con.createArrayOf(anyString(), any())).thenAnswer(inv -> {
+            bound.put(inv.getArgument(0), inv.getArgument(1));
+            return mock(Array.class);
+        });
+        doAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(con);
+            Long[] ids = (Long[]) bound.get("bigint");
+            Object[] deltas = bound.get("integer");
+            for (int i = 0; i < ids.length; i++) {
+                if (!points.containsKey(ids[i])) continue; // deleted user: no row returned
+                int total = points.merge(ids[i], (Integer) deltas[i], Integer::sum);
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(ids[i]);
+                when(rs.getInt(2)).thenReturn(total);
+                inv.<RowCallbackHandler>getArgument(1).processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    public void testPointsForScore_tiers() {
+        assertEquals(50, PointsLedgerService.pointsForScore(100));
+        assertEquals(50, PointsLedgerService.pointsForScore(80));
+        assertEquals(25, PointsLedgerService.pointsForScore(79));
+        assertEquals(25, PointsLedgerService.pointsForScore(50));
+        assertEquals(10, PointsLedgerService.pointsForScore(49));
+        assertEquals(10, PointsLedgerService.pointsForScore(0));
+    }
+
+    @Test
+    public void testAccrueAll_bindsSortedIdsAndReturnsNewTotals() {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(3L, 10);
+        deltas.put(9L, 25); // no longer exists
+        deltas.put(1L, 50);
+        deltas.put(2L, 25);
+
+        Map<Long, Integer> totals = ledger.accrueAll(deltas);
+
+        assertArrayEquals(new Long[]{1L, 2L, 3L, 9L}, bound.get("bigint"));
+        assertArrayEquals(new Integer[]{50, 25, 10, 25}, bound.get("integer"));
+        assertEquals(Map.of(1L, 150, 2L, 25, 3L, 50), totals);
+        verify(eventPublisher).publishEvent(new PointsChangedEvent(1L, 50, 150));
+        verify(eventPublisher).publishEvent(new PointsChangedEvent(2L, 25, 25));
+        verify(eventPublisher).publishEvent(new PointsChangedEvent(3L, 10, 50));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testAccrueAll_bumpsTodaysBucketsInOneStatement() throws Exception {
+        Map<Long, Integer> deltas = new HashMap<>(Map.of(3L, 10, 9L, 25, 1L, 50));
+
+        ledger.accrueAll(deltas);
+
+        ArgumentCaptor<PreparedStatementCreator> daily = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).update(daily.capture());
+        daily.getValue().createPreparedStatement(con);
+        assertArrayEquals(new Long[]{1L, 3L}, bound.get("bigint")); // the deleted user has no bucket
+        assertArrayEquals(new Integer[]{50, 10}, bound.get("integer"));
+        verifyNoInteractions(dailyRepository);
+    }
+
+    @Test
+    public void testAccrue_bumpsTodaysBucket() {
+        when(userRepository.addPoints(1L, 25)).thenReturn(125);
+
+        assertEquals(125, ledger.accrue(1L, 25));
+
+        verify(dailyRepository).addPoints(1L, LocalDate.now(), 25);
+        verify(eventPublisher).publishEvent(new PointsChangedEvent(1L, 25, 125));
+    }
+
+    @Test
+    public void testAccrueAll_emptyIsANoOp() {
+        assertTrue(ledger.accrueAll(Map.of()).isEmpty());
+        verifyNoInteractions(jdbcTemplate, eventPublisher, dailyRepository);
+    }
+}
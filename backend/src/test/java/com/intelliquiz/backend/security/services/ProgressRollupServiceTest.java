@@ -0,0 +1,35 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static com.intelliquiz.backend.security.services.ProgressRollupService.Resolution.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressRollupServiceTest {
+
+    @Test
+    public void testResolve_autoKeepsChartsSmall() {
+        assertEquals(DAY, ProgressRollupService.resolve(AUTO, 30));
+        assertEquals(DAY, ProgressRollupService.resolve(AUTO, 92));
+        assertEquals(WEEK, ProgressRollupService.resolve(AUTO, 365));   // 53 points
+        assertEquals(MONTH, ProgressRollupService.resolve(AUTO, 5 * 365));
+    }
+
+    @Test
+    public void testResolve_explicitDailyIsCapped() {
+        assertEquals(DAY, ProgressRollupService.resolve(DAY, 365));
+        assertThrows(BadRequestException.class, () -> ProgressRollupService.resolve(DAY, 366));
+        assertEquals(MONTH, ProgressRollupService.resolve(MONTH, 10));
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(AUTO, ProgressRollupService.Resolution.parse(null));
+        assertEquals(WEEK, ProgressRollupService.Resolution.parse(" Week "));
+        assertThrows(BadRequestException.class, () -> ProgressRollupService.Resolution.parse("hourly"));
+        assertEquals(LocalDate.of(2025, 6, 2), ProgressRollupService.weekOf(LocalDate.of(2025, 6, 8)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.AttemptAnswer;
+import com.intelliquiz.backend.model.QuizAttempt;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class QuizAttemptServiceTest {
+
+    @Test
+    public void testRecordAttempt_writesAnswersBeforePublishingAndPropagatesFailures() {
+        QuizAttemptRepository repository = mock(QuizAttemptRepository.class);
+        when(repository.save(any())).thenAnswer(inv -> {
+            QuizAttempt a = inv.getArgument(0);
+            a.setId(11L);
+            return a;
+        });
+        AttemptAnswerService answers = mock(AttemptAnswerService.class);
+        List<AttemptAnswer> rows = List.of(new AttemptAnswer(11L, 1, "a", true, null));
+        when(answers.fromSubmission(eq(11L), anyList())).thenReturn(rows);
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        QuizAttemptService service = new QuizAttemptService(repository, answers, publisher);
+        User user = new User();
+        user.setId(3L);
+        List<Map<String, Object>> submitted = List.of(Map.of("questionId", 1, "selectedAnswer", "a", "isCorrect", true));
+
+        service.recordAttempt(user, "Java", "easy", 100, 30, 1, 1, submitted);
+        verify(answers).saveAll(rows);
+        verify(publisher).publishEvent(any(QuizSubmittedEvent.class));
+
+        // a failing answer insert fails the whole call (and so rolls back the attempt)
+        when(answers.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("bad row"));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> service.recordAttempt(user, "Java", "easy", 100, 30, 1, 1, submitted));
+        verify(publisher, times(1)).publishEvent(any(QuizSubmittedEvent.class));
+    }
+}
@@ -0,0 +1,86 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankTreeTest {
+
+    @Test
+    public void testRank_ordersByPointsThenUserId() {
+        RankTree tree = new RankTree();
+        tree.put(1L, 100);
+        tree.put(2L, 300);
+        tree.put(3L, 100);
+        tree.put(4L, 200);
+
+        assertEquals(1, tree.rank(2L));
+        assertEquals(2, tree.rank(4L));
+        assertEquals(3, tree.rank(1L)); // tie broken by lower id
+        assertEquals(4, tree.rank(3L));
+        assertEquals(-1, tree.rank(99L));
+    }
+
+    @Test
+    public void testPut_replacesPreviousScore() {
+        RankTree tree = new RankTree();
+        tree.put(1L, 10);
+        tree.put(2L, 20);
+        tree.put(1L, 30);
+
+        assertEquals(2, tree.size());
+        assertEquals(1, tree.rank(1L));
+        assertEquals(30, tree.pointsOf(1L));
+
+        tree.remove(1L);
+        assertEquals(1, tree.size());
+        assertNull(tree.pointsOf(1L));
+        assertEquals(1, tree.rank(2L));
+    }
+
+    @Test
+    public void testRange_matchesSortedOrderAfterRandomUpdates() {
+        RankTree tree = new RankTree();
+        long[] points = new long[501];
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            int user = 1 + random.nextInt(500);
+            int p = random.nextInt(1000);
+            tree.put(user, p);
+            points[user] = p + 1; // 0 means "never ranked"
+        }
+
+        List<long[]> expected = new ArrayList<>();
+        for (int u = 1; u <= 500; u++) if (points[u] > 0) expected.add(new long[] {u, points[u] - 1});
+        expected.sort(Comparator.<long[]>comparingLong(e -> -e[1]).thenComparingLong(e -> e[0]));
+
+        List<long[]> actual = new ArrayList<>();
+        tree.range(10, 50, (user, p) -> actual.add(new long[] {user, p}));
+
+        assertEquals(50, actual.size());
+        for (int i = 0; i < 50; i++) {
+            assertArrayEquals(expected.get(10 + i), actual.get(i));
+            assertEquals(11 + i, tree.rank(actual.get(i)[0]));
+        }
+    }
+
+    @Test
+    public void testCountNotAfter_positionsKeysetCursor() {
+        RankTree tree = new RankTree();
+        tree.put(1L, 300);
+        tree.put(2L, 200);
+        tree.put(3L, 200);
+        tree.put(4L, 100);
+
+        assertEquals(0, tree.countNotAfter(Integer.MAX_VALUE, 0L));
+        assertEquals(2, tree.countNotAfter(200, 2L)); // cursor on user 2 → next page starts at user 3
+        assertEquals(3, tree.countNotAfter(200, 3L));
+        assertEquals(3, tree.countNotAfter(150, 9L)); // cursor key no longer present
+        assertEquals(4, tree.countNotAfter(0, 0L));
+    }
+}
@@ -0,0 +1,49 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.repository.QuizAttemptRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RecentScoresServiceTest {
+
+    @Test
+    public void testLoad_commitsDuringTheQueryAreCountedExactlyOnce() {
+        QuizAttemptRepository repository = mock(QuizAttemptRepository.class);
+        RecentScoresService service = new RecentScoresService(repository, 100);
+        when(repository.findRecentIdsAndScores(eq(7L), any())).thenAnswer(inv -> {
+            // attempt 2 is in the result but its after-commit listener fires late;
+            // attempt 3 commits after the query ran and would otherwise be lost
+            service.onQuizSubmitted(event(2L, 60));
+            service.onQuizSubmitted(event(3L, 90));
+            return List.<Object[]>of(new Object[]{2L, 60}, new Object[]{1L, 50}); // newest first
+        });
+
+        assertEquals(List.of(50, 60, 90), service.recent(7L, 5));
+
+        service.onQuizSubmitted(event(2L, 60)); // duplicate delivery of a loaded attempt
+        service.onQuizSubmitted(event(4L, 70));
+        assertEquals(List.of(50, 60, 90, 70), service.recent(7L, 5));
+        verify(repository, times(1)).findRecentIdsAndScores(eq(7L), any());
+    }
+
+    @Test
+    public void testListener_ignoresUsersWithoutRing() {
+        QuizAttemptRepository repository = mock(QuizAttemptRepository.class);
+        RecentScoresService service = new RecentScoresService(repository, 100);
+        service.onQuizSubmitted(event(1L, 40));
+        when(repository.findRecentIdsAndScores(eq(7L), any())).thenReturn(List.<Object[]>of(new Object[]{1L, 40}));
+
+        assertEquals(List.of(40), service.recent(7L, 5));
+    }
+
+    private static QuizSubmittedEvent event(Long attemptId, int score) {
+        return new QuizSubmittedEvent(7L, attemptId, "AI", "easy", score, 1, 1, 10, LocalDateTime.now());
+    }
+}
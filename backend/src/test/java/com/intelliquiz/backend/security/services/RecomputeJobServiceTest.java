@@ -0,0 +1,54 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecomputeJobServiceTest {
+
+    @Test
+    public void testWatermark_onlyAdvancesOverContiguousChunks() {
+        RecomputeJobService.Watermark watermark = new RecomputeJobService.Watermark(0L, 0L, 0);
+
+        assertNull(watermark.complete(chunk(1, 10, 20, 3)));  // chunk 0 still running
+        assertNull(watermark.complete(chunk(2, 20, 30, 2)));
+
+        RecomputeJobService.Watermark.Advance adv = watermark.complete(chunk(0, 0, 10, 4));
+        assertNotNull(adv);
+        assertEquals(30L, adv.lastUserId());
+        assertEquals(9L, adv.usersDone());
+        assertEquals(3, adv.chunksDone());
+    }
+
+    @Test
+    public void testWatermark_resumesFromCheckpoint() {
+        RecomputeJobService.Watermark watermark = new RecomputeJobService.Watermark(500L, 40L, 8);
+
+        RecomputeJobService.Watermark.Advance adv = watermark.complete(chunk(0, 500, 620, 5));
+
+        assertEquals(620L, adv.lastUserId());
+        assertEquals(45L, adv.usersDone());
+        assertEquals(9, adv.chunksDone());
+    }
+
+    @Test
+    public void testUserTotals_foldsPointsStreakAndRecentDays() {
+        RecomputeJobService.UserTotals totals = new RecomputeJobService.UserTotals();
+        totals.add(90, "ai", 100);   // 50
+        totals.add(85, "ai", 100);   // 50
+        totals.add(85, "math", 101); // 50
+        totals.add(40, "math", -1);  // 10, too old for the daily rows
+        totals.add(60, null, 101);   // 25
+
+        assertEquals(185, totals.points);
+        assertEquals(3, totals.bestStreak);
+        assertEquals(0, totals.streak);
+        assertEquals(100, totals.daily.get(100));
+        assertEquals(75, totals.daily.get(101));
+        assertEquals(2, totals.topics.get("math")[1]);
+    }
+
+    private static RecomputeJobService.Chunk chunk(long seq, long after, long to, int users) {
+        return new RecomputeJobService.Chunk(seq, after, to, new long[users]);
+    }
+}
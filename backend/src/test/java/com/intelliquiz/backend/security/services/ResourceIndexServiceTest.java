@@ -0,0 +1,76 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.model.Resource;
+import com.intelliquiz.backend.repository.ResourceRepository;
+import com.intelliquiz.backend.repository.TopicRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResourceIndexServiceTest {
+
+    private ResourceRepository resourceRepository;
+    private ResourceIndexService index;
+
+    @BeforeEach
+    public void setup() {
+        resourceRepository = mock(ResourceRepository.class);
+        TopicRepository topicRepository = mock(TopicRepository.class);
+        when(topicRepository.findAll()).thenReturn(List.of());
+        index = new ResourceIndexService(resourceRepository, topicRepository);
+    }
+
+    @Test
+    public void testRank_exactThenNarrowerThenBroader() {
+        LocalDateTime now = LocalDateTime.now();
+        when(resourceRepository.findAll()).thenReturn(List.of(
+                resource(1L, "Java", "STUDENT", now.minusDays(1)),
+                resource(2L, "Java Streams", "TEACHER", now.minusDays(3)),
+                resource(3L, "java", "TEACHER", now.minusDays(5)),
+                resource(4L, "JavaScript", "TEACHER", now),
+                resource(5L, "Core Java", "STUDENT", now)));
+        index.warmUp();
+
+        assertEquals(List.of(3L, 1L, 2L, 5L), ids("java", 10));
+        assertEquals(List.of(2L, 3L, 1L), ids("java streams", 10)); // exact, then broader "java" resources
+        assertEquals(List.of(3L, 1L), ids("JAVA", 2));
+        assertEquals(List.of(), ids("python", 10));
+    }
+
+    @Test
+    public void testHooks_updateIndexWithoutRereading() {
+        when(resourceRepository.findAll()).thenReturn(List.of(resource(1L, "sql", "TEACHER", LocalDateTime.now().minusDays(2))));
+        index.warmUp();
+        assertEquals(List.of(1L), ids("sql", 10));
+
+        index.resourceAdded(resource(2L, "SQL", "TEACHER", LocalDateTime.now()));
+        assertEquals(List.of(2L, 1L), ids("sql", 10));
+
+        index.resourceRemoved(1L);
+        assertEquals(List.of(2L), ids("sql", 10));
+        verify(resourceRepository, times(1)).findAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> ids(String topic, int perTopic) {
+        Map<String, Object> row = index.forTopics(List.of(topic), perTopic).get(0);
+        assertEquals(topic, row.get("topic"));
+        return ((List<ResourceIndexService.Entry>) row.get("resources")).stream().map(ResourceIndexService.Entry::id).toList();
+    }
+
+    private static Resource resource(Long id, String topic, String role, LocalDateTime uploadedAt) {
+        Resource r = new Resource();
+        r.setId(id);
+        r.setTopic(topic);
+        r.setFileName(id + ".pdf");
+        r.setUploaderRole(role);
+        r.setUploadedAt(uploadedAt);
+        return r;
+    }
+}
@@ -39,6 +39,12 @@ class ResourceServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private CounterService counterService;
+
+    @Mock
+    private ResourceIndexService resourceIndexService;
+
     @InjectMocks
     private ResourceService resourceService;
 
@@ -67,7 +73,7 @@ class ResourceServiceTest {
         sampleResource.setUploadedAt(LocalDateTime.now());
 
         // Inject temp upload directory
-        resourceService = new ResourceService(resourceRepository, userRepository);
+        resourceService = new ResourceService(resourceRepository, userRepository, counterService, resourceIndexService);
         try {
             var uploadDirField = ResourceService.class.getDeclaredField("uploadDir");
             uploadDirField.setAccessible(true);
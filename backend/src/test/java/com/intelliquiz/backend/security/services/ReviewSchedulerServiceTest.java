@@ -0,0 +1,96 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.QuizSubmittedEvent;
+import com.intelliquiz.backend.model.ReviewSchedule;
+import com.intelliquiz.backend.repository.ReviewScheduleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReviewSchedulerServiceTest {
+
+    @Test
+    void applyReview_growsIntervalOnGoodRecallAndResetsOnLapse() {
+        ReviewSchedule s = new ReviewSchedule();
+        s.setEase(ReviewSchedulerService.INITIAL_EASE);
+        LocalDateTime t = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+        ReviewSchedulerService.applyReview(s, 5, t);
+        assertEquals(1, s.getIntervalDays());
+        ReviewSchedulerService.applyReview(s, 5, t);
+        assertEquals(6, s.getIntervalDays());
+        ReviewSchedulerService.applyReview(s, 5, t);
+        assertTrue(s.getIntervalDays() > 6);
+        assertEquals(t.plusDays(s.getIntervalDays()), s.getDueAt());
+
+        ReviewSchedulerService.applyReview(s, 1, t);
+        assertEquals(1, s.getIntervalDays());
+        assertEquals(0, s.getRepetitions());
+        assertTrue(s.getEase() >= ReviewSchedulerService.MIN_EASE);
+    }
+
+    @Test
+    void overdueTopicsSurfaceAfterTickAndClearOnReview() {
+        ReviewScheduleRepository repository = mock(ReviewScheduleRepository.class);
+        TopicRegistry topics = mock(TopicRegistry.class);
+        when(topics.idOf("AI")).thenReturn(4);
+        when(topics.nameOf(4)).thenReturn("ai");
+        List<Object[]> rows = List.<Object[]>of(new Object[]{9L, 4, LocalDateTime.now().minusDays(2)});
+        when(repository.findAllDueTimes()).thenReturn(rows);
+        when(repository.findForUpdate(9L, 4)).thenReturn(Optional.of(fresh(9L, 4)));
+
+        ReviewSchedulerService scheduler = new ReviewSchedulerService(repository, topics);
+        scheduler.warmUp();
+
+        List<Map<String, Object>> due = scheduler.getDue(9L);
+        assertEquals(1, due.size());
+        assertEquals("ai", due.get(0).get("topic"));
+        assertTrue(scheduler.getDue(10L).isEmpty());
+
+        scheduler.onQuizSubmitted(new QuizSubmittedEvent(9L, 1L, "AI", "medium", 100, 5, 5, 30, LocalDateTime.now()));
+        scheduler.tick();
+        assertTrue(scheduler.getDue(9L).isEmpty());
+        verify(repository).insertIfAbsent(eq(9L), eq(4), any(), eq(ReviewSchedulerService.INITIAL_EASE));
+        verify(repository).save(argThat(s -> s.getIntervalDays() == 1 && s.getRepetitions() == 1));
+    }
+
+    @Test
+    void queueChangesWaitForCommit() {
+        ReviewScheduleRepository repository = mock(ReviewScheduleRepository.class);
+        TopicRegistry topics = mock(TopicRegistry.class);
+        when(topics.idOf("AI")).thenReturn(4);
+        List<Object[]> rows = List.<Object[]>of(new Object[]{9L, 4, LocalDateTime.now().minusDays(2)});
+        when(repository.findAllDueTimes()).thenReturn(rows);
+        when(repository.findForUpdate(9L, 4)).thenReturn(Optional.of(fresh(9L, 4)));
+        ReviewSchedulerService scheduler = new ReviewSchedulerService(repository, topics);
+        scheduler.warmUp();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            scheduler.onQuizSubmitted(new QuizSubmittedEvent(9L, 1L, "AI", "medium", 100, 5, 5, 30, LocalDateTime.now()));
+            assertEquals(1, scheduler.getDue(9L).size()); // not committed yet → still due
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(scheduler.getDue(9L).isEmpty());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static ReviewSchedule fresh(Long userId, int topicId) {
+        ReviewSchedule s = new ReviewSchedule();
+        s.setUserId(userId);
+        s.setTopicId(topicId);
+        s.setEase(ReviewSchedulerService.INITIAL_EASE);
+        return s;
+    }
+}
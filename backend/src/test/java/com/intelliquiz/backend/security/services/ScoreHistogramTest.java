@@ -0,0 +1,65 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreHistogramTest {
+
+    @Test
+    public void testPercentile_isExactNearestRank() {
+        ScoreHistogram h = new ScoreHistogram();
+        for (int score = 1; score <= 100; score++) h.add(score);
+
+        assertEquals(50, h.percentile(50));
+        assertEquals(90, h.percentile(90));
+        assertEquals(100, h.percentile(100));
+        assertEquals(1, h.percentile(0.5));
+        assertEquals(50.5, h.mean(), 1e-9);
+        assertEquals(-1, new ScoreHistogram().percentile(50));
+    }
+
+    @Test
+    public void testMerge_equalsHistogramOfAllScores() {
+        ScoreHistogram week1 = new ScoreHistogram();
+        ScoreHistogram week2 = new ScoreHistogram();
+        ScoreHistogram all = new ScoreHistogram();
+        for (int i = 0; i < 500; i++) {
+            int score = (i * 37) % 101;
+            (i % 3 == 0 ? week1 : week2).add(score);
+            all.add(score);
+        }
+        week1.merge(week2);
+
+        assertEquals(all.total(), week1.total());
+        for (double p : new double[] {10, 25, 50, 75, 90, 99}) {
+            assertEquals(all.percentile(p), week1.percentile(p));
+        }
+    }
+
+    @Test
+    public void testEncode_roundTripsCompactly() {
+        ScoreHistogram h = new ScoreHistogram();
+        h.add(0);
+        h.add(72, 300);
+        h.add(100, 5);
+
+        byte[] bytes = h.encode();
+        ScoreHistogram back = ScoreHistogram.decode(bytes);
+
+        assertTrue(bytes.length < 12, "sparse histograms should encode in a few bytes");
+        assertEquals(306, back.total());
+        assertEquals(0, back.min());
+        assertEquals(100, back.max());
+        assertEquals(72, back.percentile(50));
+        assertEquals(0, ScoreHistogram.decode(new byte[0]).total());
+    }
+
+    @Test
+    public void testWeekOf_isMonday() {
+        assertEquals(LocalDate.of(2025, 3, 3), ScoreSketchService.weekOf(LocalDate.of(2025, 3, 9)));
+        assertEquals(LocalDate.of(2025, 3, 3), ScoreSketchService.weekOf(LocalDate.of(2025, 3, 3)));
+    }
+}
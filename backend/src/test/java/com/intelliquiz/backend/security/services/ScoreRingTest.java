@@ -0,0 +1,39 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreRingTest {
+
+    @Test
+    public void testLast_returnsOldestFirstBeforeWrapping() {
+        ScoreRing ring = new ScoreRing(5);
+        ring.add(10);
+        ring.add(20);
+        ring.add(30);
+
+        assertArrayEquals(new int[] {10, 20, 30}, ring.last(5));
+        assertArrayEquals(new int[] {20, 30}, ring.last(2));
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    public void testAdd_overwritesOldestOnceFull() {
+        ScoreRing ring = new ScoreRing(3);
+        for (int s = 1; s <= 7; s++) ring.add(s * 10);
+
+        assertEquals(3, ring.size());
+        assertArrayEquals(new int[] {50, 60, 70}, ring.last(10));
+        assertArrayEquals(new int[] {70}, ring.last(1));
+    }
+
+    @Test
+    public void testAdd_keepsFullPercentageRange() {
+        ScoreRing ring = new ScoreRing(2);
+        ring.add(100);
+        ring.add(250); // clamped
+
+        assertArrayEquals(new int[] {100, 100}, ring.last(2));
+    }
+}
@@ -0,0 +1,56 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.repository.ClassroomMemberRepository;
+import com.intelliquiz.backend.repository.ScoreSketchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ScoreSketchServiceTest {
+
+    @Test
+    public void testPercentiles_rangeIsWidenedToWholeWeeksAndEchoed() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ScoreHistogram week = new ScoreHistogram();
+        week.add(40);
+        week.add(80);
+        when(jdbcTemplate.queryForList(anyString(), eq(byte[].class), any(Object[].class)))
+                .thenReturn(List.of(week.encode()));
+        ScoreSketchService sketches = new ScoreSketchService(mock(ScoreSketchRepository.class),
+                mock(ClassroomMemberRepository.class), mock(TopicRegistry.class), jdbcTemplate,
+                mock(PlatformTransactionManager.class));
+
+        // Wednesday 2026-10-07 .. Wednesday 2026-10-14
+        Map<String, Object> result = sketches.percentiles(null, null,
+                LocalDate.of(2026, 10, 7), LocalDate.of(2026, 10, 14), List.of(50.0));
+
+        assertEquals("2026-10-05", result.get("from")); // Monday
+        assertEquals("2026-10-18", result.get("to"));   // Sunday
+        assertEquals(2L, ((Number) result.get("count")).longValue());
+        verify(jdbcTemplate).queryForList(anyString(), eq(byte[].class), any(), any(),
+                eq(Date.valueOf("2026-10-05")), eq(Date.valueOf("2026-10-12")));
+    }
+
+    @Test
+    public void testPercentiles_openRangeStaysOpen() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ScoreSketchService sketches = new ScoreSketchService(mock(ScoreSketchRepository.class),
+                mock(ClassroomMemberRepository.class), mock(TopicRegistry.class), jdbcTemplate,
+                mock(PlatformTransactionManager.class));
+
+        Map<String, Object> result = sketches.percentiles(null, null, null, null, List.of(50.0));
+
+        assertNull(result.get("from"));
+        assertNull(result.get("to"));
+        assertNull(((Map<?, ?>) result.get("percentiles")).get("p50"));
+    }
+}
@@ -0,0 +1,25 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatsRollupServiceTest {
+
+    @Test
+    public void testRecentScores_decodesUnsignedBytesOldestFirst() {
+        byte[] packed = {(byte) 40, (byte) 100, (byte) 73};
+
+        assertEquals(List.of(40, 100, 73), StatsRollupService.recentScores(packed, 5));
+        assertEquals(List.of(100, 73), StatsRollupService.recentScores(packed, 2));
+    }
+
+    @Test
+    public void testRecentScores_handlesEmptyInput() {
+        assertTrue(StatsRollupService.recentScores(null, 5).isEmpty());
+        assertTrue(StatsRollupService.recentScores(new byte[0], 5).isEmpty());
+        assertTrue(StatsRollupService.recentScores(new byte[] {1}, 0).isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+package com.intelliquiz.backend.security.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    public void testGetPut_countsHitsAndMisses() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test", 100);
+
+        assertNull(cache.get(1L));
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L));
+
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    public void testScan_doesNotFlushHotEntries() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test", 100);
+        for (long k = 0; k < 50; k++) {
+            cache.put(k, "hot");
+            for (int i = 0; i < 5; i++) cache.get(k);
+        }
+
+        // one-off keys that are never read again
+        for (long k = 1000; k < 1500; k++) {
+            cache.get(k);
+            cache.put(k, "cold");
+        }
+
+        int hotLeft = 0;
+        for (long k = 0; k < 50; k++) if (cache.get(k) != null) hotLeft++;
+        assertTrue(hotLeft >= 45, "hot entries survived: " + hotLeft);
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    public void testInvalidate_removesFromAnySegment() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>("test", 100);
+        cache.put(1L, "a");
+        cache.put(2L, "b");  // pushes 1 out of the window into probation
+        cache.get(1L);       // promotes 1 to protected
+
+        cache.invalidate(1L);
+        cache.invalidate(2L);
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(0, cache.size());
+        assertEquals(2L, cache.stats().get("invalidations"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.intelliquiz.backend.security.services;
+
+import com.intelliquiz.backend.event.UserAccountChangedEvent;
+import com.intelliquiz.backend.model.ERole;
+import com.intelliquiz.backend.model.Role;
+import com.intelliquiz.backend.model.User;
+import com.intelliquiz.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserDetailsServiceImplTest {
+
+    private UserRepository userRepository;
+    private UserDetailsServiceImpl service;
+    private User sam;
+
+    @BeforeEach
+    public void setup() {
+        sam = new User();
+        sam.setId(7L);
+        sam.setUsername("sam");
+        sam.setPassword("hash");
+        sam.setRoles(Set.of(Role.builder().name(ERole.ROLE_STUDENT).build()));
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("sam")).thenAnswer(inv -> Optional.of(sam));
+        when(userRepository.findById(7L)).thenAnswer(inv -> Optional.of(sam));
+        service = new UserDetailsServiceImpl(userRepository, 100, 60_000, 3_600_000);
+    }
+
+    private static List<String> roles(UserDetailsImpl details) {
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    private static UserDetailsImpl claims(String role) {
+        return new UserDetailsImpl(7L, "sam", null, null, List.of(new SimpleGrantedAuthority(role)));
+    }
+
+    @Test
+    public void testLoad_cachedByUsernameAndId() {
+        service.loadUserByUsername("sam");
+        service.loadUserByUsername("sam");
+        assertEquals("sam", service.loadUserById(7L).getUsername());
+
+        verify(userRepository, times(1)).findByUsername("sam");
+        verify(userRepository, never()).findById(any());
+        Map<String, Object> byName = service.cacheStats().get(0);
+        assertEquals(1L, byName.get("hits"));
+        assertEquals(1L, byName.get("misses"));
+    }
+
+    @Test
+    public void testLoad_expiresAfterTtl() throws InterruptedException {
+        service = new UserDetailsServiceImpl(userRepository, 100, 5, 3_600_000);
+        service.loadUserByUsername("sam");
+        Thread.sleep(20);
+        service.loadUserByUsername("sam");
+        verify(userRepository, times(2)).findByUsername("sam");
+    }
+
+    @Test
+    public void testRoleChange_reloadsDetailsAndReResolvesOlderTokens() {
+        Date issued = new Date(System.currentTimeMillis() - 5_000);
+        service.loadUserByUsername("sam");
+        assertEquals(List.of("ROLE_STUDENT"), roles(service.principalFor(claims("ROLE_STUDENT"), "sam", issued)));
+
+        sam.setRoles(Set.of(Role.builder().name(ERole.ROLE_TEACHER).build()));
+        service.onAccountChanged(new UserAccountChangedEvent(7L, UserAccountChangedEvent.Change.ROLES));
+
+        assertEquals(List.of("ROLE_TEACHER"), roles((UserDetailsImpl) service.loadUserByUsername("sam")));
+        assertEquals(List.of("ROLE_TEACHER"), roles(service.principalFor(claims("ROLE_STUDENT"), "sam", issued)));
+        // a token issued after the change keeps using its own claims
+        Date later = new Date(System.currentTimeMillis() + 2_000);
+        assertEquals(List.of("ROLE_ADMIN"), roles(service.principalFor(claims("ROLE_ADMIN"), "sam", later)));
+    }
+
+    @Test
+    public void testLogout_revokesOlderTokensOnly() {
+        Date issued = new Date(System.currentTimeMillis() - 5_000);
+        assertNotNull(service.principalFor(claims("ROLE_STUDENT"), "sam", issued));
+
+        service.onAccountChanged(new UserAccountChangedEvent(7L, UserAccountChangedEvent.Change.LOGOUT));
+
+        assertNull(service.principalFor(claims("ROLE_STUDENT"), "sam", issued));
+        assertNull(service.principalFor(null, "sam", issued));
+        assertNotNull(service.principalFor(claims("ROLE_STUDENT"), "sam", new Date(System.currentTimeMillis() + 2_000)));
+    }
+
+    @Test
+    public void testDeletedUser_tokenWithoutClaimsResolvesToNull() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+        assertNull(service.principalFor(null, "ghost", new Date()));
+    }
+}
@@ -101,7 +101,12 @@ const QuizPage = () => {
         const selected = answers[index];
         const selectedOptionText = q.options[selected];
         const correct = selectedOptionText === q.answer;
-        return { questionId: q.questionId || index + 1, isCorrect: correct };
+        return {
+          questionId: q.questionId || index + 1,
+          selectedOption: selected,
+          selectedAnswer: selectedOptionText ?? null,
+          isCorrect: correct,
+        };
       });
 
       const response = await fetch(`${API_BASE}/quiz/submit`, {